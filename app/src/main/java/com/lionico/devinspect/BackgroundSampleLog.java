@@ -0,0 +1,234 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Ring of SamplingJobService passes, memory-mapped like BatteryHistoryStore.
+// One pass is one fixed-size record holding every reading it took, stored
+// with a single append() that also updates the job's own counters in the
+// header. Nothing is fsynced: the kernel writes the dirty page back with
+// its other writeback, so a pass costs no I/O of its own.
+public final class BackgroundSampleLog {
+
+    private static final String TAG = "BackgroundSamples";
+    private static final String FILE_NAME = "background_samples.ring";
+
+    private static final int MAGIC = 0x4247534D; // "BGSM"
+    private static final int VERSION = 1;
+
+    // About six weeks at the shortest job interval
+    public static final int CAPACITY = 4096;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_CAPACITY = 8;
+    private static final int OFF_RECORD_SIZE = 12;
+    private static final int OFF_WRITE_COUNT = 16;
+    private static final int OFF_STOP_COUNT = 24;
+    private static final int OFF_CPU_MICROS = 32;
+    private static final int OFF_FIRST_RUN_TIME = 40;
+    private static final int OFF_WAKEUP_COUNT = 48;
+
+    // Record layout
+    private static final int RECORD_SIZE = 80;
+    private static final int REC_TIMESTAMP = 0;
+    private static final int REC_RAM_TOTAL = 8;
+    private static final int REC_RAM_AVAILABLE = 16;
+    private static final int REC_STORAGE_TOTAL = 24;
+    private static final int REC_STORAGE_AVAILABLE = 32;
+    private static final int REC_RX_BYTES = 40;
+    private static final int REC_TX_BYTES = 48;
+    private static final int REC_CPU_MICROS = 56;
+    private static final int REC_WALL_MICROS = 60;
+    private static final int REC_LEVEL = 64;       // 0.1 %
+    private static final int REC_TEMPERATURE = 66; // 0.1 C
+    private static final int REC_VOLTAGE = 68;     // mV
+    private static final int REC_STATUS = 70;
+    private static final int REC_PLUGGED = 71;
+    private static final int REC_NETWORK_TYPE = 72;
+    private static final int REC_FLAGS = 73;
+
+    private static final int FLAG_CONNECTED = 1;
+    private static final int FLAG_LOW_MEMORY = 1 << 1;
+
+    private static final long FILE_SIZE = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+
+    // One pass. Filled by the job and appended, or filled by read(); a
+    // single instance can be reused for both. Unknown sizes are -1, an
+    // unknown temperature is BatteryState.TEMPERATURE_UNKNOWN and other
+    // unknown battery fields 0, as in BatteryHistoryStore.
+    public static final class Sample {
+        public long timestamp;
+        public float batteryLevel;
+        public int temperature; // signed 0.1 C
+        public int voltage;
+        public int status;
+        public int plugged;
+        public long ramTotalBytes;
+        public long ramAvailableBytes;
+        public boolean lowMemory;
+        public long storageTotalBytes;
+        public long storageAvailableBytes;
+        public int networkType;
+        public boolean connected;
+        public long rxBytes;
+        public long txBytes;
+        // Cost of the pass itself
+        public int cpuMicros;
+        public int wallMicros;
+    }
+
+    private static BackgroundSampleLog instance;
+
+    private final MappedByteBuffer buffer;
+
+    // Guarded by this
+    private long writeCount;
+
+    public static synchronized BackgroundSampleLog getInstance(Context context) {
+        if (instance == null) {
+            try {
+                File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+                instance = new BackgroundSampleLog(file);
+            } catch (IOException e) {
+                Log.w(TAG, "Background sample log unavailable", e);
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    private BackgroundSampleLog(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (raf.length() != FILE_SIZE) {
+                raf.setLength(FILE_SIZE);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        } finally {
+            raf.close();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(OFF_MAGIC) != MAGIC
+            || buffer.getInt(OFF_VERSION) != VERSION
+            || buffer.getInt(OFF_CAPACITY) != CAPACITY
+            || buffer.getInt(OFF_RECORD_SIZE) != RECORD_SIZE) {
+            for (int i = 0; i < HEADER_SIZE; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            buffer.putInt(OFF_MAGIC, MAGIC);
+            buffer.putInt(OFF_VERSION, VERSION);
+            buffer.putInt(OFF_CAPACITY, CAPACITY);
+            buffer.putInt(OFF_RECORD_SIZE, RECORD_SIZE);
+        }
+        writeCount = buffer.getLong(OFF_WRITE_COUNT);
+    }
+
+    public synchronized void append(Sample s) {
+        int offset = recordOffset(writeCount);
+        buffer.putLong(offset + REC_TIMESTAMP, s.timestamp);
+        buffer.putLong(offset + REC_RAM_TOTAL, s.ramTotalBytes);
+        buffer.putLong(offset + REC_RAM_AVAILABLE, s.ramAvailableBytes);
+        buffer.putLong(offset + REC_STORAGE_TOTAL, s.storageTotalBytes);
+        buffer.putLong(offset + REC_STORAGE_AVAILABLE, s.storageAvailableBytes);
+        buffer.putLong(offset + REC_RX_BYTES, s.rxBytes);
+        buffer.putLong(offset + REC_TX_BYTES, s.txBytes);
+        buffer.putInt(offset + REC_CPU_MICROS, s.cpuMicros);
+        buffer.putInt(offset + REC_WALL_MICROS, s.wallMicros);
+        buffer.putShort(offset + REC_LEVEL, (short) Math.round(s.batteryLevel * 10f));
+        buffer.putShort(offset + REC_TEMPERATURE, (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, s.temperature)));
+        buffer.putShort(offset + REC_VOLTAGE, (short) s.voltage);
+        buffer.put(offset + REC_STATUS, (byte) s.status);
+        buffer.put(offset + REC_PLUGGED, (byte) s.plugged);
+        buffer.put(offset + REC_NETWORK_TYPE, (byte) s.networkType);
+        buffer.put(offset + REC_FLAGS, (byte) ((s.connected ? FLAG_CONNECTED : 0)
+                                               | (s.lowMemory ? FLAG_LOW_MEMORY : 0)));
+
+        if (writeCount == 0) {
+            buffer.putLong(OFF_FIRST_RUN_TIME, s.timestamp);
+        }
+        buffer.putLong(OFF_CPU_MICROS, buffer.getLong(OFF_CPU_MICROS) + s.cpuMicros);
+
+        // Publish the record only after it is fully written
+        writeCount++;
+        buffer.putLong(OFF_WRITE_COUNT, writeCount);
+    }
+
+    // Every time the system started the job, finished or not
+    public synchronized void recordWakeup() {
+        buffer.putLong(OFF_WAKEUP_COUNT, buffer.getLong(OFF_WAKEUP_COUNT) + 1);
+    }
+
+    // The system stopped a pass before it finished
+    public synchronized void recordStop() {
+        buffer.putLong(OFF_STOP_COUNT, buffer.getLong(OFF_STOP_COUNT) + 1);
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(writeCount, CAPACITY);
+    }
+
+    // Completed passes since the log was created, including overwritten ones
+    public synchronized long getRunCount() {
+        return writeCount;
+    }
+
+    public synchronized long getWakeupCount() {
+        return buffer.getLong(OFF_WAKEUP_COUNT);
+    }
+
+    public synchronized long getStopCount() {
+        return buffer.getLong(OFF_STOP_COUNT);
+    }
+
+    // CPU time of every completed pass, in microseconds
+    public synchronized long getCpuMicros() {
+        return buffer.getLong(OFF_CPU_MICROS);
+    }
+
+    public synchronized long getFirstRunTime() {
+        return buffer.getLong(OFF_FIRST_RUN_TIME);
+    }
+
+    public synchronized long getLastRunTime() {
+        return writeCount > 0 ? buffer.getLong(recordOffset(writeCount - 1) + REC_TIMESTAMP) : 0;
+    }
+
+    // Record index of size(), oldest first
+    public synchronized void read(int index, Sample out) {
+        long first = Math.max(0, writeCount - CAPACITY);
+        int offset = recordOffset(first + index);
+        out.timestamp = buffer.getLong(offset + REC_TIMESTAMP);
+        out.ramTotalBytes = buffer.getLong(offset + REC_RAM_TOTAL);
+        out.ramAvailableBytes = buffer.getLong(offset + REC_RAM_AVAILABLE);
+        out.storageTotalBytes = buffer.getLong(offset + REC_STORAGE_TOTAL);
+        out.storageAvailableBytes = buffer.getLong(offset + REC_STORAGE_AVAILABLE);
+        out.rxBytes = buffer.getLong(offset + REC_RX_BYTES);
+        out.txBytes = buffer.getLong(offset + REC_TX_BYTES);
+        out.cpuMicros = buffer.getInt(offset + REC_CPU_MICROS);
+        out.wallMicros = buffer.getInt(offset + REC_WALL_MICROS);
+        out.batteryLevel = buffer.getShort(offset + REC_LEVEL) / 10f;
+        out.temperature = buffer.getShort(offset + REC_TEMPERATURE);
+        out.voltage = buffer.getShort(offset + REC_VOLTAGE) & 0xFFFF;
+        out.status = buffer.get(offset + REC_STATUS);
+        out.plugged = buffer.get(offset + REC_PLUGGED);
+        out.networkType = buffer.get(offset + REC_NETWORK_TYPE);
+        int flags = buffer.get(offset + REC_FLAGS);
+        out.connected = (flags & FLAG_CONNECTED) != 0;
+        out.lowMemory = (flags & FLAG_LOW_MEMORY) != 0;
+    }
+
+    private static int recordOffset(long index) {
+        return HEADER_SIZE + (int) (index % CAPACITY) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,148 @@
+package com.lionico.devinspect;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Tab badge counts kept in memory. Updates may come from any thread and
+// never take a lock. Each changed tab sets a bit in two masks: one drains
+// into a single main-thread callback naming the tabs to redraw, the other
+// into a single preferences write, at most once per PERSIST_INTERVAL_MS
+// or on flush().
+public class BadgeModel {
+
+    public interface Listener {
+        // Main thread; bit i of changedMask is set if tab i changed
+        void onBadgesChanged(int changedMask);
+    }
+
+    private static final long PERSIST_INTERVAL_MS = 2000;
+
+    private final SharedPreferences prefs;
+    private final String keyPrefix;
+    private final AtomicIntegerArray counts;
+    private final AtomicInteger uiDirty = new AtomicInteger();
+    private final AtomicInteger persistDirty = new AtomicInteger();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile Listener listener;
+
+    private final Runnable notifyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int changed = uiDirty.getAndSet(0);
+            Listener current = listener;
+            if (changed != 0 && current != null) {
+                current.onBadgesChanged(changed);
+            }
+        }
+    };
+
+    private final Runnable persistRunnable = new Runnable() {
+        @Override
+        public void run() {
+            persist();
+        }
+    };
+
+    // Reads every tab's stored count once; at most 32 tabs fit the masks
+    public BadgeModel(SharedPreferences prefs, String keyPrefix, int tabCount) {
+        this.prefs = prefs;
+        this.keyPrefix = keyPrefix;
+        counts = new AtomicIntegerArray(tabCount);
+        for (int i = 0; i < tabCount; i++) {
+            counts.set(i, Math.max(0, prefs.getInt(keyPrefix + i, 0)));
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        return counts.length();
+    }
+
+    public int get(int tab) {
+        return counts.get(tab);
+    }
+
+    // Mask with a bit for every tab whose count is above zero
+    public int nonZeroMask() {
+        int mask = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) > 0) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    public void set(int tab, int count) {
+        if (count < 0) count = 0;
+        if (counts.getAndSet(tab, count) != count) {
+            markChanged(tab);
+        }
+    }
+
+    public void increment(int tab) {
+        counts.incrementAndGet(tab);
+        markChanged(tab);
+    }
+
+    // Never goes below zero
+    public void decrement(int tab) {
+        while (true) {
+            int current = counts.get(tab);
+            if (current <= 0) return;
+            if (counts.compareAndSet(tab, current, current - 1)) break;
+        }
+        markChanged(tab);
+    }
+
+    private void markChanged(int tab) {
+        int bit = 1 << tab;
+        // Only the update that dirties a clean mask schedules the drain
+        if (setBit(uiDirty, bit) == 0) {
+            mainHandler.post(notifyRunnable);
+        }
+        if (setBit(persistDirty, bit) == 0) {
+            mainHandler.postDelayed(persistRunnable, PERSIST_INTERVAL_MS);
+        }
+    }
+
+    private static int setBit(AtomicInteger mask, int bit) {
+        while (true) {
+            int current = mask.get();
+            if ((current & bit) != 0 || mask.compareAndSet(current, current | bit)) {
+                return current;
+            }
+        }
+    }
+
+    // Writes pending changes now instead of waiting for the interval
+    public void flush() {
+        mainHandler.removeCallbacks(persistRunnable);
+        persist();
+    }
+
+    // One apply() covering every tab changed since the last write
+    private void persist() {
+        int changed = persistDirty.getAndSet(0);
+        if (changed == 0) return;
+
+        SharedPreferences.Editor editor = prefs.edit();
+        for (int i = 0; i < counts.length(); i++) {
+            if ((changed & (1 << i)) != 0) {
+                editor.putInt(keyPrefix + i, counts.get(i));
+            }
+        }
+        editor.apply();
+    }
+
+    // Flushes and stops delivering callbacks
+    public void shutdown() {
+        listener = null;
+        mainHandler.removeCallbacks(notifyRunnable);
+        flush();
+    }
+}
@@ -0,0 +1,119 @@
+package com.lionico.devinspect;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Process-wide source of battery state. One ACTION_BATTERY_CHANGED receiver
+// on the application context, registered while anyone listens, decodes
+// each broadcast once into an immutable BatteryState and hands that same
+// instance to every listener. The system's identical rebroadcasts are
+// dropped here, once, instead of in each listener.
+//
+// The receiver stays registered for UNREGISTER_DELAY_MS after the last
+// listener leaves, so a fragment being recreated on rotation or a tab
+// switch picks the receiver up again instead of registering a new one.
+//
+// Listeners are added and removed on the main thread, where broadcasts
+// are delivered too. The listener list is copy-on-write: delivery iterates
+// a snapshot without locking, and a listener may remove itself from its
+// own callback. getLatestState() can be called from any thread.
+public final class BatteryEventHub {
+
+    private static final long UNREGISTER_DELAY_MS = 10000;
+
+    public interface Listener {
+        // Main thread; state is valid or not, as decoded
+        void onBatteryChanged(BatteryState state);
+    }
+
+    private static BatteryEventHub instance;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    // Only written on the main thread
+    private volatile BatteryState latest;
+    private volatile boolean registered;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                publish(BatteryState.fromIntent(intent, System.currentTimeMillis()));
+            }
+        }
+    };
+
+    private final Runnable unregisterRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!listeners.isEmpty() || !registered) return;
+            registered = false;
+            appContext.unregisterReceiver(receiver);
+        }
+    };
+
+    public static synchronized BatteryEventHub getInstance(Context context) {
+        if (instance == null) {
+            instance = new BatteryEventHub(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private BatteryEventHub(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    // Main thread. The listener gets the current state right away when
+    // one is known, then every change.
+    public void addListener(Listener listener) {
+        if (!listeners.addIfAbsent(listener)) return;
+
+        mainHandler.removeCallbacks(unregisterRunnable);
+        if (!registered) {
+            registered = true;
+            // The sticky intent returned here is the initial state
+            Intent sticky = appContext.registerReceiver(receiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            BatteryState state = BatteryState.fromIntent(sticky, System.currentTimeMillis());
+            if (state != null) {
+                latest = state;
+            }
+        }
+
+        BatteryState state = latest;
+        if (state != null) {
+            listener.onBatteryChanged(state);
+        }
+    }
+
+    // Main thread
+    public void removeListener(Listener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty() && registered) {
+            mainHandler.postDelayed(unregisterRunnable, UNREGISTER_DELAY_MS);
+        }
+    }
+
+    // Any thread. Free while the receiver is registered; otherwise one
+    // sticky broadcast read, which is a binder call.
+    public BatteryState getLatestState() {
+        BatteryState state = latest;
+        if (registered && state != null) return state;
+
+        Intent sticky = appContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return BatteryState.fromIntent(sticky, System.currentTimeMillis());
+    }
+
+    private void publish(BatteryState state) {
+        if (state == null || state.diff(latest) == 0) return;
+        latest = state;
+        for (Listener listener : listeners) {
+            listener.onBatteryChanged(state);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.app.Fragment;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,16 +12,14 @@ import android.widget.TextView;
 import android.widget.Button;
 import android.widget.ProgressBar;
 import android.widget.LinearLayout;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.BatteryManager;
+import android.os.SystemClock;
+import android.app.AlertDialog;
 import android.graphics.Color;
 import android.animation.ValueAnimator;
 import android.view.animation.AccelerateDecelerateInterpolator;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
@@ -34,16 +33,46 @@ public class BatteryFragment extends Fragment {
     private ProgressBar pbBatteryLevel;
     private Button btnRefreshBattery, btnBatteryOptimization, btnBatteryHistory;
 
-    private BroadcastReceiver batteryReceiver;
+    private BatteryEventHub.Listener batteryListener;
     private Handler updateHandler = new Handler(Looper.getMainLooper());
     private Runnable periodicUpdateRunnable;
+    private Runnable restoreStatusRunnable;
     private static final long UPDATE_INTERVAL = 30000; // 30 seconds
+    private static final long TIP_DURATION = 5000;
+
+    // Render pipeline: the receiver only decodes and stores the latest state,
+    // a frame callback renders it at most once per RENDER_INTERVAL_MS
+    private static final long RENDER_INTERVAL_MS = 250;
+    private static final int DIRTY_ESTIMATES = 1 << 8;  // time-derived rows
+    private static final int DIRTY_STATUS_LINE = 1 << 9;
+    private static final int DIRTY_ALL = BatteryState.CHANGED_ALL | DIRTY_ESTIMATES | DIRTY_STATUS_LINE;
+
+    private BatteryState latestState;
+    private BatteryState renderedState;
+    private int forcedDirty;
+    private boolean frameScheduled;
+    private long lastRenderTime;
+    private boolean tipShowing;
+    private Choreographer choreographer;
+    private Choreographer.FrameCallback renderCallback;
+    private ValueAnimator levelAnimator;
 
     // Statistics tracking
     private float lastBatteryLevel = 0;
     private long sessionStartTime = 0;
     private float sessionStartBattery = 0;
-    private SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+    private BatteryRateEstimator rateEstimator = new BatteryRateEstimator();
+    private long lastSampleTime;
+    private DisplayFormat.TimeAppender clock = new DisplayFormat.TimeAppender("HH:mm:ss");
+
+    // Reused by every render; only the final Strings are allocated
+    private final StringBuilder textBuffer = new StringBuilder(64);
+    private char decimalSeparator = '.';
+
+    // Persistent sample history
+    private BatteryHistoryStore historyStore;
+    private static final long HISTORY_WINDOW = TimeUnit.HOURS.toMillis(24);
+    private static final int HISTORY_MAX_POINTS = 2048;
 
     public BatteryFragment() {
         // Required empty constructor
@@ -55,14 +84,13 @@ public class BatteryFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_battery, container, false);
 
         initializeViews(view);
+        decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
         setupRefreshButton();
         setupAdditionalButtons();
-        registerBatteryReceiver();
-        updateBatteryInfo();
-        startPeriodicUpdates();
-
-        // Start session tracking
-        sessionStartTime = System.currentTimeMillis();
+        restoreSession();
+        setupRenderPipeline();
+        subscribeBattery();
+        setupPeriodicUpdates();
 
         return view;
     }
@@ -89,11 +117,72 @@ public class BatteryFragment extends Fragment {
         btnBatteryHistory = view.findViewById(R.id.btnBatteryHistory);
     }
 
+    private void restoreSession() {
+        if (getActivity() != null) {
+            historyStore = BatteryHistoryStore.getInstance(getActivity());
+        }
+
+        // A session lasts until reboot, so it survives fragment and process restarts
+        long bootTime = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        if (historyStore != null && historyStore.getSessionStartTime() > bootTime) {
+            sessionStartTime = historyStore.getSessionStartTime();
+            sessionStartBattery = historyStore.getSessionStartLevel();
+            lastBatteryLevel = Math.max(0, historyStore.getLatestLevel());
+        } else {
+            sessionStartTime = System.currentTimeMillis();
+        }
+
+        // The hub replays its latest state to the new listener; if an earlier
+        // instance recorded it, it is the newest row
+        if (historyStore != null) {
+            lastSampleTime = historyStore.getLatestTimestamp();
+        }
+
+        seedRateEstimator();
+    }
+
+    // Warm the estimator with the recent window so the estimate is usable
+    // right away instead of after half an hour on screen
+    private void seedRateEstimator() {
+        if (historyStore == null) return;
+
+        final long now = System.currentTimeMillis();
+        historyStore.readRangeAsync(now - BatteryRateEstimator.DEFAULT_WINDOW_MS, now,
+                                    BatteryHistoryStore.CAPACITY,
+            new BatteryHistoryStore.RangeCallback() {
+                @Override
+                public void onSamples(BatteryHistoryStore.Samples samples) {
+                    if (samples.count == 0) return;
+
+                    BatteryRateEstimator seeded = new BatteryRateEstimator();
+                    for (int i = 0; i < samples.count; i++) {
+                        seeded.addSample(samples.timestamps[i], samples.levels[i], samples.plugged[i]);
+                    }
+                    // Broadcasts that arrived while the read was queued went
+                    // to the live estimator; carry over those the read missed
+                    rateEstimator.replayInto(seeded, samples.timestamps[samples.count - 1]);
+                    rateEstimator = seeded;
+                    requestRender(DIRTY_ESTIMATES);
+                }
+            });
+    }
+
+    private void recordSample(BatteryState state) {
+        if (historyStore == null) return;
+
+        historyStore.appendAsync(state.timestamp,
+                                 state.getLevelPercent(),
+                                 state.temperature,
+                                 Math.max(0, state.voltage),
+                                 Math.max(0, state.status),
+                                 Math.max(0, state.plugged));
+    }
+
     private void setupRefreshButton() {
         btnRefreshBattery.setOnClickListener(new View.OnClickListener() {
 				@Override
 				public void onClick(View v) {
-					updateBatteryInfo();
+					requestRender(DIRTY_ALL);
 					animateRefreshButton();
 				}
 			});
@@ -123,104 +212,186 @@ public class BatteryFragment extends Fragment {
             .start();
     }
 
-    private void registerBatteryReceiver() {
-        batteryReceiver = new BroadcastReceiver() {
+    private void subscribeBattery() {
+        batteryListener = new BatteryEventHub.Listener() {
             @Override
-            public void onReceive(Context context, Intent intent) {
-                updateBatteryInfoFromIntent(intent);
-                updateLastUpdatedTime();
+            public void onBatteryChanged(BatteryState state) {
+                onBatteryState(state);
             }
         };
 
         if (getActivity() != null) {
-            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            filter.addAction(Intent.ACTION_POWER_CONNECTED);
-            filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
-            getActivity().registerReceiver(batteryReceiver, filter);
+            // The hub delivers its current state right away; after a
+            // recreation its receiver is usually still registered
+            BatteryEventHub.getInstance(getActivity()).addListener(batteryListener);
         }
     }
 
-    private void startPeriodicUpdates() {
+    // Runs from onResume() to onPause(); one chain at a time
+    private void setupPeriodicUpdates() {
+        // Only the time-derived rows go stale between broadcasts
         periodicUpdateRunnable = new Runnable() {
             @Override
             public void run() {
-                updateBatteryInfo();
+                requestRender(DIRTY_ESTIMATES);
                 updateHandler.postDelayed(this, UPDATE_INTERVAL);
             }
         };
-        updateHandler.postDelayed(periodicUpdateRunnable, UPDATE_INTERVAL);
     }
 
-    private void updateBatteryInfo() {
-        if (getActivity() != null) {
-            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = getActivity().registerReceiver(null, filter);
-            updateBatteryInfoFromIntent(batteryStatus);
-            updateLastUpdatedTime();
+    private void setupRenderPipeline() {
+        choreographer = Choreographer.getInstance();
+        renderCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                frameScheduled = false;
+                renderLatestState();
+            }
+        };
+        restoreStatusRunnable = new Runnable() {
+            @Override
+            public void run() {
+                tipShowing = false;
+                requestRender(DIRTY_STATUS_LINE);
+            }
+        };
+    }
+
+    // Package-private, like renderLatestState(), for RefreshAllocationTest
+    void onBatteryState(BatteryState state) {
+        // The hub already drops identical rebroadcasts, but replays its
+        // latest state to every new subscription; that one is shown again
+        // but not recorded or fitted twice. Only an exact repeat is skipped,
+        // so samples keep coming after the clock is set back.
+        if (state == null) return;
+        latestState = state;
+
+        if (state.isValid() && state.timestamp != lastSampleTime) {
+            lastSampleTime = state.timestamp;
+            recordSample(state);
+            rateEstimator.addSample(state.timestamp, state.getLevelPercent(), Math.max(0, state.plugged));
+        }
+        scheduleRender();
+    }
+
+    private void requestRender(int dirty) {
+        forcedDirty |= dirty;
+        scheduleRender();
+    }
+
+    // Coalesces bursts: at most one pending frame, and no more than one
+    // render per RENDER_INTERVAL_MS
+    private void scheduleRender() {
+        if (frameScheduled || choreographer == null) return;
+        frameScheduled = true;
+
+        long wait = lastRenderTime + RENDER_INTERVAL_MS - SystemClock.uptimeMillis();
+        if (wait > 0) {
+            choreographer.postFrameCallbackDelayed(renderCallback, wait);
+        } else {
+            choreographer.postFrameCallback(renderCallback);
         }
     }
 
-    private void updateBatteryInfoFromIntent(Intent intent) {
-        if (intent == null) return;
+    void renderLatestState() {
+        BatteryState state = latestState;
+        if (state == null || !isAdded() || tvBatteryLevel == null) return;
 
-        // Battery Level with animation
-        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
-        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-        float batteryPct = (level / (float) scale) * 100;
+        int dirty = state.diff(renderedState) | forcedDirty;
+        forcedDirty = 0;
+        if (!state.isValid()) {
+            dirty &= ~(BatteryState.CHANGED_LEVEL | DIRTY_ESTIMATES | DIRTY_STATUS_LINE);
+        }
+        if (dirty == 0) return;
+
+        float batteryPct = state.getLevelPercent();
+        if ((dirty & BatteryState.CHANGED_LEVEL) != 0) {
+            updateBatteryLevelUI(batteryPct);
+            updateBatteryCapacity();
+            updateBatteryUsage(batteryPct);
+        }
+        if ((dirty & (BatteryState.CHANGED_LEVEL | DIRTY_STATUS_LINE)) != 0 && !tipShowing) {
+            updateBatteryStatusLine(batteryPct);
+        }
+        if ((dirty & (BatteryState.CHANGED_STATUS | BatteryState.CHANGED_PLUGGED)) != 0) {
+            updateBatteryChargingStatus(state);
+        }
+        if ((dirty & BatteryState.CHANGED_HEALTH) != 0) {
+            updateBatteryHealth(state);
+        }
+        if ((dirty & BatteryState.CHANGED_TEMPERATURE) != 0) {
+            updateBatteryTemperature(state);
+        }
+        if ((dirty & BatteryState.CHANGED_TECHNOLOGY) != 0) {
+            updateBatteryTechnology(state);
+        }
+        if ((dirty & BatteryState.CHANGED_VOLTAGE) != 0) {
+            updateBatteryVoltage(state);
+        }
+        if ((dirty & (BatteryState.CHANGED_LEVEL | BatteryState.CHANGED_STATUS
+                      | BatteryState.CHANGED_PLUGGED | DIRTY_ESTIMATES)) != 0) {
+            updateChargeTimeRemaining(batteryPct);
+            updateEstimatedRemainingTime(state, batteryPct);
+        }
+        updateLastUpdatedTime();
 
-        updateBatteryLevelUI(batteryPct);
-        updateBatteryChargingStatus(intent);
-        updateBatteryHealth(intent);
-        updateBatteryTemperature(intent);
-        updateBatteryTechnology(intent);
-        updateBatteryVoltage(intent);
-        updateBatteryCapacity(intent);
-        updateChargeTimeRemaining(intent, batteryPct);
-        updateEstimatedRemainingTime(intent, batteryPct);
-        updateBatteryUsage(batteryPct);
+        renderedState = state;
+        lastRenderTime = SystemClock.uptimeMillis();
     }
 
     private void updateBatteryLevelUI(float batteryPct) {
-        if (tvBatteryLevel != null) {
-            tvBatteryLevel.setText(String.format("%.1f%%", batteryPct));
-
-            // Animate progress bar
-            if (pbBatteryLevel != null) {
-                ValueAnimator animator = ValueAnimator.ofInt(pbBatteryLevel.getProgress(), (int) batteryPct);
-                animator.setDuration(800);
-                animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        tvBatteryLevel.setText(DisplayFormat.appendFixed(text(), batteryPct, 1, decimalSeparator).append('%').toString());
+
+        // One animator for the lifetime of the view, retargeted on each change
+        if (pbBatteryLevel != null) {
+            if (levelAnimator == null) {
+                levelAnimator = new ValueAnimator();
+                levelAnimator.setDuration(800);
+                levelAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
 						@Override
 						public void onAnimationUpdate(ValueAnimator animation) {
 							pbBatteryLevel.setProgress((int) animation.getAnimatedValue());
 						}
 					});
-                animator.start();
             }
+            levelAnimator.cancel();
+            levelAnimator.setIntValues(pbBatteryLevel.getProgress(), (int) batteryPct);
+            levelAnimator.start();
+        }
 
-            // Color coding with theme colors
-            if (batteryPct < 15) {
-                tvBatteryLevel.setTextColor(getResources().getColor(R.color.error_red));
-                tvBatteryStatus.setText("Critical - Charge Now");
-                tvBatteryStatus.setTextColor(getResources().getColor(R.color.error_red));
-            } else if (batteryPct < 30) {
-                tvBatteryLevel.setTextColor(getResources().getColor(R.color.warning_orange));
-                tvBatteryStatus.setText("Low - Consider Charging");
-                tvBatteryStatus.setTextColor(getResources().getColor(R.color.warning_orange));
-            } else if (batteryPct < 80) {
-                tvBatteryLevel.setTextColor(getResources().getColor(R.color.primaryGreen));
-                tvBatteryStatus.setText("Good");
-                tvBatteryStatus.setTextColor(getResources().getColor(R.color.primaryGreen));
-            } else {
-                tvBatteryLevel.setTextColor(getResources().getColor(R.color.lime_green));
-                tvBatteryStatus.setText("Excellent");
-                tvBatteryStatus.setTextColor(getResources().getColor(R.color.lime_green));
-            }
+        // Color coding with theme colors
+        if (batteryPct < 15) {
+            tvBatteryLevel.setTextColor(getResources().getColor(R.color.error_red));
+        } else if (batteryPct < 30) {
+            tvBatteryLevel.setTextColor(getResources().getColor(R.color.warning_orange));
+        } else if (batteryPct < 80) {
+            tvBatteryLevel.setTextColor(getResources().getColor(R.color.primaryGreen));
+        } else {
+            tvBatteryLevel.setTextColor(getResources().getColor(R.color.lime_green));
         }
     }
 
-    private void updateBatteryChargingStatus(Intent intent) {
-        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-        int chargePlug = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1);
+    private void updateBatteryStatusLine(float batteryPct) {
+        if (tvBatteryStatus == null) return;
+
+        if (batteryPct < 15) {
+            tvBatteryStatus.setText("Critical - Charge Now");
+            tvBatteryStatus.setTextColor(getResources().getColor(R.color.error_red));
+        } else if (batteryPct < 30) {
+            tvBatteryStatus.setText("Low - Consider Charging");
+            tvBatteryStatus.setTextColor(getResources().getColor(R.color.warning_orange));
+        } else if (batteryPct < 80) {
+            tvBatteryStatus.setText("Good");
+            tvBatteryStatus.setTextColor(getResources().getColor(R.color.primaryGreen));
+        } else {
+            tvBatteryStatus.setText("Excellent");
+            tvBatteryStatus.setTextColor(getResources().getColor(R.color.lime_green));
+        }
+    }
+
+    private void updateBatteryChargingStatus(BatteryState state) {
+        int status = state.status;
+        int chargePlug = state.plugged;
 
         String chargingStatus = "Unknown";
 
@@ -260,8 +431,8 @@ public class BatteryFragment extends Fragment {
         }
     }
 
-    private void updateBatteryHealth(Intent intent) {
-        int health = intent.getIntExtra(BatteryManager.EXTRA_HEALTH, -1);
+    private void updateBatteryHealth(BatteryState state) {
+        int health = state.health;
         String healthText = "Unknown";
 
         switch (health) {
@@ -298,43 +469,45 @@ public class BatteryFragment extends Fragment {
         }
     }
 
-    private void updateBatteryTemperature(Intent intent) {
-        int temperature = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, -1);
-        if (temperature != -1 && tvBatteryTemperature != null) {
+    private void updateBatteryTemperature(BatteryState state) {
+        int temperature = state.temperature;
+        if (temperature != BatteryState.TEMPERATURE_UNKNOWN && tvBatteryTemperature != null) {
             float tempCelsius = temperature / 10.0f;
             float tempFahrenheit = (tempCelsius * 9/5) + 32;
 
-            String tempText = String.format("%.1f°C / %.1f°F", tempCelsius, tempFahrenheit);
+            StringBuilder tempText = DisplayFormat.appendFixed(text(), tempCelsius, 1, decimalSeparator).append("°C / ");
+            DisplayFormat.appendFixed(tempText, tempFahrenheit, 1, decimalSeparator).append("°F");
 
             // Color code temperature using theme
             if (tempCelsius > 40) {
                 tvBatteryTemperature.setTextColor(getResources().getColor(R.color.error_red));
-                tempText += " (Hot)";
+                tempText.append(" (Hot)");
             } else if (tempCelsius < 10) {
                 tvBatteryTemperature.setTextColor(getResources().getColor(R.color.light_blue));
-                tempText += " (Cold)";
+                tempText.append(" (Cold)");
             } else {
                 tvBatteryTemperature.setTextColor(getResources().getColor(R.color.textSecondary));
-                tempText += " (Normal)";
+                tempText.append(" (Normal)");
             }
 
-            tvBatteryTemperature.setText(tempText);
+            tvBatteryTemperature.setText(tempText.toString());
         }
     }
 
-    private void updateBatteryTechnology(Intent intent) {
-        String technology = intent.getStringExtra(BatteryManager.EXTRA_TECHNOLOGY);
+    private void updateBatteryTechnology(BatteryState state) {
+        String technology = state.technology;
         if (technology != null && tvBatteryTechnology != null) {
             tvBatteryTechnology.setText(technology);
             tvBatteryTechnology.setTextColor(getResources().getColor(R.color.textSecondary));
         }
     }
 
-    private void updateBatteryVoltage(Intent intent) {
-        int voltage = intent.getIntExtra(BatteryManager.EXTRA_VOLTAGE, -1);
+    private void updateBatteryVoltage(BatteryState state) {
+        int voltage = state.voltage;
         if (voltage != -1 && tvBatteryVoltage != null) {
             float voltageV = voltage / 1000.0f;
-            tvBatteryVoltage.setText(String.format("%.3f V (%d mV)", voltageV, voltage));
+            tvBatteryVoltage.setText(DisplayFormat.appendFixed(text(), voltageV, 3, decimalSeparator)
+                                     .append(" V (").append(voltage).append(" mV)").toString());
 
             // Normal voltage range is 3.7V - 4.2V for lithium batteries
             if (voltageV < 3.5 || voltageV > 4.3) {
@@ -345,14 +518,14 @@ public class BatteryFragment extends Fragment {
         }
     }
 
-    private void updateBatteryCapacity(Intent intent) {
+    private void updateBatteryCapacity() {
         // Note: This requires API level 21+
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
             BatteryManager bm = (BatteryManager) getActivity().getSystemService(Context.BATTERY_SERVICE);
             if (bm != null) {
                 int capacity = bm.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
                 if (capacity > 0 && tvBatteryCapacity != null) {
-                    tvBatteryCapacity.setText(String.format("%d%%", capacity));
+                    tvBatteryCapacity.setText(text().append(capacity).append('%').toString());
 
                     // Color capacity based on health
                     if (capacity < 80) {
@@ -373,85 +546,98 @@ public class BatteryFragment extends Fragment {
         }
     }
 
-    private void updateChargeTimeRemaining(Intent intent, float batteryPct) {
+    private void updateChargeTimeRemaining(float batteryPct) {
+        if (tvChargeTimeRemaining == null) return;
+
+        long chargeTimeRemaining = -1;
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.P) {
             BatteryManager bm = (BatteryManager) getActivity().getSystemService(Context.BATTERY_SERVICE);
             if (bm != null) {
-                long chargeTimeRemaining = bm.computeChargeTimeRemaining();
-                if (chargeTimeRemaining > 0 && tvChargeTimeRemaining != null) {
-                    String time = formatDuration(chargeTimeRemaining);
-                    tvChargeTimeRemaining.setText(String.format("%s", time));
-                    tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.primaryGreen));
-                } else if (tvChargeTimeRemaining != null) {
-                    tvChargeTimeRemaining.setText("Calculating...");
-                    tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.textHint));
-                }
+                chargeTimeRemaining = bm.computeChargeTimeRemaining();
             }
+        }
+
+        if (chargeTimeRemaining > 0) {
+            tvChargeTimeRemaining.setText(DisplayFormat.appendDuration(text(), chargeTimeRemaining).toString());
+            tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.primaryGreen));
+        } else if (rateEstimator.isCharging() && rateEstimator.hasEstimate()) {
+            // Fall back to the measured charge rate
+            tvChargeTimeRemaining.setText(formatEstimate(batteryPct));
+            tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.primaryGreen));
+        } else if (rateEstimator.isCharging()) {
+            tvChargeTimeRemaining.setText("Calculating...");
+            tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.textHint));
         } else {
-            // For older APIs
-            if (tvChargeTimeRemaining != null) {
-                tvChargeTimeRemaining.setText("Feature requires Android 9+");
-                tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.textHint));
-            }
+            tvChargeTimeRemaining.setText("N/A");
+            tvChargeTimeRemaining.setTextColor(getResources().getColor(R.color.textHint));
         }
     }
 
-    private void updateEstimatedRemainingTime(Intent intent, float batteryPct) {
-        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+    private void updateEstimatedRemainingTime(BatteryState state, float batteryPct) {
+        int status = state.status;
 
-        if (status == BatteryManager.BATTERY_STATUS_DISCHARGING && lastBatteryLevel > 0) {
-            float dischargeRate = lastBatteryLevel - batteryPct;
-            if (dischargeRate > 0.1) { // At least 0.1% drop for calculation
-                float hoursRemaining = batteryPct / dischargeRate;
-                long minutes = (long) (hoursRemaining * 60);
-
-                if (tvEstimatedRemainingTime != null && minutes > 0) {
-                    String time = formatDuration(minutes * 60000); // Convert to milliseconds
-                    tvEstimatedRemainingTime.setText(String.format("%s", time));
+        if (tvEstimatedRemainingTime != null) {
+            if (status == BatteryManager.BATTERY_STATUS_DISCHARGING && !rateEstimator.isCharging()) {
+                if (rateEstimator.estimateRemainingMs(batteryPct, 0) > 0) {
+                    tvEstimatedRemainingTime.setText(formatEstimate(batteryPct));
                     tvEstimatedRemainingTime.setTextColor(getResources().getColor(R.color.primaryGreen));
+                } else {
+                    tvEstimatedRemainingTime.setText("Calculating...");
+                    tvEstimatedRemainingTime.setTextColor(getResources().getColor(R.color.textHint));
                 }
+            } else {
+                tvEstimatedRemainingTime.setText("N/A");
+                tvEstimatedRemainingTime.setTextColor(getResources().getColor(R.color.textHint));
             }
-        } else if (tvEstimatedRemainingTime != null) {
-            tvEstimatedRemainingTime.setText("N/A");
-            tvEstimatedRemainingTime.setTextColor(getResources().getColor(R.color.textHint));
         }
         lastBatteryLevel = batteryPct;
     }
 
+    // Point estimate with its 95 % range, e.g. "3h 20m (2h 55m - 3h 50m)"
+    private String formatEstimate(float batteryPct) {
+        long estimate = rateEstimator.estimateRemainingMs(batteryPct, 0);
+        long low = rateEstimator.estimateRemainingMs(batteryPct, -1);
+        long high = rateEstimator.estimateRemainingMs(batteryPct, 1);
+
+        StringBuilder sb = DisplayFormat.appendDuration(text(), estimate);
+        if (low > 0 && high > 0) {
+            DisplayFormat.appendDuration(sb.append(" ("), low).append(" - ");
+            DisplayFormat.appendDuration(sb, high).append(')');
+        } else if (low > 0) {
+            DisplayFormat.appendDuration(sb.append(" (at least "), low).append(')');
+        }
+        return sb.toString();
+    }
+
     private void updateBatteryUsage(float currentBatteryPct) {
         if (tvBatteryUsageToday != null) {
             // Simple session-based tracking
             if (sessionStartBattery == 0) {
                 sessionStartBattery = currentBatteryPct;
+                if (historyStore != null) {
+                    historyStore.setSessionStart(sessionStartTime, sessionStartBattery);
+                }
             }
 
             float usage = sessionStartBattery - currentBatteryPct;
             if (usage < 0) usage = 0; // If charging increased battery
 
-            tvBatteryUsageToday.setText(String.format("%.1f%%", usage));
+            tvBatteryUsageToday.setText(DisplayFormat.appendFixed(text(), usage, 1, decimalSeparator).append('%').toString());
             tvBatteryUsageToday.setTextColor(getResources().getColor(R.color.textSecondary));
         }
     }
 
     private void updateLastUpdatedTime() {
         if (tvLastUpdated != null) {
-            String currentTime = timeFormat.format(new Date());
-            tvLastUpdated.setText(String.format("Updated: %s", currentTime));
+            tvLastUpdated.setText(clock.append(text().append("Updated: "), System.currentTimeMillis()).toString());
             tvLastUpdated.setTextColor(getResources().getColor(R.color.textHint));
         }
     }
 
-    private String formatDuration(long millis) {
-        if (millis <= 0) return "N/A";
-
-        long hours = TimeUnit.MILLISECONDS.toHours(millis);
-        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
-
-        if (hours > 0) {
-            return String.format("%dh %02dm", hours, minutes);
-        } else {
-            return String.format("%dm", minutes);
-        }
+    // The shared builder, emptied; its contents are copied out with toString()
+    private StringBuilder text() {
+        textBuffer.setLength(0);
+        return textBuffer;
     }
 
     private void showBatteryOptimizationTips() {
@@ -468,45 +654,66 @@ public class BatteryFragment extends Fragment {
         tvBatteryStatus.setText(tips[randomTip]);
         tvBatteryStatus.setTextColor(getResources().getColor(R.color.lime_green));
 
-        // Reset after 5 seconds
-        new Handler().postDelayed(new Runnable() {
-				@Override
-				public void run() {
-					if (getActivity() != null) {
-						IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-						Intent batteryStatus = getActivity().registerReceiver(null, filter);
-						if (batteryStatus != null) {
-							updateBatteryInfoFromIntent(batteryStatus);
-						}
-					}
-				}
-			}, 5000);
+        // Level updates leave the tip alone until it is reset
+        tipShowing = true;
+        updateHandler.removeCallbacks(restoreStatusRunnable);
+        updateHandler.postDelayed(restoreStatusRunnable, TIP_DURATION);
     }
 
     private void showBatteryHistory() {
-        // Placeholder for history feature
-        tvBatteryStatus.setText("Battery History: View detailed stats in Settings");
-        tvBatteryStatus.setTextColor(getResources().getColor(R.color.primaryGreen));
+        if (historyStore == null) {
+            tvBatteryStatus.setText("Battery history unavailable");
+            tvBatteryStatus.setTextColor(getResources().getColor(R.color.error_red));
+            return;
+        }
 
-        new Handler().postDelayed(new Runnable() {
-				@Override
-				public void run() {
-					if (getActivity() != null) {
-						IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-						Intent batteryStatus = getActivity().registerReceiver(null, filter);
-						if (batteryStatus != null) {
-							updateBatteryInfoFromIntent(batteryStatus);
-						}
-					}
-				}
-			}, 3000);
+        final long toTime = System.currentTimeMillis();
+        final long fromTime = toTime - HISTORY_WINDOW;
+        historyStore.readRangeAsync(fromTime, toTime, HISTORY_MAX_POINTS,
+            new BatteryHistoryStore.RangeCallback() {
+                @Override
+                public void onSamples(BatteryHistoryStore.Samples samples) {
+                    if (getActivity() == null || !isAdded()) return;
+                    showHistoryDialog(samples, fromTime, toTime);
+                }
+            });
+    }
+
+    private void showHistoryDialog(BatteryHistoryStore.Samples samples, long fromTime, long toTime) {
+        BatteryHistoryView historyView = new BatteryHistoryView(getActivity());
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        historyView.setPadding(padding, padding, padding, padding);
+        historyView.setSamples(samples, fromTime, toTime);
+
+        String message;
+        if (samples.count == 0) {
+            message = "No samples recorded in the last 24 hours yet.";
+        } else {
+            float min = 100f;
+            float max = 0f;
+            for (int i = 0; i < samples.count; i++) {
+                min = Math.min(min, samples.levels[i]);
+                max = Math.max(max, samples.levels[i]);
+            }
+            message = String.format(Locale.getDefault(),
+                                    "%d samples since %s\nLevel range: %.0f%% - %.0f%%",
+                                    samples.count, clock.append(new StringBuilder(), samples.timestamps[0]),
+                                    min, max);
+        }
+
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Battery History (24h)")
+            .setMessage(message)
+            .setView(historyView)
+            .setPositiveButton("OK", null)
+            .show();
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        updateBatteryInfo();
         if (periodicUpdateRunnable != null) {
+            updateHandler.removeCallbacks(periodicUpdateRunnable);
             updateHandler.post(periodicUpdateRunnable);
         }
     }
@@ -517,16 +724,26 @@ public class BatteryFragment extends Fragment {
         if (periodicUpdateRunnable != null) {
             updateHandler.removeCallbacks(periodicUpdateRunnable);
         }
+        if (historyStore != null) {
+            historyStore.flushAsync();
+        }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (batteryReceiver != null && getActivity() != null) {
-            getActivity().unregisterReceiver(batteryReceiver);
+        if (batteryListener != null && getActivity() != null) {
+            BatteryEventHub.getInstance(getActivity()).removeListener(batteryListener);
         }
         if (periodicUpdateRunnable != null) {
             updateHandler.removeCallbacks(periodicUpdateRunnable);
         }
+        updateHandler.removeCallbacks(restoreStatusRunnable);
+        if (choreographer != null) {
+            choreographer.removeFrameCallback(renderCallback);
+        }
+        if (levelAnimator != null) {
+            levelAnimator.cancel();
+        }
     }
 }
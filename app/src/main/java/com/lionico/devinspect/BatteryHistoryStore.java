@@ -0,0 +1,352 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Fixed-size ring buffer of battery samples, memory-mapped from a single file.
+// Disk use never grows past HEADER_SIZE + CAPACITY * RECORD_SIZE, appends are
+// O(1) and run on a private writer thread, and because samples are written in
+// time order a range read is a binary search plus a sequential copy.
+//
+// Timestamps are wall-clock time, which can be set back. Each append
+// compares the wall clock with elapsedRealtime(); when the wall clock moved
+// back since the previous append in the same boot, the stored samples are
+// shifted by the same amount, so the history stays in order and in the
+// clock that range reads use. A sample that is only a little late, taken
+// before one that was appended first, is inserted in its place. A step
+// back across a reboot cannot be measured and starts a new segment
+// instead; reads only see the current segment.
+public final class BatteryHistoryStore {
+
+    private static final String TAG = "BatteryHistory";
+    private static final String FILE_NAME = "battery_history.ring";
+
+    private static final int MAGIC = 0x42415448; // "BATH"
+    private static final int VERSION = 1;
+
+    public static final int CAPACITY = 16384;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_CAPACITY = 8;
+    private static final int OFF_RECORD_SIZE = 12;
+    private static final int OFF_WRITE_COUNT = 16;
+    private static final int OFF_SESSION_START_TIME = 24;
+    private static final int OFF_SESSION_START_LEVEL = 32;
+    private static final int OFF_SEGMENT_START = 40;   // first index in time order
+    private static final int OFF_LAST_ELAPSED = 48;    // elapsedRealtime() of the last append
+    private static final int OFF_CLOCK_OFFSET = 56;    // wall minus elapsed at the last append
+
+    // Slack between reading the two clocks before a difference counts as
+    // the wall clock being set
+    private static final long CLOCK_JUMP_TOLERANCE_MS = 1000;
+
+    // Record layout: timestamp, level (0.1 %), temperature (signed 0.1 C,
+    // BatteryState.TEMPERATURE_UNKNOWN when missing), voltage (mV), status, plug
+    private static final int RECORD_SIZE = 16;
+    private static final int REC_TIMESTAMP = 0;
+    private static final int REC_LEVEL = 8;
+    private static final int REC_TEMPERATURE = 10;
+    private static final int REC_VOLTAGE = 12;
+    private static final int REC_STATUS = 14;
+    private static final int REC_PLUGGED = 15;
+
+    private static final long FILE_SIZE = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+
+    // Struct-of-arrays result for range reads, reusable across reads
+    public static final class Samples {
+        public final long[] timestamps;
+        public final float[] levels;
+        public final float[] temperatures; // C, NaN when missing
+        public final int[] voltages;
+        public final int[] statuses;
+        public final int[] plugged;
+        public int count;
+
+        public Samples(int maxSamples) {
+            timestamps = new long[maxSamples];
+            levels = new float[maxSamples];
+            temperatures = new float[maxSamples];
+            voltages = new int[maxSamples];
+            statuses = new int[maxSamples];
+            plugged = new int[maxSamples];
+        }
+
+        public int capacity() {
+            return timestamps.length;
+        }
+    }
+
+    public interface RangeCallback {
+        void onSamples(Samples samples);
+    }
+
+    private static BatteryHistoryStore instance;
+
+    private final MappedByteBuffer buffer;
+    private final ExecutorService writer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Guarded by this
+    private long writeCount;
+    private long segmentStart;
+
+    public static synchronized BatteryHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            try {
+                File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+                instance = new BatteryHistoryStore(file);
+            } catch (IOException e) {
+                Log.w(TAG, "Battery history unavailable", e);
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    private BatteryHistoryStore(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (raf.length() != FILE_SIZE) {
+                raf.setLength(FILE_SIZE);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        } finally {
+            // The mapping stays valid after the channel is closed
+            raf.close();
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(OFF_MAGIC) != MAGIC
+            || buffer.getInt(OFF_VERSION) != VERSION
+            || buffer.getInt(OFF_CAPACITY) != CAPACITY
+            || buffer.getInt(OFF_RECORD_SIZE) != RECORD_SIZE) {
+            resetHeader();
+        }
+        writeCount = buffer.getLong(OFF_WRITE_COUNT);
+        segmentStart = buffer.getLong(OFF_SEGMENT_START);
+
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "BatteryHistoryWriter");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            }
+        });
+    }
+
+    private void resetHeader() {
+        for (int i = 0; i < HEADER_SIZE; i += 8) {
+            buffer.putLong(i, 0L);
+        }
+        buffer.putInt(OFF_MAGIC, MAGIC);
+        buffer.putInt(OFF_VERSION, VERSION);
+        buffer.putInt(OFF_CAPACITY, CAPACITY);
+        buffer.putInt(OFF_RECORD_SIZE, RECORD_SIZE);
+    }
+
+    // Queues a sample for the writer thread; safe to call from the UI thread
+    public void appendAsync(final long timestamp, final float levelPct, final int temperatureTenths,
+                            final int voltageMv, final int status, final int plugged) {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(timestamp, levelPct, temperatureTenths, voltageMv, status, plugged);
+            }
+        });
+    }
+
+    public synchronized void append(long timestamp, float levelPct, int temperatureTenths,
+                                    int voltageMv, int status, int plugged) {
+        long elapsed = SystemClock.elapsedRealtime();
+        long clockOffset = System.currentTimeMillis() - elapsed;
+
+        // Keep the segment sorted by time so range reads can binary search
+        long index = writeCount;
+        if (writeCount > segmentStart && timestamp < timestampAt(writeCount - 1)) {
+            long lastElapsed = buffer.getLong(OFF_LAST_ELAPSED);
+            long jump = clockOffset - buffer.getLong(OFF_CLOCK_OFFSET);
+            // elapsedRealtime() going back means a reboot in between
+            boolean sameBoot = lastElapsed > 0 && elapsed >= lastElapsed;
+            if (sameBoot && jump < -CLOCK_JUMP_TOLERANCE_MS) {
+                shiftTimestamps(jump);
+            }
+            if (timestamp < timestampAt(writeCount - 1)) {
+                if (sameBoot) {
+                    index = lowerBound(firstReadable(), writeCount, timestamp + 1);
+                    for (long i = writeCount - 1; i >= index; i--) {
+                        copyRecord(i, i + 1);
+                    }
+                } else {
+                    Log.i(TAG, "Clock went back across a restart; starting a new segment");
+                    segmentStart = writeCount;
+                    buffer.putLong(OFF_SEGMENT_START, segmentStart);
+                }
+            }
+        }
+
+        int offset = recordOffset(index);
+        buffer.putLong(offset + REC_TIMESTAMP, timestamp);
+        buffer.putShort(offset + REC_LEVEL, (short) Math.round(levelPct * 10f));
+        buffer.putShort(offset + REC_TEMPERATURE, (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, temperatureTenths)));
+        buffer.putShort(offset + REC_VOLTAGE, (short) voltageMv);
+        buffer.put(offset + REC_STATUS, (byte) status);
+        buffer.put(offset + REC_PLUGGED, (byte) plugged);
+
+        // Publish the record only after it is fully written
+        writeCount++;
+        buffer.putLong(OFF_WRITE_COUNT, writeCount);
+        buffer.putLong(OFF_LAST_ELAPSED, elapsed);
+        buffer.putLong(OFF_CLOCK_OFFSET, clockOffset);
+    }
+
+    // Moves the current segment and the session start by delta, for a
+    // wall clock that was set by that much
+    private void shiftTimestamps(long delta) {
+        Log.i(TAG, "Clock was set back by " + -delta + " ms; shifting the history");
+        for (long i = firstReadable(); i < writeCount; i++) {
+            int offset = recordOffset(i) + REC_TIMESTAMP;
+            buffer.putLong(offset, buffer.getLong(offset) + delta);
+        }
+        long sessionStart = buffer.getLong(OFF_SESSION_START_TIME);
+        if (sessionStart > 0) {
+            buffer.putLong(OFF_SESSION_START_TIME, sessionStart + delta);
+        }
+    }
+
+    private void copyRecord(long from, long to) {
+        int src = recordOffset(from);
+        int dst = recordOffset(to);
+        buffer.putLong(dst, buffer.getLong(src));
+        buffer.putLong(dst + 8, buffer.getLong(src + 8));
+    }
+
+    // Oldest index still in the ring and in the current segment
+    private long firstReadable() {
+        return Math.max(Math.max(0, writeCount - CAPACITY), segmentStart);
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(writeCount, CAPACITY);
+    }
+
+    public synchronized long getLatestTimestamp() {
+        return writeCount > 0 ? timestampAt(writeCount - 1) : 0;
+    }
+
+    public synchronized float getLatestLevel() {
+        if (writeCount == 0) return -1;
+        return buffer.getShort(recordOffset(writeCount - 1) + REC_LEVEL) / 10f;
+    }
+
+    // Copies samples with fromTime <= timestamp <= toTime into out, oldest
+    // first. If the range holds more than out can take, the newest are kept.
+    public synchronized int readRange(long fromTime, long toTime, Samples out) {
+        out.count = 0;
+        if (writeCount == segmentStart || toTime < fromTime) return 0;
+
+        long oldest = firstReadable();
+        long start = lowerBound(oldest, writeCount, fromTime);
+        long end = toTime == Long.MAX_VALUE ? writeCount : lowerBound(start, writeCount, toTime + 1);
+
+        long available = end - start;
+        if (available > out.capacity()) {
+            start = end - out.capacity();
+        }
+
+        int n = 0;
+        for (long i = start; i < end; i++, n++) {
+            int offset = recordOffset(i);
+            out.timestamps[n] = buffer.getLong(offset + REC_TIMESTAMP);
+            out.levels[n] = buffer.getShort(offset + REC_LEVEL) / 10f;
+            short temperature = buffer.getShort(offset + REC_TEMPERATURE);
+            out.temperatures[n] = temperature == BatteryState.TEMPERATURE_UNKNOWN ? Float.NaN : temperature / 10f;
+            out.voltages[n] = buffer.getShort(offset + REC_VOLTAGE) & 0xFFFF;
+            out.statuses[n] = buffer.get(offset + REC_STATUS);
+            out.plugged[n] = buffer.get(offset + REC_PLUGGED);
+        }
+        out.count = n;
+        return n;
+    }
+
+    // Reads on the writer thread, after any queued appends, and delivers
+    // the result on the main thread
+    public void readRangeAsync(final long fromTime, final long toTime, final int maxSamples,
+                               final RangeCallback callback) {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Samples samples = new Samples(Math.min(maxSamples, CAPACITY));
+                readRange(fromTime, toTime, samples);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onSamples(samples);
+                    }
+                });
+            }
+        });
+    }
+
+    // Session bookkeeping survives fragment and process restarts
+    public synchronized void setSessionStart(long time, float levelPct) {
+        buffer.putLong(OFF_SESSION_START_TIME, time);
+        buffer.putInt(OFF_SESSION_START_LEVEL, Math.round(levelPct * 10f));
+    }
+
+    public synchronized long getSessionStartTime() {
+        return buffer.getLong(OFF_SESSION_START_TIME);
+    }
+
+    public synchronized float getSessionStartLevel() {
+        return buffer.getInt(OFF_SESSION_START_LEVEL) / 10f;
+    }
+
+    // Pushes dirty pages to disk; the OS does this on its own as well
+    public void flushAsync() {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                buffer.force();
+            }
+        });
+    }
+
+    private long timestampAt(long index) {
+        return buffer.getLong(recordOffset(index) + REC_TIMESTAMP);
+    }
+
+    // First logical index in [lo, hi) whose timestamp is >= time
+    private long lowerBound(long lo, long hi, long time) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int recordOffset(long index) {
+        return HEADER_SIZE + (int) (index % CAPACITY) * RECORD_SIZE;
+    }
+}
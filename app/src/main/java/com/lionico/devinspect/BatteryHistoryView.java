@@ -0,0 +1,100 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+// Draws battery level over time from BatteryHistoryStore samples. Paints
+// and the path are reused, so redraws do not allocate.
+public class BatteryHistoryView extends View {
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint chargingPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final Path levelPath = new Path();
+
+    private BatteryHistoryStore.Samples samples;
+    private long fromTime;
+    private long toTime;
+
+    public BatteryHistoryView(Context context) {
+        super(context);
+        init();
+    }
+
+    public BatteryHistoryView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        float stroke = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 2,
+                                                 getResources().getDisplayMetrics());
+        linePaint.setColor(getResources().getColor(R.color.deepest_green));
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(stroke);
+
+        chargingPaint.setColor(getResources().getColor(R.color.light_blue));
+        chargingPaint.setStrokeWidth(stroke);
+
+        gridPaint.setColor(getResources().getColor(R.color.divider_green));
+        gridPaint.setStrokeWidth(1);
+    }
+
+    public void setSamples(BatteryHistoryStore.Samples samples, long fromTime, long toTime) {
+        this.samples = samples;
+        this.fromTime = fromTime;
+        this.toTime = Math.max(toTime, fromTime + 1);
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int desiredHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 160,
+                                                            getResources().getDisplayMetrics());
+        int width = resolveSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        setMeasuredDimension(width, resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float width = getWidth() - getPaddingLeft() - getPaddingRight();
+        float height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (width <= 0 || height <= 0) return;
+
+        // 0, 25, 50, 75 and 100 % guide lines
+        for (int i = 0; i <= 4; i++) {
+            float y = top + height * i / 4f;
+            canvas.drawLine(left, y, left + width, y, gridPaint);
+        }
+
+        if (samples == null || samples.count == 0) return;
+
+        float timeSpan = toTime - fromTime;
+        levelPath.rewind();
+        for (int i = 0; i < samples.count; i++) {
+            float x = left + width * ((samples.timestamps[i] - fromTime) / timeSpan);
+            float y = top + height * (1f - samples.levels[i] / 100f);
+            if (i == 0) {
+                levelPath.moveTo(x, y);
+            } else {
+                levelPath.lineTo(x, y);
+            }
+
+            // Mark charging periods along the bottom edge
+            if (samples.plugged[i] > 0 && i + 1 < samples.count) {
+                float nextX = left + width * ((samples.timestamps[i + 1] - fromTime) / timeSpan);
+                canvas.drawLine(x, top + height, nextX, top + height, chargingPaint);
+            }
+        }
+        canvas.drawPath(levelPath, linePaint);
+    }
+}
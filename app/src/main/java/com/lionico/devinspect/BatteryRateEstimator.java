@@ -0,0 +1,195 @@
+package com.lionico.devinspect;
+
+// Least-squares fit of battery level against time over a sliding window.
+// Running sums make each added sample O(1) (amortized, counting evictions).
+// The window restarts whenever the plug state changes, so charge and
+// discharge phases are never mixed in one fit.
+public class BatteryRateEstimator {
+
+    public static final long DEFAULT_WINDOW_MS = 30 * 60 * 1000L;
+
+    private static final int MAX_SAMPLES = 512;
+    private static final int MIN_SAMPLES = 3;
+    private static final long MIN_SPAN_MS = 3 * 60 * 1000L;
+    private static final double MS_PER_HOUR = 3600000.0;
+
+    // Two-sided 95 % Student t values for 1..30 degrees of freedom
+    private static final double[] T_95 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final long windowMs;
+
+    // Ring of samples currently inside the window; x is hours since origin
+    private final double[] xs = new double[MAX_SAMPLES];
+    private final double[] ys = new double[MAX_SAMPLES];
+    private final long[] times = new long[MAX_SAMPLES];
+    private int head;
+    private int count;
+
+    private long originTime;
+    private int pluggedState = -1;
+
+    private double sumX, sumY, sumXX, sumXY, sumYY;
+
+    public BatteryRateEstimator() {
+        this(DEFAULT_WINDOW_MS);
+    }
+
+    public BatteryRateEstimator(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    // plugged is BatteryManager.EXTRA_PLUGGED (0 when on battery)
+    public void addSample(long timeMs, float levelPct, int plugged) {
+        if (plugged != pluggedState) {
+            reset();
+            pluggedState = plugged;
+        }
+
+        if (count == 0) {
+            originTime = timeMs;
+        } else if (timeMs < times[(head + count - 1) % MAX_SAMPLES]) {
+            // Clock went backwards; earlier samples are no longer comparable
+            reset();
+            pluggedState = plugged;
+            originTime = timeMs;
+        }
+
+        // Evict samples that left the window, or the oldest if the ring is full
+        while (count > 0 && (timeMs - times[head] > windowMs || count == MAX_SAMPLES)) {
+            removeOldest();
+        }
+
+        int index = (head + count) % MAX_SAMPLES;
+        double x = (timeMs - originTime) / MS_PER_HOUR;
+        double y = levelPct;
+        xs[index] = x;
+        ys[index] = y;
+        times[index] = timeMs;
+        count++;
+
+        sumX += x;
+        sumY += y;
+        sumXX += x * x;
+        sumXY += x * y;
+        sumYY += y * y;
+    }
+
+    // Feeds target the samples in this window newer than afterTimeMs, oldest
+    // first. Used to carry live samples over into an estimator seeded from
+    // history that was read while they arrived.
+    public void replayInto(BatteryRateEstimator target, long afterTimeMs) {
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) % MAX_SAMPLES;
+            if (times[index] > afterTimeMs) {
+                target.addSample(times[index], (float) ys[index], pluggedState);
+            }
+        }
+    }
+
+    public void reset() {
+        head = 0;
+        count = 0;
+        sumX = sumY = sumXX = sumXY = sumYY = 0;
+        pluggedState = -1;
+    }
+
+    public boolean isCharging() {
+        return pluggedState > 0;
+    }
+
+    public int getSampleCount() {
+        return count;
+    }
+
+    public boolean hasEstimate() {
+        if (count < MIN_SAMPLES) return false;
+        long span = times[(head + count - 1) % MAX_SAMPLES] - times[head];
+        return span >= MIN_SPAN_MS && centeredXX() > 0;
+    }
+
+    // Level change in percent per hour; negative while discharging
+    public double getRatePerHour() {
+        if (!hasEstimate()) return 0;
+        return centeredXY() / centeredXX();
+    }
+
+    // Half-width of the 95 % confidence interval of the rate
+    public double getRateMarginPerHour() {
+        if (!hasEstimate()) return 0;
+        if (count <= 2) return Double.POSITIVE_INFINITY;
+
+        double sxx = centeredXX();
+        double slope = centeredXY() / sxx;
+        double sse = Math.max(0, centeredYY() - slope * centeredXY());
+        double standardError = Math.sqrt(sse / (count - 2) / sxx);
+
+        int dof = count - 2;
+        double t = dof <= T_95.length ? T_95[dof - 1] : 1.96;
+        return t * standardError;
+    }
+
+    public double getDischargeRatePerHour() {
+        double rate = getRatePerHour();
+        return rate < 0 ? -rate : 0;
+    }
+
+    public double getChargeRatePerHour() {
+        double rate = getRatePerHour();
+        return rate > 0 ? rate : 0;
+    }
+
+    // Estimated milliseconds until the level reaches 0 % (discharging) or
+    // 100 % (charging). bound < 0 gives the pessimistic end of the interval,
+    // bound > 0 the optimistic one, 0 the point estimate. Returns -1 when
+    // there is no usable estimate in that direction.
+    public long estimateRemainingMs(float currentLevel, int bound) {
+        if (!hasEstimate()) return -1;
+
+        double rate = getRatePerHour();
+        double margin = getRateMarginPerHour();
+        boolean charging = isCharging();
+
+        double speed = charging ? rate : -rate;
+        if (bound < 0) {
+            speed += margin;
+        } else if (bound > 0) {
+            speed -= margin;
+        }
+        if (speed <= 0 || Double.isInfinite(speed)) return -1;
+
+        double remainingPct = charging ? 100.0 - currentLevel : currentLevel;
+        if (remainingPct <= 0) return 0;
+        return (long) (remainingPct / speed * MS_PER_HOUR);
+    }
+
+    private void removeOldest() {
+        double x = xs[head];
+        double y = ys[head];
+        sumX -= x;
+        sumY -= y;
+        sumXX -= x * x;
+        sumXY -= x * y;
+        sumYY -= y * y;
+        head = (head + 1) % MAX_SAMPLES;
+        count--;
+        if (count == 0) {
+            sumX = sumY = sumXX = sumXY = sumYY = 0;
+        }
+    }
+
+    private double centeredXX() {
+        return sumXX - sumX * sumX / count;
+    }
+
+    private double centeredXY() {
+        return sumXY - sumX * sumY / count;
+    }
+
+    private double centeredYY() {
+        return sumYY - sumY * sumY / count;
+    }
+}
@@ -0,0 +1,90 @@
+package com.lionico.devinspect;
+
+import android.content.Intent;
+import android.os.BatteryManager;
+
+// Decoded ACTION_BATTERY_CHANGED extras. Immutable, so one instance can be
+// handed to several consumers and compared field by field.
+public final class BatteryState {
+
+    // Bits returned by diff()
+    public static final int CHANGED_LEVEL = 1;
+    public static final int CHANGED_STATUS = 1 << 1;
+    public static final int CHANGED_PLUGGED = 1 << 2;
+    public static final int CHANGED_HEALTH = 1 << 3;
+    public static final int CHANGED_TEMPERATURE = 1 << 4;
+    public static final int CHANGED_VOLTAGE = 1 << 5;
+    public static final int CHANGED_TECHNOLOGY = 1 << 6;
+    public static final int CHANGED_ALL = (1 << 7) - 1;
+
+    public final int level;
+    public final int scale;
+    public final int status;
+    public final int plugged;
+    public final int health;
+    public final int temperature; // tenths of a degree Celsius, signed
+    public final int voltage;     // millivolts
+    public final String technology;
+    public final long timestamp;  // wall clock time of decoding
+
+    // Missing temperature. Below zero is a real reading on cold devices, so
+    // -1 cannot be used; this value also fits the stores' 16-bit fields.
+    public static final int TEMPERATURE_UNKNOWN = Short.MIN_VALUE;
+
+    public BatteryState(int level, int scale, int status, int plugged, int health,
+                        int temperature, int voltage, String technology, long timestamp) {
+        this.level = level;
+        this.scale = scale;
+        this.status = status;
+        this.plugged = plugged;
+        this.health = health;
+        this.temperature = temperature;
+        this.voltage = voltage;
+        this.technology = technology;
+        this.timestamp = timestamp;
+    }
+
+    public static BatteryState fromIntent(Intent intent, long timestamp) {
+        if (intent == null) return null;
+
+        return new BatteryState(
+            intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1),
+            intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1),
+            intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1),
+            intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, -1),
+            intent.getIntExtra(BatteryManager.EXTRA_HEALTH, -1),
+            intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, TEMPERATURE_UNKNOWN),
+            intent.getIntExtra(BatteryManager.EXTRA_VOLTAGE, -1),
+            intent.getStringExtra(BatteryManager.EXTRA_TECHNOLOGY),
+            timestamp);
+    }
+
+    public boolean isValid() {
+        return level >= 0 && scale > 0;
+    }
+
+    public float getLevelPercent() {
+        return (level / (float) scale) * 100;
+    }
+
+    public boolean isCharging() {
+        return status == BatteryManager.BATTERY_STATUS_CHARGING;
+    }
+
+    // Bitmask of CHANGED_* fields that differ from other (all when other is null)
+    public int diff(BatteryState other) {
+        if (other == null) return CHANGED_ALL;
+
+        int changed = 0;
+        if (level != other.level || scale != other.scale) changed |= CHANGED_LEVEL;
+        if (status != other.status) changed |= CHANGED_STATUS;
+        if (plugged != other.plugged) changed |= CHANGED_PLUGGED;
+        if (health != other.health) changed |= CHANGED_HEALTH;
+        if (temperature != other.temperature) changed |= CHANGED_TEMPERATURE;
+        if (voltage != other.voltage) changed |= CHANGED_VOLTAGE;
+        if (technology == null ? other.technology != null : !technology.equals(other.technology)) {
+            changed |= CHANGED_TECHNOLOGY;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,170 @@
+package com.lionico.devinspect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Scores stored device records after the fact, e.g. a fleet export, with
+// no Context or DisplayMetrics. Plain Java like DeviceScorer, and it runs
+// the same scoring code as the live path, so a record scores exactly as
+// the device did when its snapshot was taken.
+//
+// Workers claim CHUNK_SIZE records at a time. Each keeps its own scorer
+// memo and ScoreResult for the whole batch, so records from the same
+// device model in a row reuse the memoized scores and nothing is
+// allocated per record beyond what a memo miss needs.
+public class BulkScorer {
+
+    private static final int CHUNK_SIZE = 256;
+
+    // One stored device. Zero or negative values mean unknown or not
+    // measured, as for DeviceScorer.calculateDeviceScore().
+    public static final class Record {
+        public final int sdkInt;
+        public final String primaryAbi;
+        public final int cpuSingleScore;
+        public final int cpuMultiScore;
+        public final long totalRamBytes;
+        public final int memoryBandwidthMBps;
+        public final int memoryLatencyNs;
+        public final long totalStorageBytes;
+        public final int screenWidth;
+        public final int screenHeight;
+        public final float density;
+
+        public Record(int sdkInt, String primaryAbi, int cpuSingleScore, int cpuMultiScore,
+                      long totalRamBytes, int memoryBandwidthMBps, int memoryLatencyNs,
+                      long totalStorageBytes, int screenWidth, int screenHeight, float density) {
+            this.sdkInt = sdkInt;
+            this.primaryAbi = primaryAbi;
+            this.cpuSingleScore = cpuSingleScore;
+            this.cpuMultiScore = cpuMultiScore;
+            this.totalRamBytes = totalRamBytes;
+            this.memoryBandwidthMBps = memoryBandwidthMBps;
+            this.memoryLatencyNs = memoryLatencyNs;
+            this.totalStorageBytes = totalStorageBytes;
+            this.screenWidth = screenWidth;
+            this.screenHeight = screenHeight;
+            this.density = density;
+        }
+
+        // The inputs DeviceSnapshotCollector scored the snapshot with
+        public static Record from(DeviceSnapshot snapshot) {
+            return new Record(snapshot.sdkInt, snapshot.primaryAbi,
+                              snapshot.cpuSingleScore, snapshot.cpuMultiScore,
+                              snapshot.ramTotalBytes,
+                              Math.max(snapshot.memoryHeapCopyMBps, snapshot.memoryDirectCopyMBps),
+                              snapshot.memoryLatencyNs,
+                              snapshot.storageTotalBytes,
+                              snapshot.screenWidth, snapshot.screenHeight, snapshot.density);
+        }
+    }
+
+    public interface Sink {
+        // Called on the worker threads, concurrently for different indexes.
+        // result is the worker's scratch and is refilled for its next
+        // record; copy out what you keep.
+        void onScored(int index, Record record, DeviceScorer.ScoreResult result);
+    }
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    // threads <= 1 scores on the calling thread
+    public BulkScorer(int threads) {
+        this.threads = Math.max(1, threads);
+        pool = this.threads == 1 ? null : Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "BulkScorer-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    // Blocks until every record has been passed to the sink
+    public void score(Record[] records, Sink sink) throws InterruptedException {
+        Worker worker = new Worker(records, sink);
+        if (pool == null) {
+            worker.call();
+            return;
+        }
+
+        int workers = Math.min(threads, (records.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(worker);
+        }
+        for (Future<Void> done : pool.invokeAll(tasks)) {
+            try {
+                done.get();
+            } catch (ExecutionException e) {
+                // A failing sink; surface its exception to the caller
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    // Total score per record, in record order
+    public int[] totalScores(Record[] records) throws InterruptedException {
+        final int[] totals = new int[records.length];
+        score(records, new Sink() {
+            @Override
+            public void onScored(int index, Record record, DeviceScorer.ScoreResult result) {
+                totals[index] = result.totalScore;
+            }
+        });
+        return totals;
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // One instance per batch, run by every pool thread at once; the scratch
+    // state lives on each thread's stack
+    private static final class Worker implements Callable<Void> {
+        private final Record[] records;
+        private final Sink sink;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+
+        Worker(Record[] records, Sink sink) {
+            this.records = records;
+            this.sink = sink;
+        }
+
+        @Override
+        public Void call() {
+            DeviceScorer.Scratch scratch = new DeviceScorer.Scratch();
+            DeviceScorer.ScoreResult result = new DeviceScorer.ScoreResult();
+            int start;
+            while ((start = nextChunk.getAndIncrement() * CHUNK_SIZE) < records.length) {
+                int end = Math.min(records.length, start + CHUNK_SIZE);
+                for (int i = start; i < end; i++) {
+                    Record r = records[i];
+                    DeviceScorer.calculateDeviceScore(scratch, r.sdkInt, r.primaryAbi,
+                                                      r.cpuSingleScore, r.cpuMultiScore,
+                                                      r.totalRamBytes, r.memoryBandwidthMBps, r.memoryLatencyNs,
+                                                      r.totalStorageBytes,
+                                                      r.screenWidth, r.screenHeight, r.density, result);
+                    sink.onScored(i, r, result);
+                }
+            }
+            return null;
+        }
+    }
+}
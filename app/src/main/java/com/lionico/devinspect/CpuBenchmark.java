@@ -0,0 +1,396 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// A few seconds of CPU work in four kernels: integer mixing, floating
+// point (Mandelbrot), table-driven CRC32 hashing and a pointer chase over a
+// buffer larger than most caches. Each kernel runs on one thread, then on
+// one thread per available processor. Every thread warms up first, so the
+// measured span runs JIT or AOT compiled code rather than the interpreter.
+//
+// Kernel rates are divided by REFERENCE_RATES, so a score of 1000 is one
+// core of the reference machine (a desktop-class core, close to the big
+// cores of recent flagship phones); single is the geometric mean over the
+// kernels on one thread, multi the same with all threads' rates summed.
+//
+// Results depend on the hardware and the runtime, so they are cached per
+// build fingerprint and measured again after a system update.
+public class CpuBenchmark {
+
+    private static final String TAG = "CpuBenchmark";
+    private static final String PREF_NAME = "cpu_benchmark";
+
+    public static final int KERNEL_INTEGER = 0;
+    public static final int KERNEL_FLOAT = 1;
+    public static final int KERNEL_HASH = 2;
+    public static final int KERNEL_MEMORY = 3;
+    public static final int KERNEL_COUNT = 4;
+
+    private static final String[] KERNEL_NAMES = {"integer", "floating point", "hashing", "memory"};
+
+    // Units per second of each kernel on one reference core
+    private static final double[] REFERENCE_RATES = {33000, 16000, 21000, 3200};
+
+    private static final long WARMUP_MS = 300;
+    private static final long MEASURE_MS = 500;
+
+    private static final int HASH_BYTES = 16 * 1024;
+    private static final int CHASE_ENTRIES = 2 * 1024 * 1024; // 8 MB of int
+    private static final int CHASE_STEPS = 4096;
+
+    private static final int[] CRC_TABLE = new int[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c = i;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+            }
+            CRC_TABLE[i] = c;
+        }
+    }
+
+    public interface Listener {
+        // step of getStepCount(), as each kernel starts
+        void onProgress(int step, String description);
+        void onComplete(Result result);
+    }
+
+    public static final class Result {
+        public final int singleScore;
+        public final int multiScore;
+        public final int threads;
+        public final long measuredAt;
+        public final int[] singleKernelScores;
+        public final int[] multiKernelScores;
+
+        Result(int[] single, int[] multi, int threads, long measuredAt) {
+            this.singleKernelScores = single;
+            this.multiKernelScores = multi;
+            this.singleScore = geometricMean(single);
+            this.multiScore = geometricMean(multi);
+            this.threads = threads;
+            this.measuredAt = measuredAt;
+        }
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService driver;
+
+    // Only touched on the main thread
+    private Run current;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    public CpuBenchmark(Context context) {
+        appContext = context.getApplicationContext();
+        // Normal priority on purpose: background threads may be confined
+        // to the little cores and would measure those instead
+        driver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "CpuBenchmark");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public static int getStepCount() {
+        return KERNEL_COUNT * 2;
+    }
+
+    public static String kernelName(int kernel) {
+        return KERNEL_NAMES[kernel];
+    }
+
+    // Last result measured on this build, or null; reads preferences, so
+    // call it off the main thread where possible
+    public static Result loadCached(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (!Build.FINGERPRINT.equals(prefs.getString("fingerprint", null))) return null;
+
+        int[] single = new int[KERNEL_COUNT];
+        int[] multi = new int[KERNEL_COUNT];
+        for (int kernel = 0; kernel < KERNEL_COUNT; kernel++) {
+            single[kernel] = prefs.getInt("single" + kernel, 0);
+            multi[kernel] = prefs.getInt("multi" + kernel, 0);
+            if (single[kernel] <= 0 || multi[kernel] <= 0) return null;
+        }
+        return new Result(single, multi, prefs.getInt("threads", 1), prefs.getLong("measuredAt", 0));
+    }
+
+    private static void saveCached(Context context, Result result) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit();
+        editor.putString("fingerprint", Build.FINGERPRINT);
+        for (int kernel = 0; kernel < KERNEL_COUNT; kernel++) {
+            editor.putInt("single" + kernel, result.singleKernelScores[kernel]);
+            editor.putInt("multi" + kernel, result.multiKernelScores[kernel]);
+        }
+        editor.putInt("threads", result.threads);
+        editor.putLong("measuredAt", result.measuredAt);
+        editor.apply();
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    public void start(final Listener listener) {
+        if (shutdown) return;
+
+        cancel();
+        final int runGeneration = generation;
+        final Run run = new Run();
+        current = run;
+
+        driver.execute(new Runnable() {
+            @Override
+            public void run() {
+                int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+                int[] single = new int[KERNEL_COUNT];
+                int[] multi = new int[KERNEL_COUNT];
+                int[] chain = buildChain(CHASE_ENTRIES);
+                long started = SystemClock.elapsedRealtime();
+
+                int step = 0;
+                for (int pass = 0; pass < 2; pass++) {
+                    int passThreads = pass == 0 ? 1 : threads;
+                    int[] scores = pass == 0 ? single : multi;
+                    for (int kernel = 0; kernel < KERNEL_COUNT; kernel++) {
+                        deliverProgress(runGeneration, listener, step++, describe(kernel, passThreads));
+                        double rate = measure(run, kernel, passThreads, chain);
+                        if (run.cancelled) return;
+                        scores[kernel] = Math.max(1, (int) Math.round(rate / REFERENCE_RATES[kernel] * 1000));
+                    }
+                }
+
+                Result result = new Result(single, multi, threads, System.currentTimeMillis());
+                saveCached(appContext, result);
+                Log.i(TAG, "Measured in " + (SystemClock.elapsedRealtime() - started) + " ms: single "
+                      + result.singleScore + ", multi " + result.multiScore + " on " + threads + " threads");
+                deliverComplete(runGeneration, listener, result);
+            }
+        });
+    }
+
+    // Workers stop at their next unit of work
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        driver.shutdown();
+    }
+
+    private void deliverProgress(final int runGeneration, final Listener listener,
+                                 final int step, final String description) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                listener.onProgress(step, description);
+            }
+        });
+    }
+
+    private void deliverComplete(final int runGeneration, final Listener listener, final Result result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                current = null;
+                listener.onComplete(result);
+            }
+        });
+    }
+
+    private static String describe(int kernel, int threads) {
+        return "Measuring " + KERNEL_NAMES[kernel] + (threads == 1 ? " on one core" : " on " + threads + " threads");
+    }
+
+    static final class Run {
+        volatile boolean cancelled;
+        volatile long sink; // keeps the kernels' results alive
+    }
+
+    // Units per second summed over all threads. The calling thread is one
+    // of them; the barrier lines up the end of every thread's warmup.
+    static double measure(final Run run, final int kernel, int threads, final int[] chain) {
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final double[] rates = new double[threads];
+        Thread[] helpers = new Thread[threads - 1];
+        for (int i = 1; i < threads; i++) {
+            final int index = i;
+            helpers[i - 1] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    rates[index] = measureThread(run, kernel, index, chain, barrier);
+                }
+            }, "CpuBenchmark-" + i);
+            helpers[i - 1].start();
+        }
+        rates[0] = measureThread(run, kernel, 0, chain, barrier);
+
+        double total = rates[0];
+        for (int i = 1; i < threads; i++) {
+            try {
+                helpers[i - 1].join();
+            } catch (InterruptedException e) {
+                run.cancelled = true;
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+            total += rates[i];
+        }
+        return total;
+    }
+
+    private static double measureThread(Run run, int kernel, int index, int[] chain, CyclicBarrier barrier) {
+        byte[] data = new byte[HASH_BYTES];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + index);
+        }
+        long seed = 0x9E3779B97F4A7C15L * (index + 1);
+        long checksum = 0;
+
+        long warmupEnd = SystemClock.uptimeMillis() + WARMUP_MS;
+        while (!run.cancelled && SystemClock.uptimeMillis() < warmupEnd) {
+            checksum += runKernel(kernel, seed++, data, chain);
+        }
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            run.cancelled = true;
+            return 0;
+        }
+
+        long units = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MS * 1000000L;
+        long now = start;
+        while (!run.cancelled && now < end) {
+            checksum += runKernel(kernel, seed++, data, chain);
+            units++;
+            now = System.nanoTime();
+        }
+        run.sink += checksum;
+        return units / ((now - start) / 1e9);
+    }
+
+    // One unit of work, in the tens of microseconds on a fast core
+    static long runKernel(int kernel, long seed, byte[] data, int[] chain) {
+        switch (kernel) {
+            case KERNEL_INTEGER:
+                return integerKernel(seed);
+            case KERNEL_FLOAT:
+                return floatKernel(seed);
+            case KERNEL_HASH:
+                return hashKernel(data, (int) seed);
+            default:
+                return memoryKernel(chain, (int) (seed & (CHASE_ENTRIES - 1)));
+        }
+    }
+
+    // Shifts, multiplies, a data-dependent branch and an integer divide
+    private static long integerKernel(long seed) {
+        long x = seed | 1;
+        long acc = 0;
+        for (int i = 0; i < 4096; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            long y = x * 0x2545F4914F6CDD1DL;
+            if ((y & 8) != 0) {
+                acc += y >>> 40;
+            } else {
+                acc -= (y >>> 32) / ((y & 0xFF) + 1);
+            }
+        }
+        return acc;
+    }
+
+    // Escape-time iterations over a small window of the Mandelbrot set
+    private static long floatKernel(long seed) {
+        double offset = (seed & 7) * 0.001;
+        long iterations = 0;
+        for (int py = 0; py < 16; py++) {
+            for (int px = 0; px < 16; px++) {
+                double cx = -0.75 + offset + px * 0.01;
+                double cy = 0.1 + py * 0.01;
+                double x = 0;
+                double y = 0;
+                int n = 0;
+                while (n < 64 && x * x + y * y <= 4) {
+                    double t = x * x - y * y + cx;
+                    y = 2 * x * y + cy;
+                    x = t;
+                    n++;
+                }
+                iterations += n;
+            }
+        }
+        return iterations;
+    }
+
+    private static long hashKernel(byte[] data, int salt) {
+        int crc = ~salt;
+        for (int i = 0; i < data.length; i++) {
+            crc = CRC_TABLE[(crc ^ data[i]) & 0xFF] ^ (crc >>> 8);
+        }
+        return ~crc;
+    }
+
+    // Dependent loads: each step waits for the previous one to miss cache
+    private static long memoryKernel(int[] chain, int start) {
+        int p = start;
+        for (int i = 0; i < CHASE_STEPS; i++) {
+            p = chain[p];
+        }
+        return p;
+    }
+
+    // One random cycle through every entry (Sattolo's algorithm), so the
+    // chase never settles into a short loop the cache could hold
+    static int[] buildChain(int entries) {
+        int[] chain = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            chain[i] = i;
+        }
+        long x = 0x2545F4914F6CDD1DL;
+        for (int i = entries - 1; i > 0; i--) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int j = (int) ((x >>> 1) % i);
+            int t = chain[i];
+            chain[i] = chain[j];
+            chain[j] = t;
+        }
+        return chain;
+    }
+
+    static int geometricMean(int[] scores) {
+        double logSum = 0;
+        for (int score : scores) {
+            logSum += Math.log(Math.max(1, score));
+        }
+        return (int) Math.round(Math.exp(logSum / scores.length));
+    }
+}
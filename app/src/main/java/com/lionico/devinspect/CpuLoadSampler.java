@@ -0,0 +1,261 @@
+package com.lionico.devinspect;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import java.util.Arrays;
+
+// Total and per-core CPU utilization from /proc/stat, sampled on a
+// background thread at 1 to 10 Hz. Each sample is the busy share of the
+// jiffies elapsed since the previous one; the last HISTORY_SIZE samples are
+// kept in a ring for the sparklines.
+//
+// After start() nothing is allocated per sample: the file stays open and is
+// re-read into one buffer, ProcCursor parses the bytes, and the history
+// rings, runnables and the listener's copy are all preallocated. That keeps
+// the monitor from adding GC work to the load it is measuring.
+//
+// Android 8 and later deny /proc/stat to most apps; isAvailable() then turns
+// false after the first attempt and sampling stops.
+public class CpuLoadSampler {
+
+    public interface Listener {
+        // Main thread, after each sample
+        void onCpuSample(CpuLoadSampler sampler);
+    }
+
+    public static final int MIN_RATE_HZ = 1;
+    public static final int MAX_RATE_HZ = 10;
+    public static final int HISTORY_SIZE = 60;
+    public static final int MAX_CORES = 32;
+
+    // Core slot with no reading: offline, or not seen yet
+    public static final float OFFLINE = -1f;
+
+    private static final byte[] CPU = ProcCursor.ascii("cpu");
+    private static final int FIELDS = 8; // user nice system idle iowait irq softirq steal
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread thread;
+    private final Handler sampleHandler;
+    private volatile Listener listener;
+    private volatile boolean running;
+    private boolean shutDown; // main thread
+    private volatile int rateHz = MIN_RATE_HZ;
+    private volatile boolean available = true;
+
+    // Sampling thread only
+    // The cpu lines come first; 8 KB holds them for well over MAX_CORES
+    private final ProcFile statFile = new ProcFile("/proc/stat", 8 * 1024);
+    private final long[] fields = new long[FIELDS];
+    private final long[] prevTotal = new long[MAX_CORES + 1];
+    private final long[] prevIdle = new long[MAX_CORES + 1];
+    private final boolean[] seen = new boolean[MAX_CORES + 1];
+    private final float[] latest = new float[MAX_CORES + 1];
+
+    // Guarded by this: slot 0 is the total, slot i + 1 is core i
+    private final float[] history = new float[(MAX_CORES + 1) * HISTORY_SIZE];
+    private int historyCount = 0;
+    private int historyNext = 0;
+    private int coreCount = 0;
+
+    private final Runnable sampleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            long started = SystemClock.uptimeMillis();
+            if (!sampleOnce()) {
+                available = false;
+                mainHandler.post(deliverRunnable);
+                return;
+            }
+            mainHandler.post(deliverRunnable);
+            // stop() may have come in while this sample was being taken
+            if (!running) return;
+            long delay = 1000 / rateHz - (SystemClock.uptimeMillis() - started);
+            sampleHandler.postDelayed(this, Math.max(0, delay));
+        }
+    };
+
+    // Restarts the sampling chain. Runs on the sampling thread, so no
+    // sample can be in flight and re-post itself next to the new one.
+    private final Runnable startRunnable = new Runnable() {
+        @Override
+        public void run() {
+            sampleHandler.removeCallbacks(sampleRunnable);
+            sampleRunnable.run();
+        }
+    };
+
+    // Ends the chain, releases the file and forgets the baselines, so the
+    // first sample after a restart does not average over the pause
+    private final Runnable closeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            sampleHandler.removeCallbacks(sampleRunnable);
+            statFile.close();
+            Arrays.fill(seen, false);
+        }
+    };
+
+    private final Runnable deliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Listener current = listener;
+            if (current != null) {
+                current.onCpuSample(CpuLoadSampler.this);
+            }
+        }
+    };
+
+    public CpuLoadSampler() {
+        Arrays.fill(history, OFFLINE);
+        thread = new HandlerThread("CpuLoadSampler", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        sampleHandler = new Handler(thread.getLooper());
+    }
+
+    // Clamped to MIN_RATE_HZ..MAX_RATE_HZ; takes effect from the next sample
+    public void setRateHz(int hz) {
+        rateHz = Math.max(MIN_RATE_HZ, Math.min(MAX_RATE_HZ, hz));
+    }
+
+    public int getRateHz() {
+        return rateHz;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Main thread. All sampling state lives on one background thread that
+    // is kept until shutdown(), so start and stop only post to it.
+    public void start(Listener listener) {
+        this.listener = listener;
+        if (!available || shutDown) return;
+
+        running = true;
+        sampleHandler.post(startRunnable);
+    }
+
+    // The history is kept, so a restart continues the same sparklines
+    public void stop() {
+        listener = null;
+        running = false;
+        mainHandler.removeCallbacks(deliverRunnable);
+        sampleHandler.removeCallbacks(startRunnable);
+        sampleHandler.post(closeRunnable);
+    }
+
+    // Final; the thread finishes the close posted by stop() and ends
+    public void shutdown() {
+        if (shutDown) return;
+        stop();
+        shutDown = true;
+        thread.quitSafely();
+    }
+
+    public synchronized int getCoreCount() {
+        return coreCount;
+    }
+
+    public synchronized int getHistoryCount() {
+        return historyCount;
+    }
+
+    // Most recent utilization in 0..1 of the total (core -1) or one core,
+    // or OFFLINE
+    public synchronized float getLatest(int core) {
+        if (historyCount == 0) return OFFLINE;
+        int newest = (historyNext + HISTORY_SIZE - 1) % HISTORY_SIZE;
+        return history[(core + 1) * HISTORY_SIZE + newest];
+    }
+
+    // Copies the first rows of the history into dst, oldest first, one row
+    // of HISTORY_SIZE per slot: row 0 is the total, row i + 1 is core i.
+    // Returns the number of samples in each row.
+    public synchronized int copyHistory(float[] dst, int rows) {
+        int count = historyCount;
+        int first = historyNext - count + HISTORY_SIZE;
+        for (int row = 0; row < rows; row++) {
+            int base = row * HISTORY_SIZE;
+            for (int i = 0; i < count; i++) {
+                dst[base + i] = history[base + (first + i) % HISTORY_SIZE];
+            }
+        }
+        return count;
+    }
+
+    // Sampling thread
+    private boolean sampleOnce() {
+        ProcCursor cursor = statFile.readOrNull();
+        if (cursor == null) return false;
+
+        Arrays.fill(latest, OFFLINE);
+        int highestCore = -1;
+
+        // "cpu" is the total and "cpuN" core N; the cpu lines come first
+        while (cursor.nextLine() && cursor.nextToken() && cursor.tokenStartsWith(CPU)) {
+            int slot = 0;
+            if (cursor.tokenLength() > CPU.length) {
+                long core = cursor.tokenLong(CPU.length);
+                if (core < 0 || core >= MAX_CORES) continue;
+                slot = (int) core + 1;
+                highestCore = Math.max(highestCore, (int) core);
+            }
+            if (parseFields(cursor)) {
+                latest[slot] = utilization(slot);
+            }
+        }
+
+        synchronized (this) {
+            coreCount = Math.max(coreCount, highestCore + 1);
+            for (int slot = 0; slot <= MAX_CORES; slot++) {
+                history[slot * HISTORY_SIZE + historyNext] = latest[slot];
+            }
+            historyNext = (historyNext + 1) % HISTORY_SIZE;
+            historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+        }
+        return true;
+    }
+
+    private boolean parseFields(ProcCursor cursor) {
+        int count = 0;
+        while (count < FIELDS) {
+            long value = cursor.nextLong();
+            if (value == ProcCursor.MISSING) break;
+            fields[count++] = value;
+        }
+        // Kernels before 2.6.11 stop after softirq
+        for (int i = count; i < FIELDS; i++) {
+            fields[i] = 0;
+        }
+        return count >= 4;
+    }
+
+    // Busy share since the slot's previous reading; the first reading of a
+    // slot, or of a core coming back online, only sets the baseline
+    private float utilization(int slot) {
+        long total = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            total += fields[i];
+        }
+        long idle = fields[3] + fields[4];
+
+        float result = OFFLINE;
+        long totalDelta = total - prevTotal[slot];
+        long idleDelta = idle - prevIdle[slot];
+        if (seen[slot] && totalDelta > 0 && idleDelta >= 0) {
+            result = Math.max(0f, Math.min(1f, 1f - idleDelta / (float) totalDelta));
+        } else if (seen[slot] && totalDelta == 0) {
+            result = 0f;
+        }
+
+        prevTotal[slot] = total;
+        prevIdle[slot] = idle;
+        seen[slot] = true;
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+// Sparklines for CpuLoadSampler: a wide one for total load on top and a
+// small one per core below, CORE_COLUMNS to a row. The histories are copied
+// into arrays owned by the view and the paints and path are reused, so an
+// update at 10 Hz does not allocate.
+public class CpuSparklineView extends View {
+
+    private static final int CORE_COLUMNS = 4;
+    private static final int TOTAL_HEIGHT_DP = 48;
+    private static final int CORE_HEIGHT_DP = 24;
+    private static final int GAP_DP = 6;
+
+    private final Paint totalPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint corePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final Path linePath = new Path();
+
+    // Row 0 is the total, row i + 1 is core i
+    private final float[] values = new float[(CpuLoadSampler.MAX_CORES + 1) * CpuLoadSampler.HISTORY_SIZE];
+    private int sampleCount = 0;
+    private int coreCount = 0;
+
+    private float totalHeight;
+    private float coreHeight;
+    private float gap;
+
+    public CpuSparklineView(Context context) {
+        super(context);
+        init();
+    }
+
+    public CpuSparklineView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        totalHeight = dp(TOTAL_HEIGHT_DP);
+        coreHeight = dp(CORE_HEIGHT_DP);
+        gap = dp(GAP_DP);
+
+        totalPaint.setColor(getResources().getColor(R.color.deepest_green));
+        totalPaint.setStyle(Paint.Style.STROKE);
+        totalPaint.setStrokeWidth(dp(2));
+
+        corePaint.setColor(getResources().getColor(R.color.deep_green));
+        corePaint.setStyle(Paint.Style.STROKE);
+        corePaint.setStrokeWidth(dp(1));
+
+        gridPaint.setColor(getResources().getColor(R.color.divider_green));
+        gridPaint.setStrokeWidth(1);
+    }
+
+    private float dp(int value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    public void update(CpuLoadSampler sampler) {
+        int cores = Math.min(sampler.getCoreCount(), CpuLoadSampler.MAX_CORES);
+        sampleCount = sampler.copyHistory(values, cores + 1);
+
+        if (cores != coreCount) {
+            coreCount = cores;
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    private int coreRows() {
+        return (coreCount + CORE_COLUMNS - 1) / CORE_COLUMNS;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        float content = totalHeight + coreRows() * (gap + coreHeight);
+        int desiredHeight = (int) Math.ceil(content) + getPaddingTop() + getPaddingBottom();
+        int width = resolveSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        setMeasuredDimension(width, resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float width = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (width <= 0) return;
+
+        drawSparkline(canvas, 0, left, top, width, totalHeight, totalPaint);
+
+        float coreWidth = (width - gap * (CORE_COLUMNS - 1)) / CORE_COLUMNS;
+        for (int core = 0; core < coreCount; core++) {
+            float x = left + (core % CORE_COLUMNS) * (coreWidth + gap);
+            float y = top + totalHeight + gap + (core / CORE_COLUMNS) * (coreHeight + gap);
+            drawSparkline(canvas, core + 1, x, y, coreWidth, coreHeight, corePaint);
+        }
+    }
+
+    // Newest sample at the right edge; offline samples leave a gap
+    private void drawSparkline(Canvas canvas, int row, float left, float top,
+                               float width, float height, Paint paint) {
+        canvas.drawLine(left, top + height, left + width, top + height, gridPaint);
+        if (sampleCount < 2) return;
+
+        float step = width / (CpuLoadSampler.HISTORY_SIZE - 1);
+        float startX = left + width - (sampleCount - 1) * step;
+        int base = row * CpuLoadSampler.HISTORY_SIZE;
+
+        linePath.rewind();
+        boolean penDown = false;
+        for (int i = 0; i < sampleCount; i++) {
+            float value = values[base + i];
+            if (value < 0) {
+                penDown = false;
+                continue;
+            }
+            float x = startX + i * step;
+            float y = top + height * (1f - value);
+            if (penDown) {
+                linePath.lineTo(x, y);
+            } else {
+                linePath.moveTo(x, y);
+                penDown = true;
+            }
+        }
+        canvas.drawPath(linePath, paint);
+    }
+}
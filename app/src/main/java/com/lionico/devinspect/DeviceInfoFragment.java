@@ -5,25 +5,16 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 import android.util.DisplayMetrics;
-import android.os.Build;
-import android.os.StatFs;
-import android.os.Environment;
-import android.content.Context;
 import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.net.wifi.WifiInfo;
-import android.net.wifi.WifiManager;
-import android.app.ActivityManager;
 import android.graphics.Color;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.text.DecimalFormatSymbols;
 
 public class DeviceInfoFragment extends Fragment {
 
@@ -51,9 +42,46 @@ public class DeviceInfoFragment extends Fragment {
     // Buttons
     private Button btnRefreshDeviceInfo, btnDeviceTips;
 
+    // Measured CPU speed; the score picks it up on the next snapshot
+    private TextView tvCpuBenchmark;
+    private Button btnCpuBenchmark;
+    private CpuBenchmark cpuBenchmark;
+
+    // Memory bandwidth and latency, in the RAM card
+    private TextView tvMemorySpeed, tvMemorySpeedTip;
+    private MemoryBenchmark memoryBenchmark;
+
+    // Sections below the fold, inflated when the first snapshot arrives
+    private ViewStub stubDisplaySection, stubNetworkSection, stubSystemSection;
+    private boolean sectionsInflated = false;
+
+    // Live CPU load, sampled only while the tab is visible and resumed
+    private View cpuLoadCard;
+    private TextView tvCpuLoad, tvCpuLoadTip;
+    private CpuSparklineView cpuSparklines;
+    private CpuLoadSampler cpuSampler;
+    private boolean tabVisible = true;
+    private static final int[] CPU_RATES_HZ = {1, 2, 5, 10};
+
+    // Measured network traffic, on the same schedule as the CPU sampler
+    private TextView tvThroughput, tvThroughputDetail;
+    private NetworkThroughputSampler throughputSampler;
+
     // Display metrics for scoring
     private DisplayMetrics displayMetrics;
 
+    // Background collection, one snapshot per refresh
+    private DeviceSnapshotCollector snapshotCollector;
+    private DeviceSnapshot lastSnapshot;
+
+    // Reused by every refresh; only the final Strings are allocated
+    private final StringBuilder textBuffer = new StringBuilder(64);
+    private DisplayFormat.TimeAppender lastUpdatedClock;
+    private char decimalSeparator = '.';
+
+    private static final int COLOR_TIP_WARNING = 0xFFFF9800; // Orange
+    private static final int COLOR_TIP_GOOD = 0xFF4CAF50; // Green
+
     public DeviceInfoFragment() {
         // Required empty constructor
     }
@@ -61,7 +89,9 @@ public class DeviceInfoFragment extends Fragment {
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
+        long traceStart = PhaseTracer.begin();
         View view = inflater.inflate(R.layout.fragment_device_info, container, false);
+        PhaseTracer.end(PhaseTracer.DEVICE_INFLATE, traceStart);
 
         // Get display metrics
         displayMetrics = new DisplayMetrics();
@@ -71,61 +101,112 @@ public class DeviceInfoFragment extends Fragment {
 
         initializeViews(view);
         setupButtonListeners();
-        populateDeviceInfo();
-        updateLastUpdatedTime();
 
+        // Locale-dependent formats are picked up whenever the view is rebuilt
+        lastUpdatedClock = new DisplayFormat.TimeAppender("hh:mm:ss a");
+        decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+        // Dynamic info is filled in by onResume() once the first snapshot arrives
         return view;
     }
 
     private void initializeViews(View view) {
-        // Initialize all views (same as before, but shortened)
+        // Only the header, score, identity and buttons are inflated up front
         tvDeviceModel = (TextView) view.findViewById(R.id.tvDeviceModel);
         tvManufacturer = (TextView) view.findViewById(R.id.tvManufacturer);
         tvAndroidVersion = (TextView) view.findViewById(R.id.tvAndroidVersion);
-        tvScreenResolution = (TextView) view.findViewById(R.id.tvScreenResolution);
-        tvScreenDensity = (TextView) view.findViewById(R.id.tvScreenDensity);
-        tvInternalStorage = (TextView) view.findViewById(R.id.tvInternalStorage);
-        tvRamInfo = (TextView) view.findViewById(R.id.tvRamInfo);
-        tvKernelVersion = (TextView) view.findViewById(R.id.tvKernelVersion);
-        tvBuildNumber = (TextView) view.findViewById(R.id.tvBuildNumber);
-        tvNetworkType = (TextView) view.findViewById(R.id.tvNetworkType);
-        tvWifiSSID = (TextView) view.findViewById(R.id.tvWifiSSID);
-        tvWifiIP = (TextView) view.findViewById(R.id.tvWifiIP);
-        tvLinkSpeed = (TextView) view.findViewById(R.id.tvLinkSpeed);
 
         tvDeviceModelTip = (TextView) view.findViewById(R.id.tvDeviceModelTip);
         tvManufacturerTip = (TextView) view.findViewById(R.id.tvManufacturerTip);
         tvAndroidVersionTip = (TextView) view.findViewById(R.id.tvAndroidVersionTip);
-        tvScreenResolutionTip = (TextView) view.findViewById(R.id.tvScreenResolutionTip);
-        tvScreenDensityTip = (TextView) view.findViewById(R.id.tvScreenDensityTip);
-        tvStorageTip = (TextView) view.findViewById(R.id.tvStorageTip);
-        tvRamTip = (TextView) view.findViewById(R.id.tvRamTip);
-        tvNetworkTypeTip = (TextView) view.findViewById(R.id.tvNetworkTypeTip);
-        tvWifiTip = (TextView) view.findViewById(R.id.tvWifiTip);
-        tvIpTip = (TextView) view.findViewById(R.id.tvIpTip);
-        tvSpeedTip = (TextView) view.findViewById(R.id.tvSpeedTip);
-        tvKernelTip = (TextView) view.findViewById(R.id.tvKernelTip);
-        tvBuildTip = (TextView) view.findViewById(R.id.tvBuildTip);
 
         tvDeviceRating = (TextView) view.findViewById(R.id.tvDeviceRating);
         tvDeviceRatingTip = (TextView) view.findViewById(R.id.tvDeviceRatingTip);
         tvLastUpdated = (TextView) view.findViewById(R.id.tvLastUpdated);
 
-        storageProgressBar = (ProgressBar) view.findViewById(R.id.storageProgressBar);
-        ramProgressBar = (ProgressBar) view.findViewById(R.id.ramProgressBar);
-        tvStoragePercentage = (TextView) view.findViewById(R.id.tvStoragePercentage);
-        tvRamPercentage = (TextView) view.findViewById(R.id.tvRamPercentage);
-
         btnRefreshDeviceInfo = (Button) view.findViewById(R.id.btnRefreshDeviceInfo);
         btnDeviceTips = (Button) view.findViewById(R.id.btnDeviceTips);
+        tvCpuBenchmark = (TextView) view.findViewById(R.id.tvCpuBenchmark);
+        btnCpuBenchmark = (Button) view.findViewById(R.id.btnCpuBenchmark);
+
+        stubDisplaySection = (ViewStub) view.findViewById(R.id.stubDisplaySection);
+        stubNetworkSection = (ViewStub) view.findViewById(R.id.stubNetworkSection);
+        stubSystemSection = (ViewStub) view.findViewById(R.id.stubSystemSection);
+        sectionsInflated = false;
+    }
+
+    // Inflates the display, network and system sections. Deferred until there
+    // is data to show so the tab's first frame only lays out the top cards.
+    private void inflateDeferredSections() {
+        if (sectionsInflated) return;
+        sectionsInflated = true;
+        long traceStart = PhaseTracer.begin();
+
+        View display = stubDisplaySection.inflate();
+        View network = stubNetworkSection.inflate();
+        View system = stubSystemSection.inflate();
+
+        tvScreenResolution = (TextView) display.findViewById(R.id.tvScreenResolution);
+        tvScreenDensity = (TextView) display.findViewById(R.id.tvScreenDensity);
+        tvInternalStorage = (TextView) display.findViewById(R.id.tvInternalStorage);
+        tvRamInfo = (TextView) display.findViewById(R.id.tvRamInfo);
+        tvScreenResolutionTip = (TextView) display.findViewById(R.id.tvScreenResolutionTip);
+        tvScreenDensityTip = (TextView) display.findViewById(R.id.tvScreenDensityTip);
+        tvStorageTip = (TextView) display.findViewById(R.id.tvStorageTip);
+        tvRamTip = (TextView) display.findViewById(R.id.tvRamTip);
+        storageProgressBar = (ProgressBar) display.findViewById(R.id.storageProgressBar);
+        ramProgressBar = (ProgressBar) display.findViewById(R.id.ramProgressBar);
+        tvStoragePercentage = (TextView) display.findViewById(R.id.tvStoragePercentage);
+        tvRamPercentage = (TextView) display.findViewById(R.id.tvRamPercentage);
+        tvMemorySpeed = (TextView) display.findViewById(R.id.tvMemorySpeed);
+        tvMemorySpeedTip = (TextView) display.findViewById(R.id.tvMemorySpeedTip);
+        display.findViewById(R.id.memorySpeedRow).setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    if (memoryBenchmark != null && memoryBenchmark.isRunning()) {
+                        cancelMemoryBenchmark();
+                    } else {
+                        startMemoryBenchmark();
+                    }
+                }
+            });
+
+        tvNetworkType = (TextView) network.findViewById(R.id.tvNetworkType);
+        tvWifiSSID = (TextView) network.findViewById(R.id.tvWifiSSID);
+        tvWifiIP = (TextView) network.findViewById(R.id.tvWifiIP);
+        tvLinkSpeed = (TextView) network.findViewById(R.id.tvLinkSpeed);
+        tvNetworkTypeTip = (TextView) network.findViewById(R.id.tvNetworkTypeTip);
+        tvWifiTip = (TextView) network.findViewById(R.id.tvWifiTip);
+        tvIpTip = (TextView) network.findViewById(R.id.tvIpTip);
+        tvSpeedTip = (TextView) network.findViewById(R.id.tvSpeedTip);
+        tvThroughput = (TextView) network.findViewById(R.id.tvThroughput);
+        tvThroughputDetail = (TextView) network.findViewById(R.id.tvThroughputDetail);
+
+        tvKernelVersion = (TextView) system.findViewById(R.id.tvKernelVersion);
+        tvBuildNumber = (TextView) system.findViewById(R.id.tvBuildNumber);
+        tvKernelTip = (TextView) system.findViewById(R.id.tvKernelTip);
+        tvBuildTip = (TextView) system.findViewById(R.id.tvBuildTip);
+
+        cpuLoadCard = system.findViewById(R.id.cpuLoadCard);
+        tvCpuLoad = (TextView) system.findViewById(R.id.tvCpuLoad);
+        tvCpuLoadTip = (TextView) system.findViewById(R.id.tvCpuLoadTip);
+        cpuSparklines = (CpuSparklineView) system.findViewById(R.id.cpuSparklines);
+        cpuLoadCard.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    cycleCpuSampleRate();
+                }
+            });
+        PhaseTracer.end(PhaseTracer.DEVICE_SECTIONS, traceStart);
+
+        updateLiveSampling();
     }
 
     private void setupButtonListeners() {
         btnRefreshDeviceInfo.setOnClickListener(new View.OnClickListener() {
 				@Override
 				public void onClick(View v) {
-					refreshAllInformation();
-					Toast.makeText(getActivity(), "Information refreshed", Toast.LENGTH_SHORT).show();
+					refreshAllInformation(true);
 				}
 			});
 
@@ -135,133 +216,237 @@ public class DeviceInfoFragment extends Fragment {
 					showDeviceTips();
 				}
 			});
+
+        btnCpuBenchmark.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    if (cpuBenchmark != null && cpuBenchmark.isRunning()) {
+                        cancelCpuBenchmark();
+                    } else {
+                        startCpuBenchmark();
+                    }
+                }
+            });
+    }
+
+    private void startCpuBenchmark() {
+        if (getActivity() == null) return;
+
+        if (cpuBenchmark == null) {
+            cpuBenchmark = new CpuBenchmark(getActivity());
+        }
+        btnCpuBenchmark.setText("CANCEL");
+        cpuBenchmark.start(new CpuBenchmark.Listener() {
+                @Override
+                public void onProgress(int step, String description) {
+                    tvCpuBenchmark.setText(text().append(description).append("... (").append(step + 1)
+                                           .append('/').append(CpuBenchmark.getStepCount()).append(')').toString());
+                }
+
+                @Override
+                public void onComplete(CpuBenchmark.Result result) {
+                    btnCpuBenchmark.setText("MEASURE AGAIN");
+                    // Rescores with the cached result
+                    refreshAllInformation(false);
+                }
+            });
+    }
+
+    private void startMemoryBenchmark() {
+        if (getActivity() == null) return;
+
+        if (memoryBenchmark == null) {
+            memoryBenchmark = new MemoryBenchmark(getActivity());
+        }
+        tvMemorySpeed.setText("Measuring...");
+        memoryBenchmark.start(new MemoryBenchmark.Listener() {
+                @Override
+                public void onProgress(int step, String description) {
+                    tvMemorySpeedTip.setText(text().append(description).append("... (").append(step + 1)
+                                             .append('/').append(MemoryBenchmark.getStepCount())
+                                             .append("), tap to cancel").toString());
+                }
+
+                @Override
+                public void onComplete(MemoryBenchmark.Result result) {
+                    if (result == null) {
+                        tvMemorySpeed.setText("Not measured");
+                        tvMemorySpeedTip.setText("Not enough memory free for the test buffers");
+                        return;
+                    }
+                    // Rescores with the cached result
+                    refreshAllInformation(false);
+                }
+            });
+    }
+
+    private void cancelMemoryBenchmark() {
+        if (memoryBenchmark != null) {
+            memoryBenchmark.cancel();
+        }
+        tvMemorySpeed.setText("Not measured");
+        tvMemorySpeedTip.setText("Measurement cancelled, tap to try again");
+    }
+
+    private void cancelCpuBenchmark() {
+        if (cpuBenchmark != null) {
+            cpuBenchmark.cancel();
+        }
+        tvCpuBenchmark.setText("CPU measurement cancelled");
+        btnCpuBenchmark.setText("MEASURE CPU");
+    }
+
+    // The main-thread half of a refresh; package-private for
+    // RefreshAllocationTest
+    void showSnapshot(DeviceSnapshot snapshot) {
+        lastSnapshot = snapshot;
+        inflateDeferredSections();
+        populateDeviceInfo(snapshot);
     }
 
-    private void populateDeviceInfo() {
+    private void populateDeviceInfo(DeviceSnapshot snapshot) {
+        long populateStart = PhaseTracer.begin();
+
         // Basic device info
-        tvDeviceModel.setText(Build.MODEL);
+        tvDeviceModel.setText(snapshot.model);
         tvDeviceModelTip.setText("Your phone's specific model");
 
-        tvManufacturer.setText(Build.MANUFACTURER);
-        tvManufacturerTip.setText(getManufacturerContext(Build.MANUFACTURER));
+        tvManufacturer.setText(snapshot.manufacturer);
+        tvManufacturerTip.setText(getManufacturerContext(snapshot.manufacturer));
 
-        String androidVersion = "Android " + Build.VERSION.RELEASE + " (API " + Build.VERSION.SDK_INT + ")";
-        tvAndroidVersion.setText(androidVersion);
-        tvAndroidVersionTip.setText(getAndroidVersionContext(Build.VERSION.SDK_INT));
+        tvAndroidVersion.setText(text().append("Android ").append(snapshot.androidRelease)
+                                 .append(" (API ").append(snapshot.sdkInt).append(')').toString());
+        tvAndroidVersionTip.setText(getAndroidVersionContext(snapshot.sdkInt));
 
         // Screen info
-        if (displayMetrics != null) {
-            int width = displayMetrics.widthPixels;
-            int height = displayMetrics.heightPixels;
-            float density = displayMetrics.density;
+        if (snapshot.hasDisplay()) {
+            int width = snapshot.screenWidth;
+            int height = snapshot.screenHeight;
+            float density = snapshot.density;
 
-            tvScreenResolution.setText(width + " × " + height);
+            tvScreenResolution.setText(text().append(width).append(" × ").append(height).toString());
             tvScreenResolutionTip.setText(getResolutionContext(width, height));
 
-            tvScreenDensity.setText(getDensityName(density) + " (" + String.format("%.1f", density) + "x)");
+            tvScreenDensity.setText(DisplayFormat.appendFixed(text().append(getDensityName(density)).append(" ("),
+                                                              density, 1, decimalSeparator).append("x)").toString());
             tvScreenDensityTip.setText(getDensityContext(density));
         }
 
         // System info
-        tvKernelVersion.setText(System.getProperty("os.version"));
+        tvKernelVersion.setText(snapshot.kernelVersion);
         tvKernelTip.setText("Core system managing hardware and software");
 
-        tvBuildNumber.setText(Build.DISPLAY);
+        tvBuildNumber.setText(snapshot.buildDisplay);
         tvBuildTip.setText("Unique software identifier");
 
-        // Dynamic info
-        updateStorageInfo();
-        updateRamInfo();
-        updateNetworkInfo();
-        updateDeviceRating();
-    }
-
-    private void updateStorageInfo() {
-        try {
-            StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
-            long blockSize = stat.getBlockSizeLong();
-            long totalBlocks = stat.getBlockCountLong();
-            long availableBlocks = stat.getAvailableBlocksLong();
-
-            long totalSize = totalBlocks * blockSize;
-            long usedSize = totalSize - (availableBlocks * blockSize);
-            int percentageUsed = (int) ((usedSize * 100) / totalSize);
-
-            DecimalFormat df = new DecimalFormat("#.##");
-            double totalGB = totalSize / (1024.0 * 1024.0 * 1024.0);
-            double usedGB = usedSize / (1024.0 * 1024.0 * 1024.0);
-
-            tvInternalStorage.setText(df.format(usedGB) + " GB used / " + df.format(totalGB) + " GB total");
-            storageProgressBar.setProgress(percentageUsed);
-            tvStoragePercentage.setText(percentageUsed + "%");
-            tvStorageTip.setText(DeviceTipGenerator.generateStorageTips());
-
-            // Color code storage tip based on usage
-            if (percentageUsed > 90) {
-                tvStorageTip.setTextColor(Color.RED);
-            } else if (percentageUsed > 70) {
-                tvStorageTip.setTextColor(Color.parseColor("#FF9800")); // Orange
-            } else {
-                tvStorageTip.setTextColor(Color.parseColor("#4CAF50")); // Green
-            }
+        // Dynamic info, one span per section
+        long traceStart = PhaseTracer.begin();
+        updateStorageInfo(snapshot);
+        traceStart = PhaseTracer.end(PhaseTracer.UPDATE_STORAGE, traceStart);
+        updateRamInfo(snapshot);
+        traceStart = PhaseTracer.end(PhaseTracer.UPDATE_RAM, traceStart);
+        updateNetworkInfo(snapshot);
+        traceStart = PhaseTracer.end(PhaseTracer.UPDATE_NETWORK, traceStart);
+        updateDeviceRating(snapshot);
+        traceStart = PhaseTracer.end(PhaseTracer.UPDATE_RATING, traceStart);
+        updateLastUpdatedTime(snapshot.timestamp);
+        PhaseTracer.end(PhaseTracer.UPDATE_LAST_UPDATED, traceStart);
+
+        PhaseTracer.end(PhaseTracer.DEVICE_POPULATE, populateStart);
+    }
 
-        } catch (Exception e) {
+    private void updateStorageInfo(DeviceSnapshot snapshot) {
+        if (!snapshot.hasStorage()) {
             tvInternalStorage.setText("Storage info unavailable");
             tvStorageTip.setText("Unable to read storage");
             tvStorageTip.setTextColor(Color.GRAY);
+            return;
         }
-    }
 
-    private void updateRamInfo() {
-        if (getActivity() == null) return;
+        long totalSize = snapshot.storageTotalBytes;
+        long usedSize = totalSize - snapshot.storageAvailableBytes;
+        int percentageUsed = (int) ((usedSize * 100) / totalSize);
+
+        double totalGB = totalSize / (1024.0 * 1024.0 * 1024.0);
+        double usedGB = usedSize / (1024.0 * 1024.0 * 1024.0);
+
+        StringBuilder sb = DisplayFormat.appendDecimal(text(), usedGB, 2, decimalSeparator).append(" GB used / ");
+        tvInternalStorage.setText(DisplayFormat.appendDecimal(sb, totalGB, 2, decimalSeparator).append(" GB total").toString());
+        storageProgressBar.setProgress(percentageUsed);
+        tvStoragePercentage.setText(text().append(percentageUsed).append('%').toString());
+        tvStorageTip.setText(snapshot.storageTip);
+
+        // Color code storage tip based on usage
+        if (percentageUsed > 90) {
+            tvStorageTip.setTextColor(Color.RED);
+        } else if (percentageUsed > 70) {
+            tvStorageTip.setTextColor(COLOR_TIP_WARNING);
+        } else {
+            tvStorageTip.setTextColor(COLOR_TIP_GOOD);
+        }
+    }
 
-        try {
-            ActivityManager am = (ActivityManager) getActivity().getSystemService(Context.ACTIVITY_SERVICE);
-            if (am == null) return;
-
-            ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
-            am.getMemoryInfo(mi);
-
-            long totalRam = mi.totalMem;
-            long availableRam = mi.availMem;
-            long usedRam = totalRam - availableRam;
-            int percentageUsed = (int) ((usedRam * 100) / totalRam);
-
-            if (totalRam > 0) {
-                double totalGB = totalRam / (1024.0 * 1024.0 * 1024.0);
-                DecimalFormat df = new DecimalFormat("#.##");
-
-                tvRamInfo.setText(df.format(totalGB) + " GB total RAM");
-                ramProgressBar.setProgress(percentageUsed);
-                tvRamPercentage.setText(percentageUsed + "%");
-                tvRamTip.setText(DeviceTipGenerator.generateRamTips(getActivity()));
-
-                // Color code RAM tip based on usage
-                if (percentageUsed > 85) {
-                    tvRamTip.setTextColor(Color.RED);
-                } else if (percentageUsed > 65) {
-                    tvRamTip.setTextColor(Color.parseColor("#FF9800")); // Orange
-                } else {
-                    tvRamTip.setTextColor(Color.parseColor("#4CAF50")); // Green
-                }
-            }
-        } catch (Exception e) {
+    private void updateRamInfo(DeviceSnapshot snapshot) {
+        if (!snapshot.hasRam()) {
             tvRamInfo.setText("RAM info unavailable");
             tvRamTip.setText("Unable to read RAM");
             tvRamTip.setTextColor(Color.GRAY);
+            return;
         }
+
+        long totalRam = snapshot.ramTotalBytes;
+        long usedRam = totalRam - snapshot.ramAvailableBytes;
+        int percentageUsed = (int) ((usedRam * 100) / totalRam);
+
+        double totalGB = totalRam / (1024.0 * 1024.0 * 1024.0);
+
+        tvRamInfo.setText(DisplayFormat.appendDecimal(text(), totalGB, 2, decimalSeparator).append(" GB total RAM").toString());
+        ramProgressBar.setProgress(percentageUsed);
+        tvRamPercentage.setText(text().append(percentageUsed).append('%').toString());
+        tvRamTip.setText(snapshot.ramTip);
+
+        // Color code RAM tip based on usage
+        if (percentageUsed > 85) {
+            tvRamTip.setTextColor(Color.RED);
+        } else if (percentageUsed > 65) {
+            tvRamTip.setTextColor(COLOR_TIP_WARNING);
+        } else {
+            tvRamTip.setTextColor(COLOR_TIP_GOOD);
+        }
+
+        updateMemorySpeed(snapshot);
     }
 
-    private void updateNetworkInfo() {
-        if (getActivity() == null) return;
+    private void updateMemorySpeed(DeviceSnapshot snapshot) {
+        if (memoryBenchmark != null && memoryBenchmark.isRunning()) return;
+        if (!snapshot.hasMemoryBenchmark()) {
+            tvMemorySpeed.setText("Not measured");
+            tvMemorySpeedTip.setText("Tap to measure copy bandwidth and latency");
+            return;
+        }
 
-        ConnectivityManager cm = (ConnectivityManager) getActivity().getSystemService(Context.CONNECTIVITY_SERVICE);
-        if (cm == null) return;
+        int bandwidth = Math.max(snapshot.memoryHeapCopyMBps, snapshot.memoryDirectCopyMBps);
+        tvMemorySpeed.setText(DisplayFormat.appendFixed(text(), bandwidth / 1024.0, 1, decimalSeparator)
+                              .append(" GB/s, ").append(snapshot.memoryLatencyNs).append(" ns").toString());
+
+        StringBuilder sb = text().append("Copy: heap ");
+        DisplayFormat.appendFixed(sb, snapshot.memoryHeapCopyMBps / 1024.0, 1, decimalSeparator).append(", direct ");
+        DisplayFormat.appendFixed(sb, snapshot.memoryDirectCopyMBps / 1024.0, 1, decimalSeparator).append(" GB/s");
+        int knees = snapshot.getMemoryCacheKneeCount();
+        if (knees > 0) {
+            sb.append("\nLatency steps up past ");
+            for (int i = 0; i < knees; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(FileExplorerFragment.formatSize(snapshot.getMemoryCacheKnee(i)));
+            }
+        }
+        tvMemorySpeedTip.setText(sb.toString());
+    }
 
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        boolean isConnected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
+    private void updateNetworkInfo(DeviceSnapshot snapshot) {
+        if (!snapshot.networkInfoAvailable) return;
 
-        if (!isConnected) {
+        if (!snapshot.connected) {
             tvNetworkType.setText("Not Connected");
             tvNetworkTypeTip.setText("Connect to Wi-Fi or mobile data");
             tvWifiSSID.setText("N/A");
@@ -273,75 +458,226 @@ public class DeviceInfoFragment extends Fragment {
             return;
         }
 
-        String type = activeNetwork.getTypeName();
-        tvNetworkType.setText(type + " Connected");
-        tvNetworkTypeTip.setText(getNetworkTypeContext(activeNetwork.getType()));
+        tvNetworkType.setText(text().append(snapshot.networkTypeName).append(" Connected").toString());
+        tvNetworkTypeTip.setText(getNetworkTypeContext(snapshot.networkType));
 
-        if (activeNetwork.getType() == ConnectivityManager.TYPE_WIFI) {
-            WifiManager wifiManager = (WifiManager) getActivity().getApplicationContext().getSystemService(Context.WIFI_SERVICE);
-            if (wifiManager != null) {
-                WifiInfo wifiInfo = wifiManager.getConnectionInfo();
-                if (wifiInfo != null) {
-                    String ssid = wifiInfo.getSSID();
-                    if (ssid != null && ssid.startsWith("\"") && ssid.endsWith("\"")) {
-                        ssid = ssid.substring(1, ssid.length() - 1);
-                    }
-                    tvWifiSSID.setText(ssid != null ? ssid : "Unknown");
-                    tvWifiTip.setText("Connected wireless network");
+        if (snapshot.networkType == ConnectivityManager.TYPE_WIFI && snapshot.wifiInfoAvailable) {
+            String ssid = snapshot.wifiSsid;
+            tvWifiSSID.setText(ssid != null ? ssid : "Unknown");
+            tvWifiTip.setText("Connected wireless network");
 
-                    String ip = intToIp(wifiInfo.getIpAddress());
-                    tvWifiIP.setText(ip);
-                    tvIpTip.setText("Device network address");
+            tvWifiIP.setText(DisplayFormat.appendIp(text(), snapshot.wifiIpAddress).toString());
+            tvIpTip.setText("Device network address");
 
-                    int speed = wifiInfo.getLinkSpeed();
-                    tvLinkSpeed.setText(speed + " " + WifiInfo.LINK_SPEED_UNITS);
-                    tvSpeedTip.setText(getWifiSpeedContext(speed));
-                    return;
-                }
-            }
+            int speed = snapshot.wifiLinkSpeed;
+            tvLinkSpeed.setText(text().append(speed).append(' ').append(WifiInfo.LINK_SPEED_UNITS).toString());
+            tvSpeedTip.setText(getWifiSpeedContext(speed));
+            return;
         }
 
         // Mobile data
-        tvWifiSSID.setText(activeNetwork.getSubtypeName());
+        tvWifiSSID.setText(snapshot.networkSubtypeName);
         tvWifiTip.setText("Mobile data network");
         tvWifiIP.setText("Mobile Data IP");
         tvIpTip.setText("Dynamic mobile IP");
 
-        int speedClass = getMobileNetworkClass(activeNetwork.getSubtype());
+        int speedClass = getMobileNetworkClass(snapshot.networkSubtype);
         tvLinkSpeed.setText(getMobileSpeedText(speedClass));
         tvSpeedTip.setText(getMobileNetworkTip(speedClass));
     }
 
-    private void updateDeviceRating() {
-        if (getActivity() == null || displayMetrics == null) return;
+    private void updateDeviceRating(DeviceSnapshot snapshot) {
+        if (!snapshot.hasScore()) return;
+
+        tvDeviceRating.setText(text().append(snapshot.getRatingText()).append(" (")
+                               .append(snapshot.getTotalScore()).append("/100)").toString());
+        tvDeviceRating.setTextColor(snapshot.getRatingColor());
+        tvDeviceRatingTip.setText(snapshot.getPerformanceLevel());
+
+        if (cpuBenchmark != null && cpuBenchmark.isRunning()) return;
+        if (snapshot.hasCpuBenchmark()) {
+            tvCpuBenchmark.setText(text().append(snapshot.getCategoryDetails(DeviceScorer.CATEGORY_CPU))
+                                   .append(" (").append(snapshot.cpuThreads).append(" threads)").toString());
+            btnCpuBenchmark.setText("MEASURE AGAIN");
+        } else {
+            tvCpuBenchmark.setText(text().append(snapshot.getCategoryDetails(DeviceScorer.CATEGORY_CPU))
+                                   .append(", speed not measured yet").toString());
+            btnCpuBenchmark.setText("MEASURE CPU");
+        }
+    }
+
+    private void refreshAllInformation(final boolean userInitiated) {
+        if (getActivity() == null) return;
+
+        if (snapshotCollector == null) {
+            snapshotCollector = new DeviceSnapshotCollector(getActivity());
+        }
+
+        snapshotCollector.requestSnapshot(displayMetrics, userInitiated, new DeviceSnapshotCollector.Callback() {
+                @Override
+                public void onSnapshot(DeviceSnapshot snapshot) {
+                    if (getActivity() == null || tvDeviceModel == null) return;
+
+                    showSnapshot(snapshot);
+                    if (userInitiated) {
+                        Toast.makeText(getActivity(), "Information refreshed", Toast.LENGTH_SHORT).show();
+                    }
+                }
+            });
+    }
+
+    // Runs the samplers only while this tab is on screen; MainActivity calls
+    // setTabVisible() whenever the selected tab changes
+    private void updateLiveSampling() {
+        if (!sectionsInflated) return;
+
+        if (isResumed() && tabVisible) {
+            if (cpuSampler == null) {
+                cpuSampler = new CpuLoadSampler();
+            }
+            cpuSampler.start(new CpuLoadSampler.Listener() {
+                    @Override
+                    public void onCpuSample(CpuLoadSampler sampler) {
+                        showCpuLoad(sampler);
+                    }
+                });
+
+            if (throughputSampler == null) {
+                throughputSampler = new NetworkThroughputSampler();
+            }
+            throughputSampler.start(new NetworkThroughputSampler.Listener() {
+                    @Override
+                    public void onThroughputSample(NetworkThroughputSampler sampler) {
+                        showThroughput(sampler);
+                    }
+                });
+        } else {
+            stopLiveSampling();
+        }
+    }
+
+    private void stopLiveSampling() {
+        if (cpuSampler != null) {
+            cpuSampler.stop();
+        }
+        if (throughputSampler != null) {
+            throughputSampler.stop();
+        }
+    }
+
+    private void cycleCpuSampleRate() {
+        if (cpuSampler == null) return;
+
+        int next = CPU_RATES_HZ[0];
+        for (int i = 0; i < CPU_RATES_HZ.length - 1; i++) {
+            if (CPU_RATES_HZ[i] == cpuSampler.getRateHz()) {
+                next = CPU_RATES_HZ[i + 1];
+            }
+        }
+        cpuSampler.setRateHz(next);
+        showCpuLoad(cpuSampler);
+    }
+
+    private void showCpuLoad(CpuLoadSampler sampler) {
+        if (tvCpuLoad == null) return;
+
+        if (!sampler.isAvailable()) {
+            tvCpuLoad.setText("Unavailable");
+            tvCpuLoadTip.setText("This Android version hides CPU counters from apps");
+            return;
+        }
+
+        StringBuilder sb = text();
+        float total = sampler.getLatest(-1);
+        if (total >= 0) {
+            sb.append(Math.round(total * 100)).append("% · ");
+        }
+        tvCpuLoad.setText(sb.append(sampler.getCoreCount()).append(" cores · ")
+                          .append(sampler.getRateHz()).append(" Hz").toString());
+        cpuSparklines.update(sampler);
+    }
+
+    // Rates beside the nominal link speed: a slow link shows a low rate
+    // against a low speed, a saturated one a rate close to its speed
+    private void showThroughput(NetworkThroughputSampler sampler) {
+        if (tvThroughput == null) return;
+
+        if (!sampler.hasRates()) {
+            tvThroughput.setText("--");
+            tvThroughputDetail.setText("Measuring...");
+            return;
+        }
+
+        double rxBytes = sampler.getTotalRate(NetworkThroughputSampler.RX_BYTES);
+        double txBytes = sampler.getTotalRate(NetworkThroughputSampler.TX_BYTES);
+        StringBuilder sb = DisplayFormat.appendRate(text().append("↓ "), rxBytes, decimalSeparator);
+        tvThroughput.setText(DisplayFormat.appendRate(sb.append("  ↑ "), txBytes, decimalSeparator).toString());
+
+        sb = text().append(Math.round(sampler.getTotalRate(NetworkThroughputSampler.RX_PACKETS))).append(" / ")
+            .append(Math.round(sampler.getTotalRate(NetworkThroughputSampler.TX_PACKETS))).append(" packets/s");
 
-        DeviceScorer.ScoreResult result = DeviceScorer.calculateDeviceScore(getActivity(), displayMetrics);
+        // Nominal Wi-Fi speed is in Mbps
+        DeviceSnapshot snapshot = lastSnapshot;
+        if (snapshot != null && snapshot.connected && snapshot.networkType == ConnectivityManager.TYPE_WIFI
+            && snapshot.wifiInfoAvailable && snapshot.wifiLinkSpeed > 0) {
+            double linkBytes = snapshot.wifiLinkSpeed * 1000000.0 / 8;
+            sb.append(" · ").append(Math.round((rxBytes + txBytes) * 100 / linkBytes)).append("% of link");
+        }
+
+        if (sampler.isPerInterface()) {
+            int busiest = sampler.getBusiestInterface();
+            if (busiest >= 0) {
+                sb.append(" · busiest ").append(sampler.getInterfaceName(busiest));
+            }
+        } else {
+            sb.append(" · all interfaces");
+        }
+        tvThroughputDetail.setText(sb.toString());
+    }
 
-        tvDeviceRating.setText(result.ratingText + " (" + result.totalScore + "/100)");
-        tvDeviceRating.setTextColor(result.color);
-        tvDeviceRatingTip.setText(result.performanceLevel);
+    // Tabs are switched by hiding their frames, not with fragment
+    // transactions, so onHiddenChanged() never fires here
+    void setTabVisible(boolean visible) {
+        if (tabVisible == visible) return;
+        tabVisible = visible;
+        updateLiveSampling();
     }
 
-    private void refreshAllInformation() {
-        updateStorageInfo();
-        updateRamInfo();
-        updateNetworkInfo();
-        updateDeviceRating();
-        updateLastUpdatedTime();
+    private void updateLastUpdatedTime(long timestamp) {
+        tvLastUpdated.setText(lastUpdatedClock.append(text().append("Last updated: "), timestamp).toString());
     }
 
-    private void updateLastUpdatedTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat("hh:mm:ss a", Locale.getDefault());
-        tvLastUpdated.setText("Last updated: " + sdf.format(new Date()));
+    // The shared builder, emptied; its contents are copied out with toString()
+    private StringBuilder text() {
+        textBuffer.setLength(0);
+        return textBuffer;
     }
 
+    // Tips are built from the snapshot on screen instead of probing again
     private void showDeviceTips() {
         if (getActivity() == null) return;
 
-        String tips = DeviceTipGenerator.generateAllTips(getActivity());
+        DeviceSnapshot snapshot = lastSnapshot;
+        if (snapshot == null) {
+            Toast.makeText(getActivity(), "Device information is still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String tips = DeviceTipGenerator.generateAllTips(
+            snapshot.hasStorage() ? snapshot.storageTotalBytes : 0, snapshot.storageAvailableBytes,
+            snapshot.hasRam() ? snapshot.ramTotalBytes : 0, snapshot.ramAvailableBytes,
+            snapshot.sdkInt, getTipNetworkState(snapshot));
         Toast.makeText(getActivity(), tips, Toast.LENGTH_LONG).show();
     }
 
+    private int getTipNetworkState(DeviceSnapshot snapshot) {
+        if (!snapshot.networkInfoAvailable) return DeviceTipGenerator.NETWORK_UNKNOWN;
+        if (!snapshot.connected) return DeviceTipGenerator.NETWORK_NONE;
+        if (snapshot.networkType == ConnectivityManager.TYPE_WIFI) return DeviceTipGenerator.NETWORK_WIFI;
+        if (snapshot.networkType == ConnectivityManager.TYPE_MOBILE) return DeviceTipGenerator.NETWORK_MOBILE;
+        return DeviceTipGenerator.NETWORK_OTHER;
+    }
+
     // Helper methods (kept concise)
     private String getManufacturerContext(String manufacturer) {
         manufacturer = manufacturer.toLowerCase();
@@ -388,11 +724,6 @@ public class DeviceInfoFragment extends Fragment {
         else return "Basic speed";
     }
 
-    private String intToIp(int ip) {
-        return ((ip >> 0) & 0xFF) + "." + ((ip >> 8) & 0xFF) + "." +
-			((ip >> 16) & 0xFF) + "." + ((ip >> 24) & 0xFF);
-    }
-
     private int getMobileNetworkClass(int networkType) {
         switch (networkType) {
             case 1: // GPRS
@@ -444,6 +775,48 @@ public class DeviceInfoFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        refreshAllInformation();
+        refreshAllInformation(false);
+        updateLiveSampling();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (snapshotCollector != null) {
+            snapshotCollector.cancel();
+        }
+        stopLiveSampling();
+        // A backgrounded app gets less CPU, so the runs could only under-report
+        if (cpuBenchmark != null && cpuBenchmark.isRunning()) {
+            cancelCpuBenchmark();
+        }
+        if (memoryBenchmark != null && memoryBenchmark.isRunning()) {
+            cancelMemoryBenchmark();
+        }
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        if (snapshotCollector != null) {
+            snapshotCollector.shutdown();
+            snapshotCollector = null;
+        }
+        if (cpuSampler != null) {
+            cpuSampler.shutdown();
+            cpuSampler = null;
+        }
+        if (throughputSampler != null) {
+            throughputSampler.shutdown();
+            throughputSampler = null;
+        }
+        if (cpuBenchmark != null) {
+            cpuBenchmark.shutdown();
+            cpuBenchmark = null;
+        }
+        if (memoryBenchmark != null) {
+            memoryBenchmark.shutdown();
+            memoryBenchmark = null;
+        }
     }
 }
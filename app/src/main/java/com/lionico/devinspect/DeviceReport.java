@@ -0,0 +1,571 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StatFs;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Full device inventory as one JSON or CBOR document, for ingestion by a
+// backend: a fresh DeviceSnapshot, cached benchmark results, the current
+// battery state with its whole history, the background sampling log, and
+// storage volumes plus whatever the Files tab has indexed. Every field is
+// streamed through a ReportWriter into the file as it is read, so the
+// largest part, the battery history, is never held as text.
+//
+// Values are raw: bytes, milliseconds since the epoch, tenths of a degree
+// and Android's own status codes, so the backend does the formatting.
+public class DeviceReport {
+
+    private static final String TAG = "DeviceReport";
+
+    public static final int FORMAT_JSON = 0;
+    public static final int FORMAT_CBOR = 1;
+
+    // Bumped whenever a field changes meaning or moves
+    private static final int SCHEMA_VERSION = 1;
+
+    private static final String SHARE_DIR = "reports";
+    private static final long SHARE_KEEP_MS = 24L * 60 * 60 * 1000;
+
+    private static final String[] CATEGORY_KEYS = {"android", "ram", "storage", "screen", "cpu"};
+
+    public interface Listener {
+        void onComplete(Result result);
+    }
+
+    public static final class Result {
+        public final File file;
+        public final String mimeType;
+        public final long bytes;
+        public final long elapsedMs;
+        // Non-null when the report could not be written; file is then gone
+        public final String error;
+
+        Result(File file, String mimeType, long bytes, long elapsedMs, String error) {
+            this.file = file;
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+            this.elapsedMs = elapsedMs;
+            this.error = error;
+        }
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService driver;
+    private final DeviceSnapshotCollector collector;
+
+    // Only touched on the main thread
+    private Run current;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    public DeviceReport(Context context) {
+        appContext = context.getApplicationContext();
+        collector = new DeviceSnapshotCollector(appContext);
+        driver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "DeviceReport");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    // Private to the app and served to other apps only through ReportProvider
+    public static File shareDir(Context context) {
+        return new File(context.getCacheDir(), SHARE_DIR);
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    // Writes a new report into dir. The display size comes from the caller,
+    // which has the DisplayMetrics; 0 leaves the display fields unknown.
+    public void start(final File dir, final int format, final int screenWidth, final int screenHeight,
+                      final float density, final Listener listener) {
+        if (shutdown) return;
+
+        cancel();
+        final int runGeneration = generation;
+        final Run run = new Run();
+        current = run;
+
+        driver.execute(new Runnable() {
+            @Override
+            public void run() {
+                Result result = export(run, dir, format, screenWidth, screenHeight, density);
+                if (result == null || run.cancelled) return;
+                deliver(runGeneration, listener, result);
+            }
+        });
+    }
+
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        driver.shutdown();
+        collector.shutdown();
+    }
+
+    private void deliver(final int runGeneration, final Listener listener, final Result result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                current = null;
+                listener.onComplete(result);
+            }
+        });
+    }
+
+    static final class Run {
+        volatile boolean cancelled;
+    }
+
+    // Driver thread; null if cancelled
+    private Result export(Run run, File dir, int format, int width, int height, float density) {
+        long started = SystemClock.elapsedRealtime();
+        if (dir.equals(shareDir(appContext))) {
+            pruneShareDir(dir);
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return new Result(null, null, 0, 0, "Cannot create " + dir.getPath());
+        }
+
+        String extension = format == FORMAT_CBOR ? "cbor" : "json";
+        File file = new File(dir, "device-report-" + System.currentTimeMillis() + "." + extension);
+        ReportWriter writer = null;
+        boolean written = false;
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            writer = format == FORMAT_CBOR ? ReportWriter.cbor(out) : ReportWriter.json(out);
+            write(run, writer, width, height, density);
+            writer.close();
+            written = !run.cancelled;
+        } catch (IOException e) {
+            Log.w(TAG, "Report export failed", e);
+            return new Result(null, null, 0, 0, e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            if (!written) {
+                closeQuietly(writer);
+                file.delete();
+            }
+        }
+        if (!written) return null;
+
+        long elapsed = SystemClock.elapsedRealtime() - started;
+        Log.i(TAG, "Wrote " + file.length() + " bytes in " + elapsed + " ms");
+        return new Result(file, writer.getMimeType(), file.length(), elapsed, null);
+    }
+
+    private static void pruneShareDir(File dir) {
+        File[] old = dir.listFiles();
+        if (old == null) return;
+        long cutoff = System.currentTimeMillis() - SHARE_KEEP_MS;
+        for (File f : old) {
+            if (f.lastModified() < cutoff) {
+                f.delete();
+            }
+        }
+    }
+
+    private static void closeQuietly(ReportWriter writer) {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // Already failing; the partial file is deleted
+        }
+    }
+
+    // Sections in a fixed order; a cancelled run stops between them
+    void write(Run run, ReportWriter w, int width, int height, float density) throws IOException {
+        w.beginObject();
+        w.name("schemaVersion").value(SCHEMA_VERSION);
+        w.name("generatedAt").value(System.currentTimeMillis());
+        w.name("uptimeMs").value(SystemClock.elapsedRealtime());
+
+        DeviceSnapshot snapshot = collector.collectNow(width, height, density);
+        writeDevice(w, snapshot);
+        writeScore(w, snapshot);
+        if (run.cancelled) return;
+
+        writeBenchmarks(w);
+        writeNetwork(w, snapshot);
+        if (run.cancelled) return;
+
+        writeBattery(run, w);
+        writeBackgroundSamples(run, w);
+        if (run.cancelled) return;
+
+        writeStorage(run, w, snapshot);
+        w.endObject();
+    }
+
+    private static void writeDevice(ReportWriter w, DeviceSnapshot s) throws IOException {
+        w.name("device").beginObject();
+        w.name("model").value(s.model);
+        w.name("manufacturer").value(s.manufacturer);
+        w.name("brand").value(Build.BRAND);
+        w.name("device").value(Build.DEVICE);
+        w.name("hardware").value(Build.HARDWARE);
+        w.name("androidRelease").value(s.androidRelease);
+        w.name("sdkInt").value(s.sdkInt);
+        w.name("fingerprint").value(Build.FINGERPRINT);
+        w.name("buildDisplay").value(s.buildDisplay);
+        w.name("kernelVersion").value(s.kernelVersion);
+        w.name("primaryAbi").value(s.primaryAbi);
+        w.name("supportedAbis").beginArray();
+        String[] abis = Build.SUPPORTED_ABIS;
+        if (abis != null) {
+            for (String abi : abis) {
+                w.value(abi);
+            }
+        }
+        w.endArray();
+        w.name("availableProcessors").value(Runtime.getRuntime().availableProcessors());
+        w.endObject();
+
+        w.name("display").beginObject();
+        if (s.hasDisplay()) {
+            w.name("widthPx").value(s.screenWidth);
+            w.name("heightPx").value(s.screenHeight);
+            w.name("density").value(s.density, 3);
+        }
+        w.endObject();
+
+        w.name("memory").beginObject();
+        w.name("totalBytes").value(s.ramTotalBytes);
+        w.name("availableBytes").value(s.ramAvailableBytes);
+        w.name("tip").value(s.ramTip);
+        w.endObject();
+    }
+
+    private static void writeScore(ReportWriter w, DeviceSnapshot snapshot) throws IOException {
+        if (!snapshot.hasScore()) return;
+
+        w.name("score").beginObject();
+        w.name("total").value(snapshot.getTotalScore());
+        w.name("rating").value(snapshot.getRatingText());
+        w.name("performanceLevel").value(snapshot.getPerformanceLevel());
+        w.name("categories").beginObject();
+        for (int i = 0; i < DeviceScorer.CATEGORY_COUNT; i++) {
+            w.name(CATEGORY_KEYS[i]).beginObject();
+            w.name("score").value(snapshot.getCategoryScore(i));
+            w.name("details").value(snapshot.getCategoryDetails(i));
+            w.endObject();
+        }
+        w.endObject();
+        w.endObject();
+    }
+
+    private void writeBenchmarks(ReportWriter w) throws IOException {
+        w.name("benchmarks").beginObject();
+
+        CpuBenchmark.Result cpu = CpuBenchmark.loadCached(appContext);
+        if (cpu != null) {
+            w.name("cpu").beginObject();
+            w.name("measuredAt").value(cpu.measuredAt);
+            w.name("singleScore").value(cpu.singleScore);
+            w.name("multiScore").value(cpu.multiScore);
+            w.name("threads").value(cpu.threads);
+            w.name("kernels").beginArray();
+            for (int k = 0; k < CpuBenchmark.KERNEL_COUNT; k++) {
+                w.beginObject();
+                w.name("name").value(CpuBenchmark.kernelName(k));
+                w.name("single").value(cpu.singleKernelScores[k]);
+                w.name("multi").value(cpu.multiKernelScores[k]);
+                w.endObject();
+            }
+            w.endArray();
+            w.endObject();
+        }
+
+        MemoryBenchmark.Result memory = MemoryBenchmark.loadCached(appContext);
+        if (memory != null) {
+            w.name("memory").beginObject();
+            w.name("measuredAt").value(memory.measuredAt);
+            w.name("heapCopyMBps").value(memory.heapCopyMBps);
+            w.name("directCopyMBps").value(memory.directCopyMBps);
+            w.name("latency").beginArray();
+            for (int i = 0; i < MemoryBenchmark.WORKING_SET_COUNT; i++) {
+                w.beginObject();
+                w.name("workingSetBytes").value(MemoryBenchmark.workingSetBytes(i));
+                w.name("ns").value(memory.latencyNs[i], 2);
+                w.endObject();
+            }
+            w.endArray();
+            w.name("cacheKneesBytes").beginArray();
+            for (int knee : memory.getCacheKnees()) {
+                w.value(knee);
+            }
+            w.endArray();
+            w.endObject();
+        }
+
+        w.endObject();
+    }
+
+    private static void writeNetwork(ReportWriter w, DeviceSnapshot s) throws IOException {
+        w.name("network").beginObject();
+        if (s.networkInfoAvailable) {
+            w.name("connected").value(s.connected);
+            w.name("type").value(s.networkType);
+            w.name("typeName").value(s.networkTypeName);
+            w.name("subtype").value(s.networkSubtype);
+            w.name("subtypeName").value(s.networkSubtypeName);
+        }
+        if (s.wifiInfoAvailable) {
+            w.name("wifi").beginObject();
+            w.name("ssid").value(s.wifiSsid);
+            w.name("ipAddress").value(DisplayFormat.intToIp(s.wifiIpAddress));
+            w.name("linkSpeedMbps").value(s.wifiLinkSpeed);
+            w.endObject();
+        }
+        w.endObject();
+    }
+
+    private void writeBattery(Run run, ReportWriter w) throws IOException {
+        w.name("battery").beginObject();
+
+        // Free while the Battery tab is listening; one sticky read otherwise
+        BatteryState state = BatteryEventHub.getInstance(appContext).getLatestState();
+        if (state != null && state.isValid()) {
+            w.name("current").beginObject();
+            w.name("timestamp").value(state.timestamp);
+            w.name("levelPercent").value(state.getLevelPercent(), 1);
+            w.name("level").value(state.level);
+            w.name("scale").value(state.scale);
+            w.name("status").value(state.status);
+            w.name("charging").value(state.isCharging());
+            w.name("plugged").value(state.plugged);
+            w.name("health").value(state.health);
+            w.name("temperatureTenthsC");
+            if (state.temperature != BatteryState.TEMPERATURE_UNKNOWN) {
+                w.value(state.temperature);
+            } else {
+                w.nullValue();
+            }
+            w.name("voltageMv").value(state.voltage);
+            w.name("technology").value(state.technology);
+            w.endObject();
+        }
+
+        BatteryHistoryStore history = BatteryHistoryStore.getInstance(appContext);
+        if (history != null) {
+            w.name("sessionStart").beginObject();
+            w.name("timestamp").value(history.getSessionStartTime());
+            w.name("levelPercent").value(history.getSessionStartLevel(), 1);
+            w.endObject();
+
+            // Column per field, as the store keeps them; row i of every
+            // column is one sample, oldest first
+            BatteryHistoryStore.Samples samples = new BatteryHistoryStore.Samples(BatteryHistoryStore.CAPACITY);
+            int n = history.readRange(0, Long.MAX_VALUE, samples);
+            w.name("history").beginObject();
+            w.name("count").value(n);
+            w.name("timestamps").beginArray();
+            for (int i = 0; i < n; i++) {
+                w.value(samples.timestamps[i]);
+            }
+            w.endArray();
+            if (run.cancelled) return;
+            w.name("levelPercent").beginArray();
+            for (int i = 0; i < n; i++) {
+                w.value(samples.levels[i], 1);
+            }
+            w.endArray();
+            w.name("temperatureC").beginArray();
+            // Missing readings are NaN and come out as null
+            for (int i = 0; i < n; i++) {
+                w.value(samples.temperatures[i], 1);
+            }
+            w.endArray();
+            w.name("voltageMv").beginArray();
+            for (int i = 0; i < n; i++) {
+                w.value(samples.voltages[i]);
+            }
+            w.endArray();
+            w.name("status").beginArray();
+            for (int i = 0; i < n; i++) {
+                w.value(samples.statuses[i]);
+            }
+            w.endArray();
+            w.name("plugged").beginArray();
+            for (int i = 0; i < n; i++) {
+                w.value(samples.plugged[i]);
+            }
+            w.endArray();
+            w.endObject();
+        }
+
+        w.endObject();
+    }
+
+    // SamplingJobService's log, with what the job itself has cost
+    private void writeBackgroundSamples(Run run, ReportWriter w) throws IOException {
+        w.name("backgroundSampling").beginObject();
+        w.name("intervalMs").value(SamplingJobService.getIntervalMs(appContext));
+
+        BackgroundSampleLog log = BackgroundSampleLog.getInstance(appContext);
+        if (log != null) {
+            w.name("wakeups").value(log.getWakeupCount());
+            w.name("runs").value(log.getRunCount());
+            w.name("stopped").value(log.getStopCount());
+            w.name("cpuMicros").value(log.getCpuMicros());
+            w.name("firstRunAt").value(log.getFirstRunTime());
+
+            BackgroundSampleLog.Sample sample = new BackgroundSampleLog.Sample();
+            int n = log.size();
+            w.name("samples").beginArray();
+            for (int i = 0; i < n && !run.cancelled; i++) {
+                log.read(i, sample);
+                w.beginObject();
+                w.name("timestamp").value(sample.timestamp);
+                w.name("batteryLevelPercent").value(sample.batteryLevel, 1);
+                w.name("temperatureTenthsC");
+                if (sample.temperature != BatteryState.TEMPERATURE_UNKNOWN) {
+                    w.value(sample.temperature);
+                } else {
+                    w.nullValue();
+                }
+                w.name("voltageMv").value(sample.voltage);
+                w.name("status").value(sample.status);
+                w.name("plugged").value(sample.plugged);
+                w.name("ramTotalBytes").value(sample.ramTotalBytes);
+                w.name("ramAvailableBytes").value(sample.ramAvailableBytes);
+                w.name("lowMemory").value(sample.lowMemory);
+                w.name("storageTotalBytes").value(sample.storageTotalBytes);
+                w.name("storageAvailableBytes").value(sample.storageAvailableBytes);
+                w.name("networkType").value(sample.networkType);
+                w.name("connected").value(sample.connected);
+                w.name("rxBytes").value(sample.rxBytes);
+                w.name("txBytes").value(sample.txBytes);
+                w.name("cpuMicros").value(sample.cpuMicros);
+                w.name("wallMicros").value(sample.wallMicros);
+                w.endObject();
+            }
+            w.endArray();
+        }
+
+        w.endObject();
+    }
+
+    private void writeStorage(Run run, ReportWriter w, DeviceSnapshot s) throws IOException {
+        w.name("storage").beginObject();
+        w.name("totalBytes").value(s.storageTotalBytes);
+        w.name("availableBytes").value(s.storageAvailableBytes);
+        w.name("tip").value(s.storageTip);
+
+        w.name("volumes").beginArray();
+        writeVolume(w, "data", Environment.getDataDirectory());
+        writeVolume(w, "system", Environment.getRootDirectory());
+        File[] external = appContext.getExternalFilesDirs(null);
+        if (external != null) {
+            for (int i = 0; i < external.length; i++) {
+                if (external[i] == null) continue;
+                writeVolume(w, i == 0 ? "shared" : "removable" + i, external[i]);
+            }
+        }
+        w.endArray();
+
+        // Breakdown of every root the Files tab has analyzed, from its index
+        w.name("analyses").beginArray();
+        File indexDir = FileExplorerFragment.indexDir(appContext);
+        for (File root : FileExplorerFragment.analysisRoots(appContext)) {
+            if (run.cancelled) break;
+            if (root == null) continue;
+            String canonical;
+            try {
+                canonical = root.getCanonicalPath();
+            } catch (IOException e) {
+                continue;
+            }
+            StorageIndex index = StorageIndex.open(StorageIndex.fileFor(indexDir, canonical), canonical);
+            if (index != null) {
+                writeAnalysis(w, canonical, index);
+            }
+        }
+        w.endArray();
+
+        w.endObject();
+    }
+
+    private static void writeVolume(ReportWriter w, String name, File path) throws IOException {
+        if (path == null) return;
+        try {
+            StatFs stat = new StatFs(path.getPath());
+            w.beginObject();
+            w.name("name").value(name);
+            w.name("path").value(path.getPath());
+            w.name("totalBytes").value(stat.getBlockCountLong() * stat.getBlockSizeLong());
+            w.name("availableBytes").value(stat.getAvailableBlocksLong() * stat.getBlockSizeLong());
+            w.endObject();
+        } catch (IllegalArgumentException e) {
+            // Unmounted while we looked; leave it out
+        }
+    }
+
+    // The root's own files and, per top-level directory, its totals
+    private static void writeAnalysis(ReportWriter w, String rootPath, StorageIndex index) throws IOException {
+        StorageIndex.Node root = index.root();
+        w.beginObject();
+        w.name("root").value(rootPath);
+        w.name("dirCount").value(index.getDirCount());
+        w.name("ownBytes").value(root.ownBytes);
+        w.name("ownFiles").value(root.ownFiles);
+        w.name("largestFiles").beginArray();
+        for (int i = 0; i < root.topSizes.length; i++) {
+            w.beginObject();
+            w.name("name").value(root.topNames[i]);
+            w.name("bytes").value(root.topSizes[i]);
+            w.endObject();
+        }
+        w.endArray();
+
+        long[] totals = new long[2];
+        w.name("children").beginArray();
+        for (int i = 0; i < root.getChildCount(); i++) {
+            StorageIndex.Node child = root.child(i);
+            totals[0] = 0;
+            totals[1] = 0;
+            addTotals(child, totals);
+            w.beginObject();
+            w.name("name").value(child.name);
+            w.name("bytes").value(totals[0]);
+            w.name("files").value(totals[1]);
+            w.endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+
+    private static void addTotals(StorageIndex.Node node, long[] totals) {
+        totals[0] += node.ownBytes;
+        totals[1] += node.ownFiles;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            addTotals(node.child(i), totals);
+        }
+    }
+}
@@ -1,28 +1,40 @@
 package com.lionico.devinspect;
 
-import android.app.ActivityManager;
-import android.content.Context;
-import android.os.Build;
-import android.os.StatFs;
-import android.os.Environment;
-import android.util.DisplayMetrics;
-import android.graphics.Color;
-import java.util.HashMap;
-import java.util.Map;
-
+// Plain Java on purpose: callers collect the inputs (see DeviceSnapshotCollector)
+// and the scorer only turns numbers into scores.
 public class DeviceScorer {
 
+    // Category indexes into ScoreResult arrays
+    public static final int CATEGORY_ANDROID = 0;
+    public static final int CATEGORY_RAM = 1;
+    public static final int CATEGORY_STORAGE = 2;
+    public static final int CATEGORY_SCREEN = 3;
+    public static final int CATEGORY_CPU = 4;
+    public static final int CATEGORY_COUNT = 5;
+
     public static class ScoreResult {
         public int totalScore;
         public String ratingText;
         public int color;
         public String performanceLevel;
-        public Map<String, Integer> categoryScores;
-        public Map<String, String> categoryDetails;
+        public final int[] categoryScores = new int[CATEGORY_COUNT];
+        public final String[] categoryDetails = new String[CATEGORY_COUNT];
+
+        public int getScore(int category) {
+            return categoryScores[category];
+        }
 
-        public ScoreResult() {
-            categoryScores = new HashMap<String, Integer>();
-            categoryDetails = new HashMap<String, String>();
+        public String getDetails(int category) {
+            return categoryDetails[category];
+        }
+
+        public void copyFrom(ScoreResult other) {
+            totalScore = other.totalScore;
+            ratingText = other.ratingText;
+            color = other.color;
+            performanceLevel = other.performanceLevel;
+            System.arraycopy(other.categoryScores, 0, categoryScores, 0, CATEGORY_COUNT);
+            System.arraycopy(other.categoryDetails, 0, categoryDetails, 0, CATEGORY_COUNT);
         }
     }
 
@@ -33,36 +45,173 @@ public class DeviceScorer {
     private static final int WEIGHT_SCREEN = 15;
     private static final int WEIGHT_CPU = 10;
 
-    public static ScoreResult calculateDeviceScore(Context context, DisplayMetrics displayMetrics) {
-        ScoreResult result = new ScoreResult();
+    // Rating colors (ARGB)
+    private static final int COLOR_EXCELLENT = 0xFF4CAF50;
+    private static final int COLOR_GOOD = 0xFF8BC34A;
+    private static final int COLOR_AVERAGE = 0xFFFFC107;
+    private static final int COLOR_BASIC = 0xFFFF9800;
+    private static final int COLOR_LIMITED = 0xFFF44336;
+
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    // SDK, ABI, CPU and display do not change while the process lives, so
+    // their scores are computed once and only rebuilt if a caller passes new
+    // inputs, e.g. once a CPU benchmark result arrives
+    private static final class StaticScores {
+        final int sdkInt;
+        final String primaryAbi;
+        final int cpuSingleScore;
+        final int cpuMultiScore;
+        final int screenWidth;
+        final int screenHeight;
+        final float density;
+
+        final int androidScore;
+        final int screenScore;
+        final int cpuScore;
+        final String androidDetails;
+        final String screenDetails;
+        final String cpuDetails;
+
+        StaticScores(int sdkInt, String primaryAbi, int cpuSingleScore, int cpuMultiScore,
+                     int screenWidth, int screenHeight, float density) {
+            this.sdkInt = sdkInt;
+            this.primaryAbi = primaryAbi;
+            this.cpuSingleScore = cpuSingleScore;
+            this.cpuMultiScore = cpuMultiScore;
+            this.screenWidth = screenWidth;
+            this.screenHeight = screenHeight;
+            this.density = density;
+
+            androidScore = calculateAndroidScore(sdkInt);
+            screenScore = calculateScreenScore(screenWidth, screenHeight, density);
+            cpuScore = cpuSingleScore > 0
+                ? calculateMeasuredCpuScore(cpuSingleScore, cpuMultiScore)
+                : calculateCpuScore(primaryAbi);
+            androidDetails = getAndroidDetails(androidScore);
+            screenDetails = getScreenDetails(screenScore, screenWidth, screenHeight);
+            cpuDetails = cpuSingleScore > 0
+                ? getMeasuredCpuDetails(cpuSingleScore, cpuMultiScore)
+                : getCpuDetails(cpuScore);
+        }
+
+        boolean matches(int sdkInt, String primaryAbi, int cpuSingleScore, int cpuMultiScore,
+                        int screenWidth, int screenHeight, float density) {
+            return this.sdkInt == sdkInt
+                && this.cpuSingleScore == cpuSingleScore
+                && this.cpuMultiScore == cpuMultiScore
+                && this.screenWidth == screenWidth
+                && this.screenHeight == screenHeight
+                && this.density == density
+                && (this.primaryAbi == null ? primaryAbi == null : this.primaryAbi.equals(primaryAbi));
+        }
+    }
+
+    // RAM and storage scores only depend on the whole-GB bucket of the
+    // input, plus the measured memory speed for RAM, so the last bucket's
+    // score and details string are kept
+    private static final class BucketScore {
+        final long bucket;
+        final int bandwidthMBps;
+        final int latencyNs;
+        final int score;
+        final String details;
+
+        BucketScore(long bucket, int score, String details) {
+            this(bucket, 0, 0, score, details);
+        }
+
+        BucketScore(long bucket, int bandwidthMBps, int latencyNs, int score, String details) {
+            this.bucket = bucket;
+            this.bandwidthMBps = bandwidthMBps;
+            this.latencyNs = latencyNs;
+            this.score = score;
+            this.details = details;
+        }
+    }
+
+    // The memoized scores for the last inputs seen. The live path shares
+    // one; BulkScorer gives each worker its own, so workers scoring
+    // different devices do not keep evicting each other's entries.
+    static final class Scratch {
+        volatile StaticScores staticScores;
+        volatile BucketScore lastRamScore;
+        volatile BucketScore lastStorageScore;
+    }
+
+    private static final Scratch SHARED = new Scratch();
+
+    // Negative or zero RAM/storage/display inputs mean "unknown"
+    public static ScoreResult calculateDeviceScore(int sdkInt, String primaryAbi,
+                                                   long totalRamBytes, long totalStorageBytes,
+                                                   int screenWidth, int screenHeight, float density) {
+        return calculateDeviceScore(sdkInt, primaryAbi, totalRamBytes, totalStorageBytes,
+                                    screenWidth, screenHeight, density, new ScoreResult());
+    }
+
+    public static ScoreResult calculateDeviceScore(int sdkInt, String primaryAbi,
+                                                   long totalRamBytes, long totalStorageBytes,
+                                                   int screenWidth, int screenHeight, float density,
+                                                   ScoreResult result) {
+        return calculateDeviceScore(sdkInt, primaryAbi, 0, 0, totalRamBytes, 0, 0, totalStorageBytes,
+                                    screenWidth, screenHeight, density, result);
+    }
+
+    // Fills and returns the given result. Once the memo is warm this does
+    // not allocate, which makes it cheap enough to run on every sample of
+    // a live monitor. CPU scores come from CpuBenchmark, memory copy
+    // bandwidth and latency from MemoryBenchmark; zero or less means not
+    // measured, and the ABI or the RAM size alone decides the category.
+    public static ScoreResult calculateDeviceScore(int sdkInt, String primaryAbi,
+                                                   int cpuSingleScore, int cpuMultiScore,
+                                                   long totalRamBytes, int memoryBandwidthMBps, int memoryLatencyNs,
+                                                   long totalStorageBytes,
+                                                   int screenWidth, int screenHeight, float density,
+                                                   ScoreResult result) {
+        return calculateDeviceScore(SHARED, sdkInt, primaryAbi, cpuSingleScore, cpuMultiScore,
+                                    totalRamBytes, memoryBandwidthMBps, memoryLatencyNs, totalStorageBytes,
+                                    screenWidth, screenHeight, density, result);
+    }
+
+    static ScoreResult calculateDeviceScore(Scratch scratch, int sdkInt, String primaryAbi,
+                                            int cpuSingleScore, int cpuMultiScore,
+                                            long totalRamBytes, int memoryBandwidthMBps, int memoryLatencyNs,
+                                            long totalStorageBytes,
+                                            int screenWidth, int screenHeight, float density,
+                                            ScoreResult result) {
+        StaticScores statics = scratch.staticScores;
+        if (statics == null || !statics.matches(sdkInt, primaryAbi, cpuSingleScore, cpuMultiScore,
+                                                screenWidth, screenHeight, density)) {
+            statics = new StaticScores(sdkInt, primaryAbi, cpuSingleScore, cpuMultiScore,
+                                       screenWidth, screenHeight, density);
+            scratch.staticScores = statics;
+        }
 
-        // Calculate individual category scores
-        int androidScore = calculateAndroidScore();
-        int ramScore = calculateRamScore(context);
-        int storageScore = calculateStorageScore();
-        int screenScore = calculateScreenScore(displayMetrics);
-        int cpuScore = calculateCpuScore();
+        BucketScore ram = ramScore(scratch, totalRamBytes, memoryBandwidthMBps, memoryLatencyNs);
+        BucketScore storage = storageScore(scratch, totalStorageBytes);
 
         // Store individual scores
-        result.categoryScores.put("android", androidScore);
-        result.categoryScores.put("ram", ramScore);
-        result.categoryScores.put("storage", storageScore);
-        result.categoryScores.put("screen", screenScore);
-        result.categoryScores.put("cpu", cpuScore);
+        int[] scores = result.categoryScores;
+        scores[CATEGORY_ANDROID] = statics.androidScore;
+        scores[CATEGORY_RAM] = ram.score;
+        scores[CATEGORY_STORAGE] = storage.score;
+        scores[CATEGORY_SCREEN] = statics.screenScore;
+        scores[CATEGORY_CPU] = statics.cpuScore;
 
         // Store details
-        result.categoryDetails.put("android", getAndroidDetails(androidScore));
-        result.categoryDetails.put("ram", getRamDetails(ramScore, context));
-        result.categoryDetails.put("storage", getStorageDetails(storageScore));
-        result.categoryDetails.put("screen", getScreenDetails(screenScore, displayMetrics));
-        result.categoryDetails.put("cpu", getCpuDetails(cpuScore));
+        String[] details = result.categoryDetails;
+        details[CATEGORY_ANDROID] = statics.androidDetails;
+        details[CATEGORY_RAM] = ram.details;
+        details[CATEGORY_STORAGE] = storage.details;
+        details[CATEGORY_SCREEN] = statics.screenDetails;
+        details[CATEGORY_CPU] = statics.cpuDetails;
 
         // Calculate weighted total
-        int totalScore = (androidScore * WEIGHT_ANDROID / 25) +
-			(ramScore * WEIGHT_RAM / 30) +
-			(storageScore * WEIGHT_STORAGE / 20) +
-			(screenScore * WEIGHT_SCREEN / 15) +
-			(cpuScore * WEIGHT_CPU / 10);
+        int totalScore = (statics.androidScore * WEIGHT_ANDROID / 25) +
+            (ram.score * WEIGHT_RAM / 30) +
+            (storage.score * WEIGHT_STORAGE / 20) +
+            (statics.screenScore * WEIGHT_SCREEN / 15) +
+            (statics.cpuScore * WEIGHT_CPU / 10);
 
         // Normalize to 0-100
         totalScore = Math.min(100, Math.max(0, totalScore));
@@ -71,32 +220,65 @@ public class DeviceScorer {
         // Determine rating
         if (totalScore >= 85) {
             result.ratingText = "Excellent";
-            result.color = Color.parseColor("#4CAF50");
+            result.color = COLOR_EXCELLENT;
             result.performanceLevel = "High-performance device";
         } else if (totalScore >= 70) {
             result.ratingText = "Good";
-            result.color = Color.parseColor("#8BC34A");
+            result.color = COLOR_GOOD;
             result.performanceLevel = "Capable device for most tasks";
         } else if (totalScore >= 55) {
             result.ratingText = "Average";
-            result.color = Color.parseColor("#FFC107");
+            result.color = COLOR_AVERAGE;
             result.performanceLevel = "Suitable for everyday use";
         } else if (totalScore >= 40) {
             result.ratingText = "Basic";
-            result.color = Color.parseColor("#FF9800");
+            result.color = COLOR_BASIC;
             result.performanceLevel = "Entry-level performance";
         } else {
             result.ratingText = "Limited";
-            result.color = Color.parseColor("#F44336");
+            result.color = COLOR_LIMITED;
             result.performanceLevel = "May struggle with demanding apps";
         }
 
         return result;
     }
 
-    private static int calculateAndroidScore() {
-        int sdk = Build.VERSION.SDK_INT;
+    private static BucketScore ramScore(Scratch scratch, long totalRamBytes, int bandwidthMBps, int latencyNs) {
+        long bucket = totalRamBytes < 0 ? -1 : totalRamBytes / GB;
+        if (bandwidthMBps <= 0 || latencyNs <= 0) {
+            bandwidthMBps = 0;
+            latencyNs = 0;
+        }
+        BucketScore last = scratch.lastRamScore;
+        if (last != null && last.bucket == bucket
+            && last.bandwidthMBps == bandwidthMBps && last.latencyNs == latencyNs) return last;
+
+        int score;
+        String details;
+        if (bandwidthMBps > 0) {
+            score = calculateMeasuredRamScore(bucket, bandwidthMBps, latencyNs);
+            details = getMeasuredRamDetails(bucket, bandwidthMBps, latencyNs);
+        } else {
+            score = calculateRamScore(bucket);
+            details = getRamDetails(score, bucket);
+        }
+        last = new BucketScore(bucket, bandwidthMBps, latencyNs, score, details);
+        scratch.lastRamScore = last;
+        return last;
+    }
+
+    private static BucketScore storageScore(Scratch scratch, long totalStorageBytes) {
+        long bucket = totalStorageBytes < 0 ? -1 : totalStorageBytes / GB;
+        BucketScore last = scratch.lastStorageScore;
+        if (last != null && last.bucket == bucket) return last;
+
+        int score = calculateStorageScore(bucket);
+        last = new BucketScore(bucket, score, getStorageDetails(score, bucket));
+        scratch.lastStorageScore = last;
+        return last;
+    }
 
+    private static int calculateAndroidScore(int sdk) {
         if (sdk >= 33) return 25;      // Android 13+
         else if (sdk >= 31) return 22; // Android 12-12L
         else if (sdk >= 30) return 20; // Android 11
@@ -108,88 +290,73 @@ public class DeviceScorer {
         else return 5;                 // Older
     }
 
-    private static int calculateRamScore(Context context) {
-        try {
-            if (context == null) return 10;
+    private static int calculateRamScore(long totalRamGB) {
+        if (totalRamGB < 0) return 10;
 
-            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-            if (am == null) return 10;
+        if (totalRamGB >= 12) return 30;      // 12GB+
+        else if (totalRamGB >= 8) return 27;  // 8GB
+        else if (totalRamGB >= 6) return 24;  // 6GB
+        else if (totalRamGB >= 4) return 20;  // 4GB
+        else if (totalRamGB >= 3) return 16;  // 3GB
+        else if (totalRamGB >= 2) return 12;  // 2GB
+        else return 8;                        // <2GB
+    }
 
-            ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
-            am.getMemoryInfo(mi);
-            long totalRamGB = mi.totalMem / (1024 * 1024 * 1024);
+    // Size still counts most, scaled to 20 of the 30 points; copy bandwidth
+    // and DRAM latency add up to 5 points each
+    private static int calculateMeasuredRamScore(long totalRamGB, int bandwidthMBps, int latencyNs) {
+        int score = (calculateRamScore(totalRamGB) * 2 + 1) / 3;
 
-            if (totalRamGB >= 12) return 30;      // 12GB+
-            else if (totalRamGB >= 8) return 27;  // 8GB
-            else if (totalRamGB >= 6) return 24;  // 6GB
-            else if (totalRamGB >= 4) return 20;  // 4GB
-            else if (totalRamGB >= 3) return 16;  // 3GB
-            else if (totalRamGB >= 2) return 12;  // 2GB
-            else return 8;                        // <2GB
+        if (bandwidthMBps >= 12000) score += 5;
+        else if (bandwidthMBps >= 8000) score += 4;
+        else if (bandwidthMBps >= 5000) score += 3;
+        else if (bandwidthMBps >= 3000) score += 2;
+        else if (bandwidthMBps >= 1500) score += 1;
 
-        } catch (Exception e) {
-            return 10;
-        }
-    }
+        if (latencyNs <= 120) score += 5;
+        else if (latencyNs <= 160) score += 4;
+        else if (latencyNs <= 210) score += 3;
+        else if (latencyNs <= 270) score += 2;
+        else if (latencyNs <= 350) score += 1;
 
-    private static int calculateStorageScore() {
-        try {
-            StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
-            long totalBytes = stat.getBlockCountLong() * stat.getBlockSizeLong();
-            long totalGB = totalBytes / (1024 * 1024 * 1024);
-
-            if (totalGB >= 256) return 20;    // 256GB+
-            else if (totalGB >= 128) return 18; // 128GB
-            else if (totalGB >= 64) return 16;  // 64GB
-            else if (totalGB >= 32) return 14;  // 32GB
-            else if (totalGB >= 16) return 12;  // 16GB
-            else return 10;                     // <16GB
-
-        } catch (Exception e) {
-            return 10;
-        }
+        return Math.min(30, score);
     }
 
-    private static int calculateScreenScore(DisplayMetrics displayMetrics) {
-        try {
-            if (displayMetrics == null) return 8;
+    private static int calculateStorageScore(long totalGB) {
+        if (totalGB < 0) return 10;
 
-            int width = displayMetrics.widthPixels;
-            int height = displayMetrics.heightPixels;
-            int totalPixels = width * height;
-            float density = displayMetrics.density;
+        if (totalGB >= 256) return 20;    // 256GB+
+        else if (totalGB >= 128) return 18; // 128GB
+        else if (totalGB >= 64) return 16;  // 64GB
+        else if (totalGB >= 32) return 14;  // 32GB
+        else if (totalGB >= 16) return 12;  // 16GB
+        else return 10;                     // <16GB
+    }
 
-            int score = 0;
+    private static int calculateScreenScore(int width, int height, float density) {
+        if (width <= 0 || height <= 0) return 8;
 
-            // Resolution score
-            if (totalPixels >= 4000000) score += 10;    // 4K+
-            else if (totalPixels >= 2000000) score += 8; // Full HD
-            else if (totalPixels >= 1000000) score += 6; // HD
-            else score += 4;                            // Lower
+        int totalPixels = width * height;
 
-            // Density bonus
-            if (density >= 3.0) score += 5;    // xxhdpi+
-            else if (density >= 2.0) score += 3; // xhdpi
-            else if (density >= 1.5) score += 2; // hdpi
-            else score += 1;                    // mdpi or lower
+        int score = 0;
 
-            return Math.min(15, score);
+        // Resolution score
+        if (totalPixels >= 4000000) score += 10;    // 4K+
+        else if (totalPixels >= 2000000) score += 8; // Full HD
+        else if (totalPixels >= 1000000) score += 6; // HD
+        else score += 4;                            // Lower
 
-        } catch (Exception e) {
-            return 8;
-        }
+        // Density bonus
+        if (density >= 3.0) score += 5;    // xxhdpi+
+        else if (density >= 2.0) score += 3; // xhdpi
+        else if (density >= 1.5) score += 2; // hdpi
+        else score += 1;                    // mdpi or lower
+
+        return Math.min(15, score);
     }
 
-    private static int calculateCpuScore() {
-        String cpuAbi = "";
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            String[] abis = Build.SUPPORTED_ABIS;
-            if (abis != null && abis.length > 0) {
-                cpuAbi = abis[0].toLowerCase();
-            }
-        } else {
-            cpuAbi = Build.CPU_ABI.toLowerCase();
-        }
+    private static int calculateCpuScore(String primaryAbi) {
+        String cpuAbi = primaryAbi != null ? primaryAbi.toLowerCase() : "";
 
         if (cpuAbi.contains("arm64-v8a")) return 10;
         else if (cpuAbi.contains("armeabi-v7a")) return 7;
@@ -198,6 +365,26 @@ public class DeviceScorer {
         else return 5;
     }
 
+    // Single-core speed decides most of the category, since that is what
+    // makes an app feel fast; all cores together add up to 4 points.
+    // 1000 is one core of CpuBenchmark's reference machine.
+    private static int calculateMeasuredCpuScore(int single, int multi) {
+        int score;
+        if (single >= 800) score = 6;
+        else if (single >= 550) score = 5;
+        else if (single >= 350) score = 4;
+        else if (single >= 200) score = 3;
+        else if (single >= 100) score = 2;
+        else score = 1;
+
+        if (multi >= 4000) score += 4;
+        else if (multi >= 2400) score += 3;
+        else if (multi >= 1200) score += 2;
+        else if (multi >= 600) score += 1;
+
+        return score;
+    }
+
     private static String getAndroidDetails(int score) {
         if (score >= 22) return "Latest Android version";
         else if (score >= 18) return "Modern Android version";
@@ -206,42 +393,27 @@ public class DeviceScorer {
         else return "Outdated Android version";
     }
 
-    private static String getRamDetails(int score, Context context) {
-        try {
-            if (context == null) return "Unknown RAM";
-
-            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-            if (am == null) return "Unknown RAM";
-
-            ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
-            am.getMemoryInfo(mi);
-            long totalRamGB = mi.totalMem / (1024 * 1024 * 1024);
+    private static String getRamDetails(int score, long totalRamGB) {
+        if (totalRamGB < 0) return "Unknown RAM";
 
-            return totalRamGB + " GB RAM";
-
-        } catch (Exception e) {
-            return "Unknown RAM";
-        }
+        return totalRamGB + " GB RAM";
     }
 
-    private static String getStorageDetails(int score) {
-        try {
-            StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
-            long totalBytes = stat.getBlockCountLong() * stat.getBlockSizeLong();
-            long totalGB = totalBytes / (1024 * 1024 * 1024);
+    private static String getMeasuredRamDetails(long totalRamGB, int bandwidthMBps, int latencyNs) {
+        String size = totalRamGB < 0 ? "Unknown RAM" : totalRamGB + " GB RAM";
+        return size + ", " + DisplayFormat.appendFixed(new StringBuilder(), bandwidthMBps / 1024.0, 1, '.')
+            + " GB/s, " + latencyNs + " ns";
+    }
 
-            return totalGB + " GB storage";
+    private static String getStorageDetails(int score, long totalGB) {
+        if (totalGB < 0) return "Unknown storage";
 
-        } catch (Exception e) {
-            return "Unknown storage";
-        }
+        return totalGB + " GB storage";
     }
 
-    private static String getScreenDetails(int score, DisplayMetrics displayMetrics) {
-        if (displayMetrics == null) return "Unknown display";
+    private static String getScreenDetails(int score, int width, int height) {
+        if (width <= 0 || height <= 0) return "Unknown display";
 
-        int width = displayMetrics.widthPixels;
-        int height = displayMetrics.heightPixels;
         return width + "x" + height + " display";
     }
 
@@ -251,43 +423,47 @@ public class DeviceScorer {
         else return "Basic processor";
     }
 
-    public static String generatePerformanceTips(ScoreResult result, Context context) {
+    private static String getMeasuredCpuDetails(int single, int multi) {
+        return "CPU " + single + " single-core, " + multi + " multi-core";
+    }
+
+    public static String generatePerformanceTips(ScoreResult result) {
         StringBuilder tips = new StringBuilder();
         tips.append("Performance Analysis:\n\n");
 
         // Android tips
-        Integer androidScore = result.categoryScores.get("android");
-        if (androidScore != null && androidScore < 15) {
+        int androidScore = result.categoryScores[CATEGORY_ANDROID];
+        if (androidScore < 15) {
             tips.append("• Update Android: Your version is outdated for security and features\n");
-        } else if (androidScore != null && androidScore >= 20) {
+        } else if (androidScore >= 20) {
             tips.append("• ✓ Android: You're running a recent, secure version\n");
         }
 
         // RAM tips
-        Integer ramScore = result.categoryScores.get("ram");
-        if (ramScore != null && ramScore < 16) {
+        int ramScore = result.categoryScores[CATEGORY_RAM];
+        if (ramScore < 16) {
             tips.append("• Manage RAM: Close unused apps, limit background processes\n");
-        } else if (ramScore != null && ramScore >= 24) {
+        } else if (ramScore >= 24) {
             tips.append("• ✓ RAM: Plenty of memory for multitasking\n");
         }
 
         // Storage tips
-        Integer storageScore = result.categoryScores.get("storage");
-        if (storageScore != null && storageScore < 14) {
+        int storageScore = result.categoryScores[CATEGORY_STORAGE];
+        if (storageScore < 14) {
             tips.append("• Storage: Consider cloud services or external storage\n");
         }
 
         // Screen tips
-        Integer screenScore = result.categoryScores.get("screen");
-        if (screenScore != null && screenScore < 10) {
+        int screenScore = result.categoryScores[CATEGORY_SCREEN];
+        if (screenScore < 10) {
             tips.append("• Display: Lower resolution - good for battery life\n");
-        } else if (screenScore != null && screenScore >= 12) {
+        } else if (screenScore >= 12) {
             tips.append("• ✓ Display: Excellent screen quality\n");
         }
 
         // CPU tips
-        Integer cpuScore = result.categoryScores.get("cpu");
-        if (cpuScore != null && cpuScore < 7) {
+        int cpuScore = result.categoryScores[CATEGORY_CPU];
+        if (cpuScore < 7) {
             tips.append("• Processor: May struggle with heavy apps/games\n");
         }
 
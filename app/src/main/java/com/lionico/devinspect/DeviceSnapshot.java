@@ -0,0 +1,287 @@
+package com.lionico.devinspect;
+
+// Immutable result of one Device tab refresh. Built on a worker thread by
+// DeviceSnapshotCollector and handed to the UI thread for rendering only.
+// The score and the cache knees are copied on build and only readable
+// through accessors, so no consumer can change what others see.
+public final class DeviceSnapshot {
+
+    public static final long UNKNOWN = -1;
+
+    // Static device info
+    public final String model;
+    public final String manufacturer;
+    public final String androidRelease;
+    public final int sdkInt;
+    public final String primaryAbi;
+    public final String kernelVersion;
+    public final String buildDisplay;
+
+    // Display (0 when metrics were not available)
+    public final int screenWidth;
+    public final int screenHeight;
+    public final float density;
+
+    // Storage and memory, in bytes (UNKNOWN when the query failed)
+    public final long storageTotalBytes;
+    public final long storageAvailableBytes;
+    public final long ramTotalBytes;
+    public final long ramAvailableBytes;
+
+    // Network
+    public final boolean networkInfoAvailable;
+    public final boolean connected;
+    public final int networkType;
+    public final String networkTypeName;
+    public final int networkSubtype;
+    public final String networkSubtypeName;
+    public final boolean wifiInfoAvailable;
+    public final String wifiSsid;
+    public final int wifiIpAddress;
+    public final int wifiLinkSpeed;
+
+    // Cached CpuBenchmark scores for this build (0 until measured)
+    public final int cpuSingleScore;
+    public final int cpuMultiScore;
+    public final int cpuThreads;
+
+    // Cached MemoryBenchmark results for this build (0 and null until measured)
+    public final int memoryHeapCopyMBps;
+    public final int memoryDirectCopyMBps;
+    public final int memoryLatencyNs;
+    private final int[] memoryCacheKnees;
+
+    // Derived values, computed off the UI thread
+    private final DeviceScorer.ScoreResult score;
+    public final String storageTip;
+    public final String ramTip;
+
+    public final long timestamp;
+
+    private DeviceSnapshot(Builder b) {
+        model = b.model;
+        manufacturer = b.manufacturer;
+        androidRelease = b.androidRelease;
+        sdkInt = b.sdkInt;
+        primaryAbi = b.primaryAbi;
+        kernelVersion = b.kernelVersion;
+        buildDisplay = b.buildDisplay;
+        screenWidth = b.screenWidth;
+        screenHeight = b.screenHeight;
+        density = b.density;
+        storageTotalBytes = b.storageTotalBytes;
+        storageAvailableBytes = b.storageAvailableBytes;
+        ramTotalBytes = b.ramTotalBytes;
+        ramAvailableBytes = b.ramAvailableBytes;
+        networkInfoAvailable = b.networkInfoAvailable;
+        connected = b.connected;
+        networkType = b.networkType;
+        networkTypeName = b.networkTypeName;
+        networkSubtype = b.networkSubtype;
+        networkSubtypeName = b.networkSubtypeName;
+        wifiInfoAvailable = b.wifiInfoAvailable;
+        wifiSsid = b.wifiSsid;
+        wifiIpAddress = b.wifiIpAddress;
+        wifiLinkSpeed = b.wifiLinkSpeed;
+        cpuSingleScore = b.cpuSingleScore;
+        cpuMultiScore = b.cpuMultiScore;
+        cpuThreads = b.cpuThreads;
+        memoryHeapCopyMBps = b.memoryHeapCopyMBps;
+        memoryDirectCopyMBps = b.memoryDirectCopyMBps;
+        memoryLatencyNs = b.memoryLatencyNs;
+        memoryCacheKnees = b.memoryCacheKnees != null ? b.memoryCacheKnees.clone() : new int[0];
+        if (b.score != null) {
+            score = new DeviceScorer.ScoreResult();
+            score.copyFrom(b.score);
+        } else {
+            score = null;
+        }
+        storageTip = b.storageTip;
+        ramTip = b.ramTip;
+        timestamp = b.timestamp;
+    }
+
+    public boolean hasDisplay() {
+        return screenWidth > 0 && screenHeight > 0;
+    }
+
+    public boolean hasStorage() {
+        return storageTotalBytes > 0 && storageAvailableBytes >= 0;
+    }
+
+    public boolean hasRam() {
+        return ramTotalBytes > 0 && ramAvailableBytes >= 0;
+    }
+
+    public boolean hasCpuBenchmark() {
+        return cpuSingleScore > 0 && cpuMultiScore > 0;
+    }
+
+    public boolean hasMemoryBenchmark() {
+        return memoryHeapCopyMBps > 0 && memoryLatencyNs > 0;
+    }
+
+    // Working-set sizes in bytes where memory latency steps up; none until
+    // the memory benchmark ran
+    public int getMemoryCacheKneeCount() {
+        return memoryCacheKnees.length;
+    }
+
+    public int getMemoryCacheKnee(int index) {
+        return memoryCacheKnees[index];
+    }
+
+    public boolean hasScore() {
+        return score != null;
+    }
+
+    public int getTotalScore() {
+        return score.totalScore;
+    }
+
+    public String getRatingText() {
+        return score.ratingText;
+    }
+
+    public int getRatingColor() {
+        return score.color;
+    }
+
+    public String getPerformanceLevel() {
+        return score.performanceLevel;
+    }
+
+    public int getCategoryScore(int category) {
+        return score.getScore(category);
+    }
+
+    public String getCategoryDetails(int category) {
+        return score.getDetails(category);
+    }
+
+    public static class Builder {
+        String model = "";
+        String manufacturer = "";
+        String androidRelease = "";
+        int sdkInt;
+        String primaryAbi;
+        String kernelVersion;
+        String buildDisplay;
+        int screenWidth;
+        int screenHeight;
+        float density;
+        long storageTotalBytes = UNKNOWN;
+        long storageAvailableBytes = UNKNOWN;
+        long ramTotalBytes = UNKNOWN;
+        long ramAvailableBytes = UNKNOWN;
+        boolean networkInfoAvailable;
+        boolean connected;
+        int networkType = -1;
+        String networkTypeName;
+        int networkSubtype;
+        String networkSubtypeName;
+        boolean wifiInfoAvailable;
+        String wifiSsid;
+        int wifiIpAddress;
+        int wifiLinkSpeed;
+        int cpuSingleScore;
+        int cpuMultiScore;
+        int cpuThreads;
+        int memoryHeapCopyMBps;
+        int memoryDirectCopyMBps;
+        int memoryLatencyNs;
+        int[] memoryCacheKnees;
+        DeviceScorer.ScoreResult score;
+        String storageTip;
+        String ramTip;
+        long timestamp;
+
+        public Builder device(String model, String manufacturer, String androidRelease, int sdkInt,
+                              String kernelVersion, String buildDisplay) {
+            this.model = model;
+            this.manufacturer = manufacturer;
+            this.androidRelease = androidRelease;
+            this.sdkInt = sdkInt;
+            this.kernelVersion = kernelVersion;
+            this.buildDisplay = buildDisplay;
+            return this;
+        }
+
+        public Builder primaryAbi(String primaryAbi) {
+            this.primaryAbi = primaryAbi;
+            return this;
+        }
+
+        public Builder display(int width, int height, float density) {
+            this.screenWidth = width;
+            this.screenHeight = height;
+            this.density = density;
+            return this;
+        }
+
+        public Builder storage(long totalBytes, long availableBytes) {
+            this.storageTotalBytes = totalBytes;
+            this.storageAvailableBytes = availableBytes;
+            return this;
+        }
+
+        public Builder ram(long totalBytes, long availableBytes) {
+            this.ramTotalBytes = totalBytes;
+            this.ramAvailableBytes = availableBytes;
+            return this;
+        }
+
+        public Builder network(boolean connected, int type, String typeName, int subtype, String subtypeName) {
+            this.networkInfoAvailable = true;
+            this.connected = connected;
+            this.networkType = type;
+            this.networkTypeName = typeName;
+            this.networkSubtype = subtype;
+            this.networkSubtypeName = subtypeName;
+            return this;
+        }
+
+        public Builder wifi(String ssid, int ipAddress, int linkSpeed) {
+            this.wifiInfoAvailable = true;
+            this.wifiSsid = ssid;
+            this.wifiIpAddress = ipAddress;
+            this.wifiLinkSpeed = linkSpeed;
+            return this;
+        }
+
+        public Builder cpuBenchmark(int singleScore, int multiScore, int threads) {
+            this.cpuSingleScore = singleScore;
+            this.cpuMultiScore = multiScore;
+            this.cpuThreads = threads;
+            return this;
+        }
+
+        public Builder memoryBenchmark(int heapCopyMBps, int directCopyMBps, int latencyNs, int[] cacheKnees) {
+            this.memoryHeapCopyMBps = heapCopyMBps;
+            this.memoryDirectCopyMBps = directCopyMBps;
+            this.memoryLatencyNs = latencyNs;
+            this.memoryCacheKnees = cacheKnees;
+            return this;
+        }
+
+        public Builder score(DeviceScorer.ScoreResult score) {
+            this.score = score;
+            return this;
+        }
+
+        public Builder tips(String storageTip, String ramTip) {
+            this.storageTip = storageTip;
+            this.ramTip = ramTip;
+            return this;
+        }
+
+        public Builder timestamp(long timestamp) {
+            this.timestamp = timestamp;
+            return this;
+        }
+
+        public DeviceSnapshot build() {
+            return new DeviceSnapshot(this);
+        }
+    }
+}
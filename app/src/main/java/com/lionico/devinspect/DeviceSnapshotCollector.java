@@ -0,0 +1,203 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Collects one DeviceSnapshot per request on a single worker thread and
+// delivers it on the main thread. A newer request or cancel() drops the
+// result of any request still in flight.
+public class DeviceSnapshotCollector {
+
+    private static final String TAG = "DeviceSnapshot";
+
+    public interface Callback {
+        void onSnapshot(DeviceSnapshot snapshot);
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor;
+
+    // Only touched on the main thread
+    private Future<?> pending;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    public DeviceSnapshotCollector(Context context) {
+        appContext = context.getApplicationContext();
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "DeviceSnapshot");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            }
+        });
+    }
+
+    public void requestSnapshot(DisplayMetrics displayMetrics, final Callback callback) {
+        requestSnapshot(displayMetrics, false, callback);
+    }
+
+    // forceFresh skips cached probe readings, used for explicit user refreshes
+    public void requestSnapshot(DisplayMetrics displayMetrics, boolean forceFresh, final Callback callback) {
+        if (shutdown) return;
+
+        if (forceFresh) {
+            SystemProbe.getInstance(appContext).invalidate();
+        }
+
+        cancel();
+        final int requestGeneration = generation;
+
+        // Copy what we need so the worker never reads a UI-owned object
+        final int width = displayMetrics != null ? displayMetrics.widthPixels : 0;
+        final int height = displayMetrics != null ? displayMetrics.heightPixels : 0;
+        final float density = displayMetrics != null ? displayMetrics.density : 0f;
+
+        pending = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final DeviceSnapshot snapshot = collect(width, height, density);
+                if (Thread.currentThread().isInterrupted()) return;
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (shutdown || requestGeneration != generation) return;
+                        pending = null;
+                        callback.onSnapshot(snapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    public void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    // Blocking; for callers that are already on a worker thread
+    public DeviceSnapshot collectNow(int width, int height, float density) {
+        return collect(width, height, density);
+    }
+
+    private DeviceSnapshot collect(int width, int height, float density) {
+        DeviceSnapshot.Builder builder = new DeviceSnapshot.Builder()
+            .device(Build.MODEL, Build.MANUFACTURER, Build.VERSION.RELEASE, Build.VERSION.SDK_INT,
+                    System.getProperty("os.version"), Build.DISPLAY)
+            .primaryAbi(getPrimaryAbi())
+            .display(width, height, density)
+            .timestamp(System.currentTimeMillis());
+
+        // Storage and RAM come from the shared probe, so the tips dialog and
+        // any other consumer in the same window reuse these readings
+        SystemProbe probe = SystemProbe.getInstance(appContext);
+        SystemProbe.StorageReading storage = probe.readStorage();
+        SystemProbe.MemoryReading memory = probe.readMemory();
+
+        long storageTotal = storage.isValid() ? storage.totalBytes : DeviceSnapshot.UNKNOWN;
+        long storageAvailable = storage.isValid() ? storage.availableBytes : DeviceSnapshot.UNKNOWN;
+        long ramTotal = memory.isValid() ? memory.totalBytes : DeviceSnapshot.UNKNOWN;
+        long ramAvailable = memory.isValid() ? memory.availableBytes : DeviceSnapshot.UNKNOWN;
+
+        builder.storage(storageTotal, storageAvailable);
+        builder.ram(ramTotal, ramAvailable);
+
+        collectNetwork(builder);
+
+        // Measured CPU and memory speed refine the score once benchmarks have run
+        CpuBenchmark.Result cpu = CpuBenchmark.loadCached(appContext);
+        int cpuSingle = cpu != null ? cpu.singleScore : 0;
+        int cpuMulti = cpu != null ? cpu.multiScore : 0;
+        builder.cpuBenchmark(cpuSingle, cpuMulti, cpu != null ? cpu.threads : 0);
+
+        MemoryBenchmark.Result memorySpeed = MemoryBenchmark.loadCached(appContext);
+        int memoryBandwidth = memorySpeed != null ? memorySpeed.getBestCopyMBps() : 0;
+        int memoryLatency = memorySpeed != null ? memorySpeed.getMemoryLatencyNs() : 0;
+        if (memorySpeed != null) {
+            builder.memoryBenchmark(memorySpeed.heapCopyMBps, memorySpeed.directCopyMBps, memoryLatency,
+                                    memorySpeed.getCacheKnees());
+        }
+
+        // Scoring and tips reuse the values above instead of querying again
+        builder.score(DeviceScorer.calculateDeviceScore(Build.VERSION.SDK_INT, getPrimaryAbi(),
+                                                        cpuSingle, cpuMulti,
+                                                        ramTotal, memoryBandwidth, memoryLatency, storageTotal,
+                                                        width, height, density, new DeviceScorer.ScoreResult()));
+        builder.tips(DeviceTipGenerator.generateStorageTips(storageTotal, storageAvailable),
+                     ramTotal > 0 ? DeviceTipGenerator.generateRamTips(ramTotal, ramAvailable)
+                                  : "Cannot analyze RAM usage.");
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Snapshot collected, probe " + probe.getCallStats());
+        }
+
+        return builder.build();
+    }
+
+    private static String getPrimaryAbi() {
+        String[] abis = Build.SUPPORTED_ABIS;
+        if (abis != null && abis.length > 0) {
+            return abis[0];
+        }
+        return Build.CPU_ABI;
+    }
+
+    private void collectNetwork(DeviceSnapshot.Builder builder) {
+        try {
+            ConnectivityManager cm = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm == null) return;
+
+            NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
+            boolean isConnected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
+            if (!isConnected) {
+                builder.network(false, -1, null, 0, null);
+                return;
+            }
+
+            builder.network(true, activeNetwork.getType(), activeNetwork.getTypeName(),
+                            activeNetwork.getSubtype(), activeNetwork.getSubtypeName());
+
+            if (activeNetwork.getType() == ConnectivityManager.TYPE_WIFI) {
+                WifiManager wifiManager = (WifiManager) appContext.getSystemService(Context.WIFI_SERVICE);
+                if (wifiManager != null) {
+                    WifiInfo wifiInfo = wifiManager.getConnectionInfo();
+                    if (wifiInfo != null) {
+                        String ssid = wifiInfo.getSSID();
+                        if (ssid != null && ssid.startsWith("\"") && ssid.endsWith("\"")) {
+                            ssid = ssid.substring(1, ssid.length() - 1);
+                        }
+                        builder.wifi(ssid, wifiInfo.getIpAddress(), wifiInfo.getLinkSpeed());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Network section is rendered as unavailable
+        }
+    }
+}
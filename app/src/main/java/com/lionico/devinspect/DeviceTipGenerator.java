@@ -1,22 +1,21 @@
 package com.lionico.devinspect;
 
-import android.app.ActivityManager;
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.os.StatFs;
-import android.os.Environment;
-import android.os.Build;
-import java.text.DecimalFormat;
-
+// Plain Java on purpose, like DeviceScorer: callers pass in readings they
+// already have (see DeviceInfoFragment.showDeviceTips) and this only turns
+// them into text.
 public class DeviceTipGenerator {
 
-    public static String generateStorageTips() {
+    // Network states for generateNetworkTips
+    public static final int NETWORK_UNKNOWN = -1;
+    public static final int NETWORK_NONE = 0;
+    public static final int NETWORK_WIFI = 1;
+    public static final int NETWORK_MOBILE = 2;
+    public static final int NETWORK_OTHER = 3;
+
+    // Works on blocks or bytes, only the ratio matters
+    public static String generateStorageTips(long total, long available) {
         try {
-            StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
-            long totalBlocks = stat.getBlockCountLong();
-            long availableBlocks = stat.getAvailableBlocksLong();
-            int percentageAvailable = (int) ((availableBlocks * 100) / totalBlocks);
+            int percentageAvailable = (int) ((available * 100) / total);
 
             if (percentageAvailable < 10) {
                 return "⚠️ Storage Critical! Less than 10% free. Clear cache, delete unused apps.";
@@ -32,17 +31,10 @@ public class DeviceTipGenerator {
         }
     }
 
-    public static String generateRamTips(Context context) {
+    public static String generateRamTips(long totalRamBytes, long availableRamBytes) {
         try {
-            if (context == null) return "Cannot analyze RAM usage.";
-
-            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-            if (am == null) return "Cannot analyze RAM usage.";
-
-            ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
-            am.getMemoryInfo(mi);
-            long totalRamGB = mi.totalMem / (1024 * 1024 * 1024);
-            long availableRamGB = mi.availMem / (1024 * 1024 * 1024);
+            long totalRamGB = totalRamBytes / (1024 * 1024 * 1024);
+            long availableRamGB = availableRamBytes / (1024 * 1024 * 1024);
             int percentageUsed = (int) (((totalRamGB - availableRamGB) * 100) / totalRamGB);
 
             if (percentageUsed > 85) {
@@ -57,9 +49,7 @@ public class DeviceTipGenerator {
         }
     }
 
-    public static String generateAndroidTips() {
-        int sdk = Build.VERSION.SDK_INT;
-
+    public static String generateAndroidTips(int sdk) {
         if (sdk < 24) {
             return "⚠️ Security Risk: Android version very old. Consider upgrading device.";
         } else if (sdk < 28) {
@@ -71,24 +61,19 @@ public class DeviceTipGenerator {
         }
     }
 
-    public static String generateNetworkTips(Context context) {
-        if (context == null) return "Cannot analyze network.";
-
-        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        if (cm == null) return "Cannot analyze network.";
-
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        if (activeNetwork == null || !activeNetwork.isConnectedOrConnecting()) {
-            return "⚠️ No internet connection. Connect to Wi-Fi or mobile data.";
+    public static String generateNetworkTips(int networkState) {
+        switch (networkState) {
+            case NETWORK_UNKNOWN:
+                return "Cannot analyze network.";
+            case NETWORK_NONE:
+                return "⚠️ No internet connection. Connect to Wi-Fi or mobile data.";
+            case NETWORK_WIFI:
+                return "✓ Connected to Wi-Fi. Best for downloads and streaming.";
+            case NETWORK_MOBILE:
+                return "Using mobile data. Watch data usage for large files.";
+            default:
+                return "Network connection active.";
         }
-
-        if (activeNetwork.getType() == ConnectivityManager.TYPE_WIFI) {
-            return "✓ Connected to Wi-Fi. Best for downloads and streaming.";
-        } else if (activeNetwork.getType() == ConnectivityManager.TYPE_MOBILE) {
-            return "Using mobile data. Watch data usage for large files.";
-        }
-
-        return "Network connection active.";
     }
 
     public static String generateBatteryTips() {
@@ -108,14 +93,17 @@ public class DeviceTipGenerator {
 			"• Backup important data regularly";
     }
 
-    public static String generateAllTips(Context context) {
+    // Zero totals mean "unknown" and produce the matching fallback text
+    public static String generateAllTips(long storageTotal, long storageAvailable,
+                                         long ramTotal, long ramAvailable,
+                                         int sdk, int networkState) {
         StringBuilder allTips = new StringBuilder();
 
         allTips.append("📱 Device Health Tips\n\n");
-        allTips.append("Storage: ").append(generateStorageTips()).append("\n\n");
-        allTips.append("RAM: ").append(generateRamTips(context)).append("\n\n");
-        allTips.append("Android: ").append(generateAndroidTips()).append("\n\n");
-        allTips.append("Network: ").append(generateNetworkTips(context)).append("\n\n");
+        allTips.append("Storage: ").append(generateStorageTips(storageTotal, storageAvailable)).append("\n\n");
+        allTips.append("RAM: ").append(generateRamTips(ramTotal, ramAvailable)).append("\n\n");
+        allTips.append("Android: ").append(generateAndroidTips(sdk)).append("\n\n");
+        allTips.append("Network: ").append(generateNetworkTips(networkState)).append("\n\n");
         allTips.append("Battery Care:\n").append(generateBatteryTips()).append("\n\n");
         allTips.append(generateGeneralMaintenanceTips());
 
@@ -0,0 +1,220 @@
+package com.lionico.devinspect;
+
+import java.io.File;
+
+// Names of one directory plus a stat cache kept in parallel primitive arrays,
+// so a 50k-entry directory costs one String per entry and no File objects.
+// Entries are only statted on request: the visible window while scrolling,
+// or everything when sorting by size or date needs it.
+//
+// Threading: load, stat* and buildOrder run on the browser's worker thread,
+// which is the only writer of the stat arrays. The UI thread reads an entry's
+// stat fields only after the worker has posted that the entry is ready.
+public final class DirectoryListing {
+
+    public static final int SORT_NAME = 0;
+    public static final int SORT_SIZE = 1;
+    public static final int SORT_DATE = 2;
+
+    public static final byte KIND_UNKNOWN = 0;
+    public static final byte KIND_FILE = 1;
+    public static final byte KIND_DIR = 2;
+    public static final byte KIND_MISSING = 3;
+
+    public final File dir;
+    private final String[] names;
+    private final long[] sizes;
+    private final long[] mtimes;
+    private final byte[] kinds;
+
+    private DirectoryListing(File dir, String[] names) {
+        this.dir = dir;
+        this.names = names;
+        this.sizes = new long[names.length];
+        this.mtimes = new long[names.length];
+        this.kinds = new byte[names.length];
+    }
+
+    // Lists names only; returns null when the directory cannot be read.
+    // File.list() is the cheapest enumeration below API 26: no File objects
+    // and no per-entry stat.
+    public static DirectoryListing load(File dir) {
+        String[] names = dir.list();
+        return names != null ? new DirectoryListing(dir, names) : null;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int entry) {
+        return names[entry];
+    }
+
+    public byte kind(int entry) {
+        return kinds[entry];
+    }
+
+    public long size(int entry) {
+        return sizes[entry];
+    }
+
+    public long modified(int entry) {
+        return mtimes[entry];
+    }
+
+    public File file(int entry) {
+        return new File(dir, names[entry]);
+    }
+
+    // Stats the entries at order[from, to) that have not been statted yet and
+    // returns them, or null if there was nothing to do
+    public int[] statWindow(int[] order, int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(order.length, to);
+
+        int[] statted = null;
+        int count = 0;
+        for (int pos = from; pos < to; pos++) {
+            int entry = order[pos];
+            if (kinds[entry] != KIND_UNKNOWN) continue;
+
+            stat(entry);
+            if (statted == null) statted = new int[to - pos];
+            statted[count++] = entry;
+        }
+        if (statted == null) return null;
+
+        if (count < statted.length) {
+            int[] trimmed = new int[count];
+            System.arraycopy(statted, 0, trimmed, 0, count);
+            statted = trimmed;
+        }
+        return statted;
+    }
+
+    // Returns false if interrupted before every entry was statted
+    public boolean statAll() {
+        for (int entry = 0; entry < names.length; entry++) {
+            if ((entry & 0xFF) == 0 && Thread.currentThread().isInterrupted()) return false;
+            if (kinds[entry] == KIND_UNKNOWN) stat(entry);
+        }
+        return true;
+    }
+
+    private void stat(int entry) {
+        File file = new File(dir, names[entry]);
+        long modified = file.lastModified();
+        if (modified == 0 && !file.exists()) {
+            kinds[entry] = KIND_MISSING;
+            return;
+        }
+        boolean directory = file.isDirectory();
+        sizes[entry] = directory ? 0 : file.length();
+        mtimes[entry] = modified;
+        kinds[entry] = directory ? KIND_DIR : KIND_FILE;
+    }
+
+    // Positions to entries after filtering by a case-insensitive substring
+    // and sorting. Size and date sorts need every entry statted first.
+    public int[] buildOrder(int sort, String filter) {
+        int[] order = new int[names.length];
+        int count = 0;
+        for (int entry = 0; entry < names.length; entry++) {
+            if (filter == null || filter.length() == 0 || containsIgnoreCase(names[entry], filter)) {
+                order[count++] = entry;
+            }
+        }
+        if (count < order.length) {
+            int[] filtered = new int[count];
+            System.arraycopy(order, 0, filtered, 0, count);
+            order = filtered;
+        }
+
+        IndexComparator comparator;
+        switch (sort) {
+            case SORT_SIZE:
+                comparator = new IndexComparator() {
+                    @Override
+                    public int compare(int a, int b) {
+                        // Folders first, then largest first
+                        boolean dirA = kinds[a] == KIND_DIR;
+                        boolean dirB = kinds[b] == KIND_DIR;
+                        if (dirA != dirB) return dirA ? -1 : 1;
+                        if (sizes[a] != sizes[b]) return sizes[a] > sizes[b] ? -1 : 1;
+                        return names[a].compareToIgnoreCase(names[b]);
+                    }
+                };
+                break;
+            case SORT_DATE:
+                comparator = new IndexComparator() {
+                    @Override
+                    public int compare(int a, int b) {
+                        // Newest first
+                        if (mtimes[a] != mtimes[b]) return mtimes[a] > mtimes[b] ? -1 : 1;
+                        return names[a].compareToIgnoreCase(names[b]);
+                    }
+                };
+                break;
+            default:
+                comparator = new IndexComparator() {
+                    @Override
+                    public int compare(int a, int b) {
+                        return names[a].compareToIgnoreCase(names[b]);
+                    }
+                };
+                break;
+        }
+        sortIndices(order, comparator);
+        return order;
+    }
+
+    private static boolean containsIgnoreCase(String name, String filter) {
+        int max = name.length() - filter.length();
+        for (int i = 0; i <= max; i++) {
+            if (name.regionMatches(true, i, filter, 0, filter.length())) return true;
+        }
+        return false;
+    }
+
+    private interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    // Stable merge sort on primitive indices, avoiding an Integer per entry
+    private static void sortIndices(int[] order, IndexComparator comparator) {
+        if (order.length < 2) return;
+        mergeSort(order, new int[order.length], 0, order.length, comparator);
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, IndexComparator c) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int value = a[i];
+                int j = i - 1;
+                while (j >= from && c.compare(a[j], value) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = value;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, c);
+        mergeSort(a, tmp, mid, to, c);
+        if (c.compare(a[mid - 1], a[mid]) <= 0) return;
+
+        System.arraycopy(a, from, tmp, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && c.compare(tmp[left], tmp[right]) <= 0)) {
+                a[i] = tmp[left++];
+            } else {
+                a[i] = tmp[right++];
+            }
+        }
+    }
+}
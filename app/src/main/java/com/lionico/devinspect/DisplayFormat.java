@@ -0,0 +1,126 @@
+package com.lionico.devinspect;
+
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Text formatting shared by the fragments. Plain Java so the benchmark
+// module can run it without Android classes.
+//
+// The append* methods write into a caller-owned StringBuilder and never go
+// through java.util.Formatter, so a screen that reuses one builder only
+// allocates the final String it hands to its TextView. Decimal separators
+// are passed in so callers can keep the user's locale.
+public final class DisplayFormat {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private DisplayFormat() {
+    }
+
+    // WifiInfo.getIpAddress() is little-endian
+    public static String intToIp(int ip) {
+        return appendIp(new StringBuilder(15), ip).toString();
+    }
+
+    public static StringBuilder appendIp(StringBuilder sb, int ip) {
+        return sb.append(ip & 0xFF).append('.')
+            .append((ip >> 8) & 0xFF).append('.')
+            .append((ip >> 16) & 0xFF).append('.')
+            .append((ip >> 24) & 0xFF);
+    }
+
+    public static String formatDuration(long millis) {
+        return appendDuration(new StringBuilder(8), millis).toString();
+    }
+
+    // "7m", "9h 03m", or "N/A" for unknown durations
+    public static StringBuilder appendDuration(StringBuilder sb, long millis) {
+        if (millis <= 0) return sb.append("N/A");
+
+        long hours = TimeUnit.MILLISECONDS.toHours(millis);
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis) % 60;
+
+        if (hours > 0) {
+            sb.append(hours).append("h ");
+            if (minutes < 10) sb.append('0');
+            return sb.append(minutes).append('m');
+        }
+        return sb.append(minutes).append('m');
+    }
+
+    // "512 B/s", "84.2 KB/s", "1.3 MB/s"
+    public static StringBuilder appendRate(StringBuilder sb, double bytesPerSecond, char separator) {
+        if (bytesPerSecond < 1024) {
+            return sb.append(Math.round(bytesPerSecond)).append(" B/s");
+        } else if (bytesPerSecond < 1024 * 1024) {
+            return appendFixed(sb, bytesPerSecond / 1024, 1, separator).append(" KB/s");
+        }
+        return appendFixed(sb, bytesPerSecond / (1024 * 1024), 1, separator).append(" MB/s");
+    }
+
+    // Like String.format("%.Nf"): always prints the given number of decimals
+    // (at most 6). Rounds the binary value half up, so a value that sits on
+    // a rounding boundary, such as 69.865, can come out one unit lower.
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals, char separator) {
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) sb.append('-');
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            sb.append(separator);
+            appendPadded(sb, scaled % scale, decimals);
+        }
+        return sb;
+    }
+
+    // Like DecimalFormat("#.##") for maxDecimals 2: trailing zeros and a
+    // bare separator are dropped. Boundary values round as in appendFixed.
+    public static StringBuilder appendDecimal(StringBuilder sb, double value, int maxDecimals, char separator) {
+        long scale = POWERS_OF_TEN[maxDecimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) sb.append('-');
+        sb.append(scaled / scale);
+
+        long fraction = scaled % scale;
+        int digits = maxDecimals;
+        while (digits > 0 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        if (digits > 0) {
+            sb.append(separator);
+            appendPadded(sb, fraction, digits);
+        }
+        return sb;
+    }
+
+    private static void appendPadded(StringBuilder sb, long value, int width) {
+        for (long limit = POWERS_OF_TEN[width - 1]; limit > 1 && value < limit; limit /= 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    // A SimpleDateFormat with its Date, buffer and field position kept
+    // between calls. One per screen; not thread-safe.
+    public static final class TimeAppender {
+        private final SimpleDateFormat format;
+        private final Date date = new Date();
+        private final StringBuffer buffer = new StringBuffer(16);
+        private final FieldPosition position = new FieldPosition(0);
+
+        public TimeAppender(String pattern) {
+            format = new SimpleDateFormat(pattern, Locale.getDefault());
+        }
+
+        public StringBuilder append(StringBuilder sb, long millis) {
+            date.setTime(millis);
+            buffer.setLength(0);
+            format.format(date, buffer, position);
+            return sb.append(buffer);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Browsable directory view. Listing, sorting, filtering and stat calls run on
+// one worker thread; the list only stats the rows around the visible window
+// and recycles its row views, so opening a huge directory costs one name
+// listing and memory stays flat while scrolling.
+public class FileBrowser {
+
+    private static final int PREFETCH_ROWS = 20;
+    private static final long FILTER_DELAY_MS = 150;
+    private static final String[] SORT_LABELS = {"Sort: Name", "Sort: Size", "Sort: Date"};
+
+    private final LayoutInflater inflater;
+    private final View root;
+    private final TextView tvPath, tvStatus;
+    private final EditText etFilter;
+    private final Button btnUp, btnSort;
+    private final ListView lvEntries;
+    private final EntryAdapter adapter = new EntryAdapter();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService worker;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
+    private final Runnable applyFilterRunnable;
+
+    // Only touched on the main thread
+    private DirectoryListing listing;
+    private int[] order = new int[0];
+    private boolean[] ready = new boolean[0];
+    private int sort = DirectoryListing.SORT_NAME;
+    private String filter = "";
+    private Future<?> pendingOrder;
+    private int generation = 0;
+    private boolean statRequestPending;
+    private int visibleFirst, visibleCount;
+    private boolean shutdown = false;
+
+    public FileBrowser(Context context) {
+        inflater = LayoutInflater.from(context);
+        root = inflater.inflate(R.layout.dialog_file_browser, null);
+        tvPath = (TextView) root.findViewById(R.id.tvBrowserPath);
+        tvStatus = (TextView) root.findViewById(R.id.tvBrowserStatus);
+        etFilter = (EditText) root.findViewById(R.id.etBrowserFilter);
+        btnUp = (Button) root.findViewById(R.id.btnBrowserUp);
+        btnSort = (Button) root.findViewById(R.id.btnBrowserSort);
+        lvEntries = (ListView) root.findViewById(R.id.lvBrowserEntries);
+
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "FileBrowser");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        applyFilterRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (listing != null) rebuildOrder(listing);
+            }
+        };
+
+        lvEntries.setAdapter(adapter);
+        setupListeners();
+    }
+
+    public View getView() {
+        return root;
+    }
+
+    private void setupListeners() {
+        btnUp.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    File parent = listing != null ? listing.dir.getParentFile() : null;
+                    if (parent != null) open(parent);
+                }
+            });
+
+        btnSort.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    sort = (sort + 1) % SORT_LABELS.length;
+                    btnSort.setText(SORT_LABELS[sort]);
+                    if (listing != null) rebuildOrder(listing);
+                }
+            });
+
+        etFilter.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                }
+
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {
+                }
+
+                @Override
+                public void afterTextChanged(Editable s) {
+                    filter = s.toString();
+                    mainHandler.removeCallbacks(applyFilterRunnable);
+                    mainHandler.postDelayed(applyFilterRunnable, FILTER_DELAY_MS);
+                }
+            });
+
+        lvEntries.setOnScrollListener(new AbsListView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(AbsListView view, int scrollState) {
+                }
+
+                @Override
+                public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                    visibleFirst = firstVisibleItem;
+                    visibleCount = visibleItemCount;
+                    requestVisibleStats();
+                }
+            });
+
+        lvEntries.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    onEntryClicked(order[position]);
+                }
+            });
+    }
+
+    public void open(final File dir) {
+        if (shutdown) return;
+
+        tvPath.setText(dir.getAbsolutePath());
+        tvStatus.setText("Loading...");
+        btnUp.setEnabled(dir.getParentFile() != null);
+
+        final int gen = ++generation;
+        final int sortMode = sort;
+        final String filterText = filter;
+        submitOrderWork(new Runnable() {
+            @Override
+            public void run() {
+                DirectoryListing loaded = DirectoryListing.load(dir);
+                if (loaded == null) {
+                    postOrder(null, null, false, gen);
+                } else {
+                    buildOrder(loaded, sortMode, filterText, gen);
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        mainHandler.removeCallbacks(applyFilterRunnable);
+        worker.shutdownNow();
+    }
+
+    // Re-sorts or re-filters the current listing without listing it again
+    private void rebuildOrder(final DirectoryListing target) {
+        tvStatus.setText(sort == DirectoryListing.SORT_NAME ? "Filtering..." : "Sorting...");
+
+        final int gen = ++generation;
+        final int sortMode = sort;
+        final String filterText = filter;
+        submitOrderWork(new Runnable() {
+            @Override
+            public void run() {
+                buildOrder(target, sortMode, filterText, gen);
+            }
+        });
+    }
+
+    // Interrupts a listing or ordering still running; stat requests are left
+    // alone because their results stay valid for the same listing
+    private void submitOrderWork(Runnable work) {
+        if (pendingOrder != null) {
+            pendingOrder.cancel(true);
+        }
+        pendingOrder = worker.submit(work);
+    }
+
+    // Worker thread
+    private void buildOrder(DirectoryListing target, int sortMode, String filterText, int gen) {
+        boolean allStatted = false;
+        if (sortMode != DirectoryListing.SORT_NAME) {
+            if (!target.statAll()) return;
+            allStatted = true;
+        }
+        int[] newOrder = target.buildOrder(sortMode, filterText);
+        if (Thread.currentThread().isInterrupted()) return;
+        postOrder(target, newOrder, allStatted, gen);
+    }
+
+    private void postOrder(final DirectoryListing target, final int[] newOrder,
+                           final boolean allStatted, final int gen) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || gen != generation) return;
+
+                if (target == null) {
+                    listing = null;
+                    order = new int[0];
+                    ready = new boolean[0];
+                    adapter.notifyDataSetChanged();
+                    tvStatus.setText("Cannot read this folder");
+                    return;
+                }
+
+                boolean sameListing = target == listing;
+                listing = target;
+                order = newOrder;
+                if (!sameListing) {
+                    ready = new boolean[target.size()];
+                }
+                if (allStatted) {
+                    // statAll ran before this post, so every entry is safe to read
+                    for (int i = 0; i < ready.length; i++) ready[i] = true;
+                }
+                adapter.notifyDataSetChanged();
+                if (!sameListing) lvEntries.setSelection(0);
+                updateStatus();
+                requestVisibleStats();
+            }
+        });
+    }
+
+    private void requestVisibleStats() {
+        if (shutdown || listing == null || statRequestPending) return;
+
+        final int from = Math.max(0, visibleFirst - PREFETCH_ROWS);
+        final int to = Math.min(order.length, visibleFirst + visibleCount + PREFETCH_ROWS);
+        boolean missing = false;
+        for (int pos = from; pos < to && !missing; pos++) {
+            missing = !ready[order[pos]];
+        }
+        if (!missing) return;
+
+        // One request in flight; the next one picks up wherever the list is then
+        statRequestPending = true;
+        final DirectoryListing target = listing;
+        final int[] targetOrder = order;
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int[] statted = target.statWindow(targetOrder, from, to);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        statRequestPending = false;
+                        if (shutdown || target != listing) return;
+                        if (statted != null) {
+                            for (int entry : statted) ready[entry] = true;
+                            adapter.notifyDataSetChanged();
+                        }
+                        requestVisibleStats();
+                    }
+                });
+            }
+        });
+    }
+
+    private void onEntryClicked(int entry) {
+        if (listing == null) return;
+
+        File file = listing.file(entry);
+        boolean directory = ready[entry]
+            ? listing.kind(entry) == DirectoryListing.KIND_DIR
+            : file.isDirectory();
+        if (directory) {
+            open(file);
+        } else if (ready[entry] && listing.kind(entry) == DirectoryListing.KIND_FILE) {
+            tvStatus.setText(listing.name(entry) + ": " + FileExplorerFragment.formatSize(listing.size(entry))
+                             + ", modified " + dateFormat.format(new Date(listing.modified(entry))));
+        }
+    }
+
+    private void updateStatus() {
+        if (listing == null) return;
+        if (order.length == listing.size()) {
+            tvStatus.setText(String.format(Locale.US, "%,d entries", order.length));
+        } else {
+            tvStatus.setText(String.format(Locale.US, "%,d of %,d entries match", order.length, listing.size()));
+        }
+    }
+
+    private static class ViewHolder {
+        TextView name;
+        TextView details;
+    }
+
+    private class EntryAdapter extends BaseAdapter {
+        @Override
+        public int getCount() {
+            return order.length;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return listing.name(order[position]);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return order[position];
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            ViewHolder holder;
+            if (convertView == null) {
+                convertView = inflater.inflate(R.layout.item_file_entry, parent, false);
+                holder = new ViewHolder();
+                holder.name = (TextView) convertView.findViewById(R.id.tvEntryName);
+                holder.details = (TextView) convertView.findViewById(R.id.tvEntryDetails);
+                convertView.setTag(holder);
+            } else {
+                holder = (ViewHolder) convertView.getTag();
+            }
+
+            int entry = order[position];
+            holder.name.setText(listing.name(entry));
+            if (!ready[entry]) {
+                holder.details.setText("...");
+            } else if (listing.kind(entry) == DirectoryListing.KIND_DIR) {
+                holder.details.setText("Folder  " + dateFormat.format(new Date(listing.modified(entry))));
+            } else if (listing.kind(entry) == DirectoryListing.KIND_FILE) {
+                holder.details.setText(FileExplorerFragment.formatSize(listing.size(entry)) + "  "
+                                       + dateFormat.format(new Date(listing.modified(entry))));
+            } else {
+                holder.details.setText("Unavailable");
+            }
+            return convertView;
+        }
+    }
+}
@@ -1,24 +1,39 @@
 package com.lionico.devinspect;
 
 import android.app.Fragment;
+import android.app.AlertDialog;
+import android.content.Context;
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import android.os.Environment;
 import android.os.StatFs;
 
 public class FileExplorerFragment extends Fragment {
 
-    private TextView tvStorageInfo, tvRootInfo, tvSdCardInfo;
-    private Button btnRefreshStorage, btnListFiles, btnCheckPermissions;
+    private static final long[] BENCHMARK_SIZES = {64L << 20, 256L << 20, 1024L << 20};
+    private static final int[] BENCHMARK_THREADS = {1, 2, 4};
+
+    private TextView tvStorageInfo, tvRootInfo, tvSdCardInfo, tvAnalysisInfo, tvBenchmarkInfo;
+    private Button btnRefreshStorage, btnListFiles, btnCheckPermissions, btnAnalyzeStorage, btnStorageBenchmark;
+
+    private StorageAnalyzer storageAnalyzer;
+    private File lastAnalysisRoot;
+    private StorageBenchmark storageBenchmark;
 
     public FileExplorerFragment() {
         // Required empty constructor
@@ -43,6 +58,10 @@ public class FileExplorerFragment extends Fragment {
         btnRefreshStorage = (Button) view.findViewById(R.id.btnRefreshStorage);
         btnListFiles = (Button) view.findViewById(R.id.btnListFiles);
         btnCheckPermissions = (Button) view.findViewById(R.id.btnCheckPermissions);
+        tvAnalysisInfo = (TextView) view.findViewById(R.id.tvAnalysisInfo);
+        btnAnalyzeStorage = (Button) view.findViewById(R.id.btnAnalyzeStorage);
+        tvBenchmarkInfo = (TextView) view.findViewById(R.id.tvBenchmarkInfo);
+        btnStorageBenchmark = (Button) view.findViewById(R.id.btnStorageBenchmark);
     }
 
     private void setupButtons() {
@@ -50,13 +69,18 @@ public class FileExplorerFragment extends Fragment {
                 @Override
                 public void onClick(View v) {
                     updateStorageInfo();
+                    // Rescans are incremental, so repeating the last analysis is cheap
+                    if (lastAnalysisRoot != null
+                        && (storageAnalyzer == null || !storageAnalyzer.isRunning())) {
+                        startAnalysis(lastAnalysisRoot);
+                    }
                 }
             });
 
         btnListFiles.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    listSampleFiles();
+                    showFileBrowser();
                 }
             });
 
@@ -66,6 +90,28 @@ public class FileExplorerFragment extends Fragment {
                     checkStorageAccess();
                 }
             });
+
+        btnAnalyzeStorage.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    if (storageAnalyzer != null && storageAnalyzer.isRunning()) {
+                        cancelAnalysis();
+                    } else {
+                        chooseAnalysisRoot();
+                    }
+                }
+            });
+
+        btnStorageBenchmark.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    if (storageBenchmark != null && storageBenchmark.isRunning()) {
+                        cancelBenchmark();
+                    } else {
+                        chooseBenchmark();
+                    }
+                }
+            });
     }
 
     private void updateStorageInfo() {
@@ -123,31 +169,31 @@ public class FileExplorerFragment extends Fragment {
         return "Not accessible";
     }
 
-    private void listSampleFiles() {
-        try {
-            File downloadsDir = Environment.getExternalStoragePublicDirectory(
-                Environment.DIRECTORY_DOWNLOADS);
-
-            if (downloadsDir.exists() && downloadsDir.isDirectory()) {
-                File[] files = downloadsDir.listFiles();
-                int count = files != null ? Math.min(files.length, 5) : 0;
+    private void showFileBrowser() {
+        if (getActivity() == null) return;
 
-                String message = "Downloads (" + count + " files shown):\n";
-                for (int i = 0; i < count && i < 5; i++) {
-                    message += "• " + files[i].getName() + "\n";
-                }
+        File startDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+        if (startDir == null || !startDir.isDirectory()) {
+            startDir = Environment.getExternalStorageDirectory();
+        }
+        if (startDir == null || !startDir.isDirectory()) {
+            showToast("Downloads directory not found");
+            return;
+        }
 
-                if (getActivity() != null) {
-                    Toast.makeText(getActivity(), message, Toast.LENGTH_LONG).show();
+        final FileBrowser browser = new FileBrowser(getActivity());
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Browse Files")
+            .setView(browser.getView())
+            .setPositiveButton("Close", null)
+            .setOnDismissListener(new DialogInterface.OnDismissListener() {
+                @Override
+                public void onDismiss(DialogInterface dialog) {
+                    browser.shutdown();
                 }
-            } else {
-                showToast("Downloads directory not found");
-            }
-        } catch (SecurityException e) {
-            showToast("Permission denied for downloads");
-        } catch (Exception e) {
-            showToast("Error: " + e.getMessage());
-        }
+            })
+            .show();
+        browser.open(startDir);
     }
 
     private void checkStorageAccess() {
@@ -165,6 +211,269 @@ public class FileExplorerFragment extends Fragment {
         showToast(message);
     }
 
+    private void chooseAnalysisRoot() {
+        if (getActivity() == null) return;
+
+        final File[] roots = analysisRoots(getActivity());
+        String[] labels = {"Shared Storage", "Downloads", "Camera (DCIM)", "App Data"};
+
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Analyze Storage")
+            .setItems(labels, new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    startAnalysis(roots[which]);
+                }
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    // Also read by DeviceReport, which exports whatever these have indexed
+    static File[] analysisRoots(Context context) {
+        return new File[] {
+            Environment.getExternalStorageDirectory(),
+            Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS),
+            Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DCIM),
+            context.getFilesDir().getParentFile()
+        };
+    }
+
+    static File indexDir(Context context) {
+        return new File(context.getFilesDir(), "storage_index");
+    }
+
+    private void startAnalysis(File root) {
+        if (getActivity() == null) return;
+        if (root == null || !root.isDirectory()) {
+            showToast("Directory not available");
+            return;
+        }
+        lastAnalysisRoot = root;
+
+        if (storageAnalyzer == null) {
+            storageAnalyzer = new StorageAnalyzer(indexDir(getActivity()));
+        }
+
+        tvAnalysisInfo.setText("Scanning " + root.getAbsolutePath() + "...");
+        btnAnalyzeStorage.setText("Cancel Analysis");
+
+        storageAnalyzer.start(root, new StorageAnalyzer.Listener() {
+                @Override
+                public void onProgress(StorageAnalyzer.Result partial) {
+                    tvAnalysisInfo.setText(formatAnalysis(partial));
+                }
+
+                @Override
+                public void onComplete(StorageAnalyzer.Result result) {
+                    tvAnalysisInfo.setText(formatAnalysis(result));
+                    btnAnalyzeStorage.setText("Analyze Storage");
+                }
+            });
+    }
+
+    private void cancelAnalysis() {
+        if (storageAnalyzer != null) {
+            storageAnalyzer.cancel();
+        }
+        tvAnalysisInfo.setText("Analysis cancelled");
+        btnAnalyzeStorage.setText("Analyze Storage");
+    }
+
+    private String formatAnalysis(StorageAnalyzer.Result result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(result.complete ? "Scanned " : "Scanning ").append(result.rootPath).append('\n');
+        sb.append(String.format(Locale.US, "%,d files in %,d folders, %s (%.1f s)\n",
+                                result.fileCount, result.dirCount,
+                                formatSize(result.totalBytes), result.elapsedMs / 1000.0));
+        if (result.unreadableCount > 0) {
+            sb.append(String.format(Locale.US, "%,d folders not readable\n", result.unreadableCount));
+        }
+        if (result.usedIndex) {
+            sb.append(String.format(Locale.US, "%,d of %,d folders unchanged since last scan\n",
+                                    result.reusedDirCount, result.dirCount));
+        }
+        if (result.indexBytes >= 0) {
+            sb.append("Index: ").append(formatSize(result.indexBytes)).append('\n');
+        }
+
+        appendEntries(sb, "Largest folders:", result.largestDirs, result.rootPath);
+        appendEntries(sb, "Largest files:", result.largestFiles, result.rootPath);
+        return sb.toString().trim();
+    }
+
+    private void appendEntries(StringBuilder sb, String title, StorageAnalyzer.Entry[] entries, String rootPath) {
+        if (entries.length == 0) return;
+
+        sb.append('\n').append(title).append('\n');
+        for (StorageAnalyzer.Entry entry : entries) {
+            String path = entry.path;
+            if (path.startsWith(rootPath)) {
+                path = path.length() == rootPath.length() ? "." : path.substring(rootPath.length() + 1);
+            }
+            sb.append(String.format(Locale.US, "%10s  %s\n", formatSize(entry.bytes), path));
+        }
+    }
+
+    // App-specific directories only: they need no permission and every
+    // volume that has one is a separate piece of storage
+    private void chooseBenchmark() {
+        if (getActivity() == null) return;
+
+        final List<File> targets = new ArrayList<File>();
+        List<String> labels = new ArrayList<String>();
+        targets.add(getActivity().getFilesDir());
+        labels.add("Internal (app files)");
+        File[] external = getActivity().getExternalFilesDirs(null);
+        if (external != null) {
+            for (int i = 0; i < external.length; i++) {
+                if (external[i] == null) continue;
+                targets.add(external[i]);
+                labels.add(i == 0 ? "Shared storage (app folder)" : "SD card " + i + " (app folder)");
+            }
+        }
+
+        View view = LayoutInflater.from(getActivity()).inflate(R.layout.dialog_storage_benchmark, null);
+        final Spinner spTarget = (Spinner) view.findViewById(R.id.spBenchmarkTarget);
+        final Spinner spSize = (Spinner) view.findViewById(R.id.spBenchmarkSize);
+        final Spinner spThreads = (Spinner) view.findViewById(R.id.spBenchmarkThreads);
+        final CheckBox cbSync = (CheckBox) view.findViewById(R.id.cbBenchmarkSync);
+
+        String[] sizeLabels = new String[BENCHMARK_SIZES.length];
+        for (int i = 0; i < sizeLabels.length; i++) {
+            sizeLabels[i] = formatSize(BENCHMARK_SIZES[i]);
+        }
+        String[] threadLabels = new String[BENCHMARK_THREADS.length];
+        for (int i = 0; i < threadLabels.length; i++) {
+            threadLabels[i] = String.valueOf(BENCHMARK_THREADS[i]);
+        }
+        spTarget.setAdapter(spinnerAdapter(labels.toArray(new String[labels.size()])));
+        spSize.setAdapter(spinnerAdapter(sizeLabels));
+        spSize.setSelection(1);
+        spThreads.setAdapter(spinnerAdapter(threadLabels));
+
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Benchmark Storage")
+            .setView(view)
+            .setPositiveButton("Start", new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    startBenchmark(new StorageBenchmark.Config(
+                                       targets.get(spTarget.getSelectedItemPosition()),
+                                       BENCHMARK_SIZES[spSize.getSelectedItemPosition()],
+                                       BENCHMARK_THREADS[spThreads.getSelectedItemPosition()],
+                                       cbSync.isChecked()));
+                }
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    private ArrayAdapter<String> spinnerAdapter(String[] items) {
+        ArrayAdapter<String> adapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_spinner_item, items);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        return adapter;
+    }
+
+    private void startBenchmark(StorageBenchmark.Config config) {
+        if (getActivity() == null) return;
+
+        // A scan competing for the same storage would skew every number
+        if (storageAnalyzer != null && storageAnalyzer.isRunning()) {
+            cancelAnalysis();
+        }
+        if (storageBenchmark == null) {
+            storageBenchmark = new StorageBenchmark();
+        }
+
+        tvBenchmarkInfo.setText("Preparing " + formatSize(config.fileSize) + " test file in "
+                                + config.dir.getAbsolutePath() + "...");
+        btnStorageBenchmark.setText("Cancel Benchmark");
+
+        storageBenchmark.start(config, new StorageBenchmark.Listener() {
+                @Override
+                public void onProgress(StorageBenchmark.Result partial) {
+                    tvBenchmarkInfo.setText(formatBenchmark(partial));
+                }
+
+                @Override
+                public void onComplete(StorageBenchmark.Result result) {
+                    tvBenchmarkInfo.setText(formatBenchmark(result));
+                    btnStorageBenchmark.setText("Benchmark Storage");
+                }
+            });
+    }
+
+    private void cancelBenchmark() {
+        if (storageBenchmark != null) {
+            storageBenchmark.cancel();
+        }
+        tvBenchmarkInfo.setText("Benchmark cancelled");
+        btnStorageBenchmark.setText("Benchmark Storage");
+    }
+
+    private String formatBenchmark(StorageBenchmark.Result result) {
+        StorageBenchmark.Config config = result.config;
+        StringBuilder sb = new StringBuilder();
+        sb.append(config.dir.getAbsolutePath()).append('\n');
+        sb.append(formatSize(config.fileSize)).append(", ")
+            .append(config.threads).append(config.threads == 1 ? " thread" : " threads")
+            .append(config.syncEachWrite ? ", fsync every write" : "").append('\n');
+
+        for (StorageBenchmark.Phase phase : result.phases) {
+            sb.append('\n');
+            if (phase.random) {
+                sb.append(String.format(Locale.US, "%-9s %,8.0f IOPS  %6.1f MB/s\n",
+                                        phase.name, phase.iops(), phase.megabytesPerSecond()));
+            } else {
+                sb.append(String.format(Locale.US, "%-9s %8.1f MB/s\n",
+                                        phase.name, phase.megabytesPerSecond()));
+            }
+            sb.append("  p50 ").append(formatLatency(phase.p50Us))
+                .append("  p90 ").append(formatLatency(phase.p90Us))
+                .append("  p99 ").append(formatLatency(phase.p99Us))
+                .append("  max ").append(formatLatency(phase.maxUs)).append('\n');
+        }
+
+        if (result.error != null) {
+            sb.append("\nStopped: ").append(result.error);
+        } else if (!result.complete) {
+            sb.append(String.format(Locale.US, "\nRunning %s (%d of %d)...",
+                                    StorageBenchmark.phaseName(result.phases.length),
+                                    result.phases.length + 1, StorageBenchmark.PHASE_COUNT));
+        }
+        return sb.toString().trim();
+    }
+
+    private static String formatLatency(int micros) {
+        if (micros < 1000) return micros + " us";
+        return String.format(Locale.US, "%.1f ms", micros / 1000.0);
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024L * 1024L) {
+            return String.format(Locale.US, "%.2f GB", bytes / (1024.0 * 1024.0 * 1024.0));
+        } else if (bytes >= 1024L * 1024L) {
+            return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+        } else if (bytes >= 1024L) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return bytes + " B";
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (storageAnalyzer != null) {
+            storageAnalyzer.shutdown();
+            storageAnalyzer = null;
+        }
+        if (storageBenchmark != null) {
+            storageBenchmark.shutdown();
+            storageBenchmark = null;
+        }
+    }
+
     private void showToast(String message) {
         if (getActivity() != null) {
             Toast.makeText(getActivity(), message, Toast.LENGTH_LONG).show();
@@ -7,14 +7,19 @@ import android.app.AlertDialog;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.content.SharedPreferences;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
-import android.view.animation.ScaleAnimation;
 import android.view.animation.TranslateAnimation;
 import android.widget.FrameLayout;
 import android.widget.TabHost;
@@ -28,7 +33,14 @@ import java.util.Map;
 
 public class MainActivity extends Activity 
 {
+    private static final String TAG = "MainActivity";
+
+    // Only the first activity of a process is timed from process start
+    private static boolean processStartLogged = false;
+
     private TabHost tabHost;
+    private TabController tabController;
+    private BadgeModel badgeModel;
     private float startX;
     private float startY;
     private long lastTabTapTime = 0;
@@ -36,6 +48,14 @@ public class MainActivity extends Activity
     private boolean isTabInitialized = false;
     private Map<String, Fragment> fragmentCache = new HashMap<>();
     private Handler animationHandler = new Handler();
+    private long createUptime;
+
+    // Tab switch latency: from onTabChanged to the next frame being drawn
+    private long tabSwitchStart;
+    private ViewTreeObserver.OnPreDrawListener tabSwitchFrameListener;
+
+    // Built on first use and reused; indexed by the ANIM_* ids
+    private final Animation[] slideAnimations = new Animation[5];
 
     // Animation IDs
     private static final int ANIM_SLIDE_IN_LEFT = 1;
@@ -43,6 +63,17 @@ public class MainActivity extends Activity
     private static final int ANIM_SLIDE_OUT_LEFT = 3;
     private static final int ANIM_SLIDE_OUT_RIGHT = 4;
 
+    private static final long FLASH_REFRESH_MS = 300;
+    private static final long FLASH_EDGE_MS = 100;
+
+    // Content frame of each tab, in tab order
+    private static final int[] TAB_CONTENT_IDS = {
+        R.id.tabDeviceInfo,
+        R.id.tabBattery,
+        R.id.tabFileExplorer,
+        R.id.tabQuickTools
+    };
+
     // Tab constants
     private static class TabConstants {
         static final String TAB_DEVICE_INFO = "DeviceInfo";
@@ -65,16 +96,21 @@ public class MainActivity extends Activity
     protected void onCreate(Bundle savedInstanceState)
     {
         super.onCreate(savedInstanceState);
+        createUptime = SystemClock.uptimeMillis();
+        long traceStart = PhaseTracer.begin();
+        PhaseTracer.init(this);
 
         setContentView(R.layout.main);
 
         setupTabs();
 
-        // Restore last tab from preferences
-        restoreLastTab();
-
         // Setup swipe detection on the content area
         setupSwipeDetection();
+
+        // Fragment content and badges follow the first frame
+        scheduleStartupWork();
+
+        PhaseTracer.end(PhaseTracer.ON_CREATE, traceStart);
     }
 
     private void setupTabs()
@@ -83,6 +119,7 @@ public class MainActivity extends Activity
             return; // Already initialized
         }
 
+        long traceStart = PhaseTracer.begin();
         try {
             // Get TabHost from layout
             tabHost = (TabHost) findViewById(android.R.id.tabhost);
@@ -96,24 +133,36 @@ public class MainActivity extends Activity
             // Create and add tabs
             createTabs();
 
-            // Apply custom styling to all tabs
-            styleTabs();
+            // Restore last tab from preferences before the listener is set,
+            // so startup does not load the default tab's fragment as well
+            restoreLastTab();
+
+            // Resolves tab views, colors and animations once, then styles
+            // the current tab and shows only its frame; the fragment is
+            // loaded after the first frame by scheduleStartupWork()
+            tabController = new TabController(this, tabHost, getTabTitles(), TAB_CONTENT_IDS);
+            tabController.select(tabHost.getCurrentTab());
+
+            // Counts come from the preferences restoreLastTab() already
+            // loaded; the labels are drawn once the main thread is idle
+            badgeModel = new BadgeModel(getSharedPreferences(PREF_NAME, MODE_PRIVATE),
+                                        KEY_BADGE_COUNTS, TabConstants.TAB_COUNT);
 
             // Set tab change listener
             setupTabListener();
 
-            // Load initial fragment based on current tab
-            loadFragmentForCurrentTab();
-
             isTabInitialized = true;
 
         } catch (Exception e) {
             showErrorDialog("Failed to setup tabs: " + e.getMessage());
         }
+        PhaseTracer.end(PhaseTracer.SETUP_TABS, traceStart);
     }
 
     private void createTabs()
     {
+        long traceStart = PhaseTracer.begin();
+
         // Tab configuration arrays
         String[] tabIds = {
             TabConstants.TAB_DEVICE_INFO,
@@ -122,33 +171,78 @@ public class MainActivity extends Activity
             TabConstants.TAB_QUICK_TOOLS
         };
 
-        String[] tabTitles = {
-            getString(R.string.tab_device),
-            getString(R.string.tab_battery),
-            getString(R.string.tab_files),
-            getString(R.string.tab_tools)
-        };
-
-        int[] tabContentIds = {
-            R.id.tabDeviceInfo,
-            R.id.tabBattery,
-            R.id.tabFileExplorer,
-            R.id.tabQuickTools
-        };
+        String[] tabTitles = getTabTitles();
 
         // Create each tab
         for (int i = 0; i < TabConstants.TAB_COUNT; i++) {
             TabHost.TabSpec tabSpec = tabHost.newTabSpec(tabIds[i]);
             tabSpec.setIndicator(createTabIndicator(tabTitles[i]));
-            tabSpec.setContent(tabContentIds[i]);
+            tabSpec.setContent(TAB_CONTENT_IDS[i]);
             tabHost.addTab(tabSpec);
-
-            // Restore badge counts
-            restoreTabBadge(i);
         }
 
         // Set default tab (will be overridden by saved state if exists)
         tabHost.setCurrentTab(0);
+
+        PhaseTracer.end(PhaseTracer.CREATE_TABS, traceStart);
+    }
+
+    // The first frame only has the tab bar and an empty content frame. The
+    // current tab's fragment is added once that frame is drawn and badge
+    // counts are restored when the main thread goes idle; the other tabs'
+    // fragments are created on their first visit.
+    private void scheduleStartupWork() {
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                    // Posted from the traversal, so it runs after this frame is drawn
+                    decorView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                onFirstFrameDrawn();
+                            }
+                        });
+                    return true;
+                }
+            });
+    }
+
+    private void onFirstFrameDrawn() {
+        if (tabHost == null) return;
+
+        long firstFrameUptime = SystemClock.uptimeMillis();
+        loadFragmentForCurrentTab();
+        getFragmentManager().executePendingTransactions();
+        logStartupTime(firstFrameUptime, SystemClock.uptimeMillis());
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    if (tabHost != null) {
+                        restoreTabBadges();
+                        PhaseTracer.logSummary();
+                    }
+                    return false;
+                }
+            });
+    }
+
+    // Compare against `adb shell am start -W` TotalTime across builds; the
+    // process start time is only available from API 24
+    private void logStartupTime(long firstFrameUptime, long contentUptime) {
+        long startUptime = createUptime;
+        String kind = "Activity start";
+        if (!processStartLogged && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startUptime = Process.getStartUptimeMillis();
+            kind = "Cold start";
+        }
+        processStartLogged = true;
+
+        Log.i(TAG, kind + ": onCreate +" + (createUptime - startUptime)
+              + " ms, first frame +" + (firstFrameUptime - startUptime)
+              + " ms, " + tabHost.getCurrentTabTag() + " content +" + (contentUptime - startUptime) + " ms");
     }
 
     private TextView createTabIndicator(String text)
@@ -175,111 +269,19 @@ public class MainActivity extends Activity
         return tabView;
     }
 
-    private void styleTabs()
-    {
-        if (tabHost == null) return;
-
-        TabWidget tabWidget = tabHost.getTabWidget();
-        if (tabWidget == null) return;
-
-        // Style each tab
-        for (int i = 0; i < tabWidget.getChildCount(); i++)
-        {
-            TextView tabView = getTabTextView(i);
-            if (tabView != null)
-            {
-                // Set text colors based on selection
-                int textColor = (i == tabHost.getCurrentTab()) 
-                    ? getResources().getColor(R.color.tab_text_selected)
-                    : getResources().getColor(R.color.tab_text_unselected);
-
-                tabView.setTextColor(textColor);
-                tabView.setBackgroundResource(R.drawable.tab_selector);
-
-                // Ensure size constraints
-                tabView.setMinimumWidth(dpToPx(60));
-                tabView.setMaxWidth(dpToPx(100));
-
-                // Apply visual feedback for selected tab (scale effect)
-                if (i == tabHost.getCurrentTab()) {
-                    applyTabSelectionAnimation(tabView);
-                } else {
-                    resetTabVisual(tabView);
-                }
-            }
-        }
-
-        // Set overall tab widget background
-        tabWidget.setBackgroundColor(getResources().getColor(R.color.primaryGreenDark));
-
-        // Remove dividers between tabs for cleaner look
-        tabWidget.setDividerDrawable(null);
-    }
-
-    private void applyTabSelectionAnimation(final TextView tabView) {
-        // Use a scale animation for selected tab
-        Animation scaleAnimation = new ScaleAnimation(
-            1.0f, 1.1f, // X scale from->to
-            1.0f, 1.1f, // Y scale from->to
-            Animation.RELATIVE_TO_SELF, 0.5f, // Pivot X
-            Animation.RELATIVE_TO_SELF, 0.5f  // Pivot Y
-        );
-        scaleAnimation.setDuration(200);
-        scaleAnimation.setFillAfter(true); // Keep the scaled state
-        tabView.startAnimation(scaleAnimation);
-    }
-
-    private void resetTabVisual(TextView tabView) {
-        // Clear any existing animation and reset scale
-        tabView.clearAnimation();
-
-        // Reset to original scale
-        Animation resetAnimation = new ScaleAnimation(
-            tabView.getScaleX(), 1.0f,
-            tabView.getScaleY(), 1.0f,
-            Animation.RELATIVE_TO_SELF, 0.5f,
-            Animation.RELATIVE_TO_SELF, 0.5f
-        );
-        resetAnimation.setDuration(100);
-        resetAnimation.setFillAfter(true);
-        tabView.startAnimation(resetAnimation);
-    }
-
-    private TextView getTabTextView(int tabIndex) {
-        if (tabHost == null || tabIndex < 0) {
-            return null;
-        }
-
-        TabWidget tabWidget = tabHost.getTabWidget();
-        if (tabWidget == null || tabIndex >= tabWidget.getChildCount()) {
-            return null;
-        }
-
-        View tabView = tabWidget.getChildAt(tabIndex);
-        if (tabView instanceof TextView) {
-            return (TextView) tabView;
-        } else if (tabView != null) {
-            // Try to find TextView inside the tab view
-            View textView = tabView.findViewById(android.R.id.title);
-            if (textView instanceof TextView) {
-                return (TextView) textView;
-            }
-        }
-        return null;
-    }
-
     private void setupTabListener() {
         tabHost.setOnTabChangedListener(new TabHost.OnTabChangeListener() {
 				@Override
 				public void onTabChanged(String tabId) {
+					tabSwitchStart = PhaseTracer.begin();
+					watchTabSwitchFrame();
+
 					// Handle double-tap detection
 					handleDoubleTap();
 
-					// Refresh tab styling with animation
-					styleTabs();
-
-					// Update content visibility
-					updateContentVisibility(tabId);
+					// Restyle the old and new tab and swap content frames
+					tabController.select(tabHost.getCurrentTab());
+					updateFragmentVisibility(tabId);
 
 					// Load appropriate fragment
 					loadFragmentForTab(tabId);
@@ -290,35 +292,35 @@ public class MainActivity extends Activity
 			});
     }
 
-    private void updateContentVisibility(String currentTabId) {
-        // Show only the current tab's content, hide others
-        FrameLayout[] contentFrames = {
-            (FrameLayout) findViewById(R.id.tabDeviceInfo),
-            (FrameLayout) findViewById(R.id.tabBattery),
-            (FrameLayout) findViewById(R.id.tabFileExplorer),
-            (FrameLayout) findViewById(R.id.tabQuickTools)
-        };
-
-        String[] tabIds = {
-            TabConstants.TAB_DEVICE_INFO,
-            TabConstants.TAB_BATTERY,
-            TabConstants.TAB_FILE_EXPLORER,
-            TabConstants.TAB_QUICK_TOOLS
-        };
+    // Lets fragments that poll pause while their tab is hidden; the
+    // hidden frames keep their fragments resumed
+    private void updateFragmentVisibility(String currentTabId) {
+        for (Map.Entry<String, Fragment> entry : fragmentCache.entrySet()) {
+            if (entry.getValue() instanceof DeviceInfoFragment) {
+                ((DeviceInfoFragment) entry.getValue()).setTabVisible(entry.getKey().equals(currentTabId));
+            }
+        }
+    }
 
-        for (int i = 0; i < contentFrames.length; i++) {
-            if (contentFrames[i] != null) {
-                if (tabIds[i].equals(currentTabId)) {
-                    contentFrames[i].setVisibility(View.VISIBLE);
-                    // Add a simple fade-in animation
-                    Animation fadeIn = android.view.animation.AnimationUtils.loadAnimation(
-                        this, android.R.anim.fade_in);
-                    contentFrames[i].startAnimation(fadeIn);
-                } else {
-                    contentFrames[i].setVisibility(View.GONE);
+    // One listener for every switch; if switches come faster than frames,
+    // the span runs from the last of them
+    private void watchTabSwitchFrame() {
+        final ViewTreeObserver observer = tabHost.getViewTreeObserver();
+        if (tabSwitchFrameListener == null) {
+            tabSwitchFrameListener = new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    if (tabHost != null) {
+                        tabHost.getViewTreeObserver().removeOnPreDrawListener(this);
+                    }
+                    PhaseTracer.end(PhaseTracer.TAB_SWITCH, tabSwitchStart);
+                    return true;
                 }
-            }
+            };
+        } else {
+            observer.removeOnPreDrawListener(tabSwitchFrameListener);
         }
+        observer.addOnPreDrawListener(tabSwitchFrameListener);
     }
 
     private void handleDoubleTap() {
@@ -342,12 +344,7 @@ public class MainActivity extends Activity
             loadFragmentForTab(currentTabId);
 
             // Add a visual feedback for refresh
-            TextView currentTabView = getTabTextView(tabHost.getCurrentTab());
-            if (currentTabView != null) {
-                Animation refreshAnimation = android.view.animation.AnimationUtils.loadAnimation(
-                    this, android.R.anim.fade_in);
-                currentTabView.startAnimation(refreshAnimation);
-            }
+            tabController.flash(tabHost.getCurrentTab(), FLASH_REFRESH_MS);
         }
     }
 
@@ -380,7 +377,6 @@ public class MainActivity extends Activity
         String currentTabId = tabHost.getCurrentTabTag();
         if (currentTabId != null) {
             loadFragmentForTab(currentTabId);
-            updateContentVisibility(currentTabId);
         }
     }
 
@@ -405,15 +401,25 @@ public class MainActivity extends Activity
     }
 
     private void loadFragment(String tag, int containerId, Class<? extends Fragment> fragmentClass) {
+        long traceStart = PhaseTracer.begin();
         FragmentManager fm = getFragmentManager();
         Fragment fragment = fragmentCache.get(tag);
 
+        if (fragment == null) {
+            // Reuse the instance the FragmentManager restored after recreation
+            fragment = fm.findFragmentByTag(tag);
+            if (fragment != null) {
+                fragmentCache.put(tag, fragment);
+            }
+        }
+
         if (fragment == null) {
             try {
                 fragment = fragmentClass.newInstance();
                 fragmentCache.put(tag, fragment);
             } catch (Exception e) {
                 showErrorDialog("Failed to create fragment: " + e.getMessage());
+                PhaseTracer.end(PhaseTracer.LOAD_FRAGMENT, traceStart);
                 return;
             }
         }
@@ -425,6 +431,7 @@ public class MainActivity extends Activity
 				.replace(containerId, fragment, tag)
 				.commit();
         }
+        PhaseTracer.end(PhaseTracer.LOAD_FRAGMENT, traceStart);
     }
 
     // Setup swipe detection on the content area
@@ -490,15 +497,13 @@ public class MainActivity extends Activity
     private void switchToTabWithAnimation(final int tabIndex, final boolean swipeRight) {
         if (isValidTabIndex(tabIndex)) {
             // Get references to tabs
-            final TextView currentTab = getTabTextView(tabHost.getCurrentTab());
-            final TextView targetTab = getTabTextView(tabIndex);
+            final TextView currentTab = tabController.getTabView(tabHost.getCurrentTab());
+            final TextView targetTab = tabController.getTabView(tabIndex);
 
             if (currentTab != null) {
-                // Create slide out animation
-                Animation slideOut = createSlideAnimation(
-                    swipeRight ? ANIM_SLIDE_OUT_RIGHT : ANIM_SLIDE_OUT_LEFT);
-                slideOut.setDuration(150);
-                currentTab.startAnimation(slideOut);
+                // Slide the current tab out
+                currentTab.startAnimation(getSlideAnimation(
+                    swipeRight ? ANIM_SLIDE_OUT_RIGHT : ANIM_SLIDE_OUT_LEFT));
             }
 
             // Switch tab after a short delay
@@ -509,31 +514,32 @@ public class MainActivity extends Activity
 
 						// Animate the new tab coming in
 						if (targetTab != null) {
-							Animation slideIn = createSlideAnimation(
-								swipeRight ? ANIM_SLIDE_IN_LEFT : ANIM_SLIDE_IN_RIGHT);
-							slideIn.setDuration(150);
-							targetTab.startAnimation(slideIn);
+							targetTab.startAnimation(getSlideAnimation(
+								swipeRight ? ANIM_SLIDE_IN_LEFT : ANIM_SLIDE_IN_RIGHT));
 						}
 					}
 				}, 100);
         } else {
             // Show visual feedback that can't swipe further
-            TextView currentTab = getTabTextView(tabHost.getCurrentTab());
-            if (currentTab != null) {
-                Animation shake = android.view.animation.AnimationUtils.loadAnimation(
-                    this, android.R.anim.fade_in);
-                shake.setDuration(100);
-                currentTab.startAnimation(shake);
-
-                if (tabIndex < 0) {
-                    showToast("First tab");
-                } else {
-                    showToast("Last tab");
-                }
+            tabController.flash(tabHost.getCurrentTab(), FLASH_EDGE_MS);
+            if (tabIndex < 0) {
+                showToast("First tab");
+            } else {
+                showToast("Last tab");
             }
         }
     }
 
+    private Animation getSlideAnimation(int animationType) {
+        Animation animation = slideAnimations[animationType];
+        if (animation == null) {
+            animation = createSlideAnimation(animationType);
+            animation.setDuration(150);
+            slideAnimations[animationType] = animation;
+        }
+        return animation;
+    }
+
     private Animation createSlideAnimation(int animationType) {
         switch (animationType) {
             case ANIM_SLIDE_IN_LEFT:
@@ -565,79 +571,64 @@ public class MainActivity extends Activity
                     Animation.RELATIVE_TO_SELF, 0.0f
                 );
             default:
-                return android.view.animation.AnimationUtils.loadAnimation(this, android.R.anim.fade_in);
+                throw new IllegalArgumentException("Unknown slide animation " + animationType);
         }
     }
 
-    // Badge management methods
+    // Badge management methods; safe to call from any thread
     public void setTabBadge(int tabIndex, int count) {
-        if (!isValidTabIndex(tabIndex)) return;
-
-        TextView tabView = getTabTextView(tabIndex);
-        if (tabView != null) {
-            String originalText = getOriginalTabText(tabIndex);
-            String displayText = originalText;
-
-            if (count > 0) {
-                displayText = originalText + " (" + count + ")";
-            }
-
-            tabView.setText(displayText);
-            styleTabs(); // Re-apply styling
-
-            // Save badge count
-            saveTabBadge(tabIndex, count);
-        }
+        if (!isValidBadgeIndex(tabIndex)) return;
+        badgeModel.set(tabIndex, count);
     }
 
     public void incrementTabBadge(int tabIndex) {
-        if (!isValidTabIndex(tabIndex)) return;
-
-        int currentCount = getTabBadgeCount(tabIndex);
-        setTabBadge(tabIndex, currentCount + 1);
+        if (!isValidBadgeIndex(tabIndex)) return;
+        badgeModel.increment(tabIndex);
     }
 
     public void decrementTabBadge(int tabIndex) {
-        if (!isValidTabIndex(tabIndex)) return;
-
-        int currentCount = getTabBadgeCount(tabIndex);
-        if (currentCount > 0) {
-            setTabBadge(tabIndex, currentCount - 1);
-        }
+        if (!isValidBadgeIndex(tabIndex)) return;
+        badgeModel.decrement(tabIndex);
     }
 
     public void clearTabBadge(int tabIndex) {
         setTabBadge(tabIndex, 0);
     }
 
-    private String getOriginalTabText(int tabIndex) {
-        String[] tabTitles = {
+    private boolean isValidBadgeIndex(int index) {
+        return badgeModel != null && index >= 0 && index < badgeModel.size();
+    }
+
+    private String[] getTabTitles() {
+        return new String[] {
             getString(R.string.tab_device),
             getString(R.string.tab_battery),
             getString(R.string.tab_files),
             getString(R.string.tab_tools)
         };
-
-        if (tabIndex >= 0 && tabIndex < tabTitles.length) {
-            return tabTitles[tabIndex];
-        }
-        return "";
     }
 
-    private int getTabBadgeCount(int tabIndex) {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        return prefs.getInt(KEY_BADGE_COUNTS + tabIndex, 0);
-    }
+    // Draws the stored badges, then follows changes; labels are only
+    // rewritten for the tabs the model reports
+    private void restoreTabBadges() {
+        if (badgeModel == null) return;
 
-    private void saveTabBadge(int tabIndex, int count) {
-        SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        prefs.edit().putInt(KEY_BADGE_COUNTS + tabIndex, count).apply();
+        applyBadges(badgeModel.nonZeroMask());
+        badgeModel.setListener(new BadgeModel.Listener() {
+                @Override
+                public void onBadgesChanged(int changedMask) {
+                    applyBadges(changedMask);
+                }
+            });
     }
 
-    private void restoreTabBadge(int tabIndex) {
-        int count = getTabBadgeCount(tabIndex);
-        if (count > 0) {
-            setTabBadge(tabIndex, count);
+    private void applyBadges(int changedMask) {
+        if (tabController == null) return;
+
+        for (int i = 0; i < TabConstants.TAB_COUNT; i++) {
+            if ((changedMask & (1 << i)) != 0) {
+                tabController.setBadge(i, badgeModel.get(i));
+            }
         }
     }
 
@@ -656,7 +647,6 @@ public class MainActivity extends Activity
 
             if (isValidTabIndex(lastTab)) {
                 tabHost.setCurrentTab(lastTab);
-                loadFragmentForCurrentTab();
             }
         }
     }
@@ -710,19 +700,18 @@ public class MainActivity extends Activity
     }
 
     @Override
-    protected void onResume()
-    {
-        super.onResume();
-        if (tabHost != null)
-        {
-            styleTabs();
+    protected void onPause() {
+        super.onPause();
+        saveCurrentTab();
+        if (badgeModel != null) {
+            badgeModel.flush();
         }
     }
 
     @Override
-    protected void onPause() {
-        super.onPause();
-        saveCurrentTab();
+    protected void onStop() {
+        super.onStop();
+        PhaseTracer.save();
     }
 
     @Override
@@ -731,7 +720,11 @@ public class MainActivity extends Activity
         super.onDestroy();
         fragmentCache.clear();
         animationHandler.removeCallbacksAndMessages(null);
+        if (badgeModel != null) {
+            badgeModel.shutdown();
+        }
         tabHost = null;
+        tabController = null;
         isTabInitialized = false;
     }
 
@@ -0,0 +1,346 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Memory subsystem speed in two parts. Copy bandwidth: System.arraycopy
+// between heap arrays and a bulk put() between direct ByteBuffers, both
+// over buffers larger than the caches of current phones. Latency: a pointer
+// chase through one random cycle over a working set that doubles from 16 KB
+// to 32 MB, visiting one cache line per step so every step can miss. Where
+// the latency steps up between two sizes, the smaller one fit in a cache
+// level; those sizes are the knees.
+//
+// Like CpuBenchmark, results are cached per build fingerprint.
+public class MemoryBenchmark {
+
+    private static final String TAG = "MemoryBenchmark";
+    private static final String PREF_NAME = "memory_benchmark";
+
+    private static final int COPY_BYTES = 16 * 1024 * 1024;
+    private static final int MIN_WORKING_SET = 16 * 1024;
+    public static final int WORKING_SET_COUNT = 12; // 16 KB .. 32 MB
+    private static final int LINE_INTS = 16; // 64-byte cache lines
+
+    private static final long WARMUP_MS = 200;
+    private static final long MEASURE_MS = 400;
+    private static final long CHASE_MS = 150;
+    private static final int CHASE_BATCH = 16 * 1024;
+
+    // Smallest step up over the previous size that can mark a knee
+    private static final float KNEE_RATIO = 1.35f;
+
+    public interface Listener {
+        // step of getStepCount(), as each measurement starts
+        void onProgress(int step, String description);
+        // null if the buffers did not fit this process's heap
+        void onComplete(Result result);
+    }
+
+    public static final class Result {
+        public final int heapCopyMBps;
+        public final int directCopyMBps;
+        // Nanoseconds per dependent load, per working set
+        public final float[] latencyNs;
+        public final long measuredAt;
+
+        Result(int heapCopyMBps, int directCopyMBps, float[] latencyNs, long measuredAt) {
+            this.heapCopyMBps = heapCopyMBps;
+            this.directCopyMBps = directCopyMBps;
+            this.latencyNs = latencyNs;
+            this.measuredAt = measuredAt;
+        }
+
+        // Latency of the largest working set, which mostly misses to DRAM
+        public int getMemoryLatencyNs() {
+            return Math.round(latencyNs[WORKING_SET_COUNT - 1]);
+        }
+
+        public int getBestCopyMBps() {
+            return Math.max(heapCopyMBps, directCopyMBps);
+        }
+
+        // Largest working set before each step up in latency, in bytes
+        public int[] getCacheKnees() {
+            return findKnees(latencyNs);
+        }
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService driver;
+
+    // Only touched on the main thread
+    private Run current;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    public MemoryBenchmark(Context context) {
+        appContext = context.getApplicationContext();
+        driver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "MemoryBenchmark");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public static int getStepCount() {
+        return 2 + WORKING_SET_COUNT;
+    }
+
+    public static int workingSetBytes(int index) {
+        return MIN_WORKING_SET << index;
+    }
+
+    // Last result measured on this build, or null
+    public static Result loadCached(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (!Build.FINGERPRINT.equals(prefs.getString("fingerprint", null))) return null;
+
+        int heap = prefs.getInt("heapCopy", 0);
+        int direct = prefs.getInt("directCopy", 0);
+        if (heap <= 0 || direct <= 0) return null;
+        float[] latency = new float[WORKING_SET_COUNT];
+        for (int i = 0; i < WORKING_SET_COUNT; i++) {
+            latency[i] = prefs.getFloat("latency" + i, 0);
+            if (latency[i] <= 0) return null;
+        }
+        return new Result(heap, direct, latency, prefs.getLong("measuredAt", 0));
+    }
+
+    private static void saveCached(Context context, Result result) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit();
+        editor.putString("fingerprint", Build.FINGERPRINT);
+        editor.putInt("heapCopy", result.heapCopyMBps);
+        editor.putInt("directCopy", result.directCopyMBps);
+        for (int i = 0; i < WORKING_SET_COUNT; i++) {
+            editor.putFloat("latency" + i, result.latencyNs[i]);
+        }
+        editor.putLong("measuredAt", result.measuredAt);
+        editor.apply();
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    public void start(final Listener listener) {
+        if (shutdown) return;
+
+        cancel();
+        final int runGeneration = generation;
+        final Run run = new Run();
+        current = run;
+
+        driver.execute(new Runnable() {
+            @Override
+            public void run() {
+                long started = SystemClock.elapsedRealtime();
+                Result result;
+                try {
+                    result = measure(run, runGeneration, listener);
+                } catch (OutOfMemoryError e) {
+                    Log.w(TAG, "Not enough heap for the benchmark buffers", e);
+                    deliverComplete(runGeneration, listener, null);
+                    return;
+                }
+                if (result == null || run.cancelled) return;
+
+                saveCached(appContext, result);
+                Log.i(TAG, "Measured in " + (SystemClock.elapsedRealtime() - started) + " ms: copy "
+                      + result.heapCopyMBps + "/" + result.directCopyMBps + " MB/s, latency "
+                      + result.getMemoryLatencyNs() + " ns");
+                deliverComplete(runGeneration, listener, result);
+            }
+        });
+    }
+
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        driver.shutdown();
+    }
+
+    private void deliverProgress(final int runGeneration, final Listener listener,
+                                 final int step, final String description) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                listener.onProgress(step, description);
+            }
+        });
+    }
+
+    private void deliverComplete(final int runGeneration, final Listener listener, final Result result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                current = null;
+                listener.onComplete(result);
+            }
+        });
+    }
+
+    static final class Run {
+        volatile boolean cancelled;
+        volatile long sink;
+    }
+
+    // Driver thread; null if cancelled
+    private Result measure(Run run, int runGeneration, Listener listener) {
+        deliverProgress(runGeneration, listener, 0, "Measuring heap copy speed");
+        int heap = heapCopyMBps(run);
+        if (run.cancelled) return null;
+
+        deliverProgress(runGeneration, listener, 1, "Measuring direct buffer copy speed");
+        int direct = directCopyMBps(run);
+        if (run.cancelled) return null;
+
+        int[] chain = new int[workingSetBytes(WORKING_SET_COUNT - 1) / 4];
+        float[] latency = new float[WORKING_SET_COUNT];
+        for (int i = 0; i < WORKING_SET_COUNT; i++) {
+            deliverProgress(runGeneration, listener, 2 + i,
+                            "Measuring latency over " + FileExplorerFragment.formatSize(workingSetBytes(i)));
+            latency[i] = chaseNs(run, chain, workingSetBytes(i) / 4);
+            if (run.cancelled) return null;
+        }
+        return new Result(heap, direct, latency, System.currentTimeMillis());
+    }
+
+    static int heapCopyMBps(Run run) {
+        long[] src = new long[COPY_BYTES / 8];
+        long[] dst = new long[COPY_BYTES / 8];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = i;
+        }
+
+        long warmupEnd = SystemClock.uptimeMillis() + WARMUP_MS;
+        while (!run.cancelled && SystemClock.uptimeMillis() < warmupEnd) {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        }
+        long copies = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MS * 1000000L;
+        long now = start;
+        while (!run.cancelled && now < end) {
+            System.arraycopy(src, 0, dst, 0, src.length);
+            copies++;
+            now = System.nanoTime();
+        }
+        run.sink += dst[dst.length - 1];
+        return megabytesPerSecond(copies, now - start);
+    }
+
+    static int directCopyMBps(Run run) {
+        ByteBuffer src = ByteBuffer.allocateDirect(COPY_BYTES);
+        ByteBuffer dst = ByteBuffer.allocateDirect(COPY_BYTES);
+        while (src.hasRemaining()) {
+            src.putLong(src.position());
+        }
+
+        long warmupEnd = SystemClock.uptimeMillis() + WARMUP_MS;
+        while (!run.cancelled && SystemClock.uptimeMillis() < warmupEnd) {
+            src.clear();
+            dst.clear();
+            dst.put(src);
+        }
+        long copies = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MS * 1000000L;
+        long now = start;
+        while (!run.cancelled && now < end) {
+            src.clear();
+            dst.clear();
+            dst.put(src);
+            copies++;
+            now = System.nanoTime();
+        }
+        run.sink += dst.getLong(COPY_BYTES - 8);
+        return megabytesPerSecond(copies, now - start);
+    }
+
+    private static int megabytesPerSecond(long copies, long nanos) {
+        if (nanos <= 0) return 0;
+        return (int) Math.round(copies * (double) COPY_BYTES / (1024 * 1024) / (nanos / 1e9));
+    }
+
+    // Links the first entry of every cache line in chain[0, entries) into
+    // one random cycle, then follows it; nanoseconds per step
+    static float chaseNs(Run run, int[] chain, int entries) {
+        int lines = entries / LINE_INTS;
+        for (int i = 0; i < lines; i++) {
+            chain[i * LINE_INTS] = i * LINE_INTS;
+        }
+        // Sattolo's shuffle over the line heads gives a single cycle
+        long x = 0x2545F4914F6CDD1DL + entries;
+        for (int i = lines - 1; i > 0; i--) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int j = (int) ((x >>> 1) % i);
+            int t = chain[i * LINE_INTS];
+            chain[i * LINE_INTS] = chain[j * LINE_INTS];
+            chain[j * LINE_INTS] = t;
+        }
+
+        int p = 0;
+        for (int i = 0; i < lines && !run.cancelled; i++) {
+            p = chain[p];
+        }
+        long steps = 0;
+        long start = System.nanoTime();
+        long end = start + CHASE_MS * 1000000L;
+        long now = start;
+        while (!run.cancelled && now < end) {
+            for (int i = 0; i < CHASE_BATCH; i++) {
+                p = chain[p];
+            }
+            steps += CHASE_BATCH;
+            now = System.nanoTime();
+        }
+        run.sink += p;
+        return steps > 0 ? (float) ((now - start) / (double) steps) : 0;
+    }
+
+    // A knee is a step up by more than KNEE_RATIO that is steeper than the
+    // steps on either side, so a climb spread over several sizes counts once
+    static int[] findKnees(float[] latencyNs) {
+        int n = latencyNs.length;
+        float[] ratio = new float[n];
+        for (int i = 1; i < n; i++) {
+            ratio[i] = latencyNs[i - 1] > 0 ? latencyNs[i] / latencyNs[i - 1] : 0;
+        }
+        int[] found = new int[n];
+        int count = 0;
+        for (int i = 1; i < n; i++) {
+            if (ratio[i] > KNEE_RATIO && ratio[i] >= ratio[i - 1] && (i == n - 1 || ratio[i] > ratio[i + 1])) {
+                found[count++] = workingSetBytes(i - 1);
+            }
+        }
+        int[] knees = new int[count];
+        System.arraycopy(found, 0, knees, 0, count);
+        return knees;
+    }
+}
@@ -0,0 +1,324 @@
+package com.lionico.devinspect;
+
+import android.net.TrafficStats;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+
+// Receive and transmit rates, in bytes and packets per second, sampled once
+// a second on a background thread. Per-interface counters come from
+// /proc/net/dev; where the kernel hides that file from apps (Android 10 and
+// later, depending on the vendor) the device-wide TrafficStats totals are
+// used instead and only the total is reported.
+//
+// Rates are smoothed with an exponential moving average so a single bursty
+// second does not swing the display. A link that is slow shows a low rate
+// next to a low nominal speed; a saturated one shows a rate close to it.
+//
+// Like CpuLoadSampler, steady-state sampling allocates nothing; only an
+// interface seen for the first time gets its name String.
+public class NetworkThroughputSampler {
+
+    public interface Listener {
+        // Main thread, after each sample
+        void onThroughputSample(NetworkThroughputSampler sampler);
+    }
+
+    public static final int MAX_INTERFACES = 16;
+
+    // Counters per interface, and the rates derived from them
+    public static final int RX_BYTES = 0;
+    public static final int RX_PACKETS = 1;
+    public static final int TX_BYTES = 2;
+    public static final int TX_PACKETS = 3;
+    private static final int COUNTERS = 4;
+
+    private static final long INTERVAL_MS = 1000;
+    private static final double SMOOTHING = 0.4; // weight of the newest second
+
+    // Slot MAX_INTERFACES holds the total over all non-loopback interfaces
+    private static final int TOTAL = MAX_INTERFACES;
+
+    private static final byte[] LOOPBACK = ProcCursor.ascii("lo");
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread thread;
+    private final Handler sampleHandler;
+    private volatile Listener listener;
+    private volatile boolean running;
+    private boolean shutDown; // main thread
+
+    // Sampling thread only. /proc/net/dev is a couple of hundred bytes per
+    // interface.
+    private final ProcFile netDev = new ProcFile("/proc/net/dev", 8 * 1024);
+    private boolean netDevReadable = true;
+    private final byte[][] nameBytes = new byte[MAX_INTERFACES][32];
+    private final int[] nameLengths = new int[MAX_INTERFACES];
+    private final long[] counters = new long[(MAX_INTERFACES + 1) * COUNTERS];
+    private final long[] previous = new long[(MAX_INTERFACES + 1) * COUNTERS];
+    private final boolean[] present = new boolean[MAX_INTERFACES + 1];
+    private final boolean[] hasPrevious = new boolean[MAX_INTERFACES + 1];
+    private long previousUptime;
+    private int interfaceSlots = 0;
+
+    // Guarded by this
+    private final double[] rates = new double[(MAX_INTERFACES + 1) * COUNTERS];
+    private final boolean[] rateValid = new boolean[MAX_INTERFACES + 1];
+    private final String[] names = new String[MAX_INTERFACES];
+    private int nameCount = 0;
+    private boolean perInterface = true;
+    private boolean available = false;
+
+    private final Runnable sampleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            long started = SystemClock.uptimeMillis();
+            sampleOnce(started);
+            mainHandler.post(deliverRunnable);
+            // stop() may have come in while this sample was being taken
+            if (!running) return;
+            sampleHandler.postDelayed(this, Math.max(0, INTERVAL_MS - (SystemClock.uptimeMillis() - started)));
+        }
+    };
+
+    // Restarts the sampling chain on the sampling thread, where no sample
+    // can be in flight and re-post itself next to the new one
+    private final Runnable startRunnable = new Runnable() {
+        @Override
+        public void run() {
+            sampleHandler.removeCallbacks(sampleRunnable);
+            sampleRunnable.run();
+        }
+    };
+
+    // Ends the chain, releases the file and drops the baselines, so the
+    // first second after a restart is not averaged over the pause
+    private final Runnable resetRunnable = new Runnable() {
+        @Override
+        public void run() {
+            sampleHandler.removeCallbacks(sampleRunnable);
+            netDev.close();
+            for (int slot = 0; slot <= MAX_INTERFACES; slot++) {
+                hasPrevious[slot] = false;
+            }
+            synchronized (NetworkThroughputSampler.this) {
+                for (int slot = 0; slot <= MAX_INTERFACES; slot++) {
+                    rateValid[slot] = false;
+                }
+            }
+        }
+    };
+
+    private final Runnable deliverRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Listener current = listener;
+            if (current != null) {
+                current.onThroughputSample(NetworkThroughputSampler.this);
+            }
+        }
+    };
+
+    public NetworkThroughputSampler() {
+        thread = new HandlerThread("NetworkThroughputSampler", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        sampleHandler = new Handler(thread.getLooper());
+    }
+
+    // Main thread; start and stop only post to the sampling thread
+    public void start(Listener listener) {
+        this.listener = listener;
+        if (shutDown) return;
+
+        running = true;
+        sampleHandler.post(startRunnable);
+    }
+
+    public void stop() {
+        listener = null;
+        running = false;
+        mainHandler.removeCallbacks(deliverRunnable);
+        sampleHandler.removeCallbacks(startRunnable);
+        sampleHandler.post(resetRunnable);
+    }
+
+    // Final; the thread finishes the reset posted by stop() and ends
+    public void shutdown() {
+        if (shutDown) return;
+        stop();
+        shutDown = true;
+        thread.quitSafely();
+    }
+
+    // False until two readings have been taken, or when no source works
+    public synchronized boolean hasRates() {
+        return available && rateValid[TOTAL];
+    }
+
+    // Whether per-interface rates exist, or only the TrafficStats total
+    public synchronized boolean isPerInterface() {
+        return perInterface;
+    }
+
+    // Smoothed rate per second of one of RX_BYTES, RX_PACKETS, TX_BYTES or
+    // TX_PACKETS, summed over every interface except loopback
+    public synchronized double getTotalRate(int counter) {
+        return rates[TOTAL * COUNTERS + counter];
+    }
+
+    public synchronized int getInterfaceCount() {
+        return nameCount;
+    }
+
+    public synchronized String getInterfaceName(int index) {
+        return names[index];
+    }
+
+    // Negative if the interface has no rate yet or has disappeared
+    public synchronized double getInterfaceRate(int index, int counter) {
+        return rateValid[index] ? rates[index * COUNTERS + counter] : -1;
+    }
+
+    // Interface with the highest combined byte rate, or -1 if all are idle
+    public synchronized int getBusiestInterface() {
+        int busiest = -1;
+        double best = 0;
+        for (int i = 0; i < nameCount; i++) {
+            if (!rateValid[i]) continue;
+            double bytes = rates[i * COUNTERS + RX_BYTES] + rates[i * COUNTERS + TX_BYTES];
+            if (bytes > best) {
+                busiest = i;
+                best = bytes;
+            }
+        }
+        return busiest;
+    }
+
+    // Sampling thread
+    private void sampleOnce(long uptime) {
+        for (int slot = 0; slot <= MAX_INTERFACES; slot++) {
+            present[slot] = false;
+        }
+
+        boolean ok = netDevReadable && readNetDev();
+        if (!ok) {
+            netDevReadable = false;
+            ok = readTrafficStats();
+        }
+
+        double seconds = (uptime - previousUptime) / 1000.0;
+        previousUptime = uptime;
+
+        synchronized (this) {
+            available = ok;
+            perInterface = netDevReadable;
+            for (int slot = 0; slot <= MAX_INTERFACES; slot++) {
+                if (!present[slot]) {
+                    rateValid[slot] = false;
+                    hasPrevious[slot] = false;
+                    continue;
+                }
+                updateRates(slot, seconds);
+            }
+        }
+    }
+
+    // Guarded by this
+    private void updateRates(int slot, double seconds) {
+        int base = slot * COUNTERS;
+        if (hasPrevious[slot] && seconds > 0) {
+            for (int i = 0; i < COUNTERS; i++) {
+                // Counters reset when an interface goes down and up again
+                double rate = Math.max(0, counters[base + i] - previous[base + i]) / seconds;
+                rates[base + i] = rateValid[slot]
+                    ? rates[base + i] + SMOOTHING * (rate - rates[base + i])
+                    : rate;
+            }
+            rateValid[slot] = true;
+        }
+        System.arraycopy(counters, base, previous, base, COUNTERS);
+        hasPrevious[slot] = true;
+    }
+
+    // Two header lines, then "iface: rx_bytes rx_packets errs drop fifo
+    // frame compressed multicast tx_bytes tx_packets ..."
+    private boolean readNetDev() {
+        ProcCursor cursor = netDev.readOrNull();
+        if (cursor == null || !cursor.nextLine() || !cursor.nextLine()) return false;
+
+        int totalBase = TOTAL * COUNTERS;
+        for (int i = 0; i < COUNTERS; i++) {
+            counters[totalBase + i] = 0;
+        }
+
+        while (cursor.nextLine()) {
+            if (!cursor.nextToken()) continue;
+            // Loopback traffic never leaves the device; it gets no slot
+            boolean loopback = cursor.tokenEquals(LOOPBACK);
+            int slot = loopback ? -1 : findSlot(cursor);
+
+            long rxBytes = cursor.nextLong();
+            long rxPackets = cursor.nextLong();
+            cursor.skipTokens(6);
+            long txBytes = cursor.nextLong();
+            long txPackets = cursor.nextLong();
+            if (txPackets == ProcCursor.MISSING) continue;
+
+            if (slot >= 0) {
+                int base = slot * COUNTERS;
+                counters[base + RX_BYTES] = rxBytes;
+                counters[base + RX_PACKETS] = rxPackets;
+                counters[base + TX_BYTES] = txBytes;
+                counters[base + TX_PACKETS] = txPackets;
+                present[slot] = true;
+            }
+            if (!loopback) {
+                counters[totalBase + RX_BYTES] += rxBytes;
+                counters[totalBase + RX_PACKETS] += rxPackets;
+                counters[totalBase + TX_BYTES] += txBytes;
+                counters[totalBase + TX_PACKETS] += txPackets;
+            }
+        }
+        present[TOTAL] = true;
+        return true;
+    }
+
+    // Slot for the interface named by the cursor's token, adding it on
+    // first sight; -1 once MAX_INTERFACES are taken
+    private int findSlot(ProcCursor cursor) {
+        int length = cursor.tokenLength();
+        for (int slot = 0; slot < interfaceSlots; slot++) {
+            if (nameLengths[slot] != length) continue;
+            byte[] name = nameBytes[slot];
+            int i = 0;
+            while (i < length && name[i] == cursor.tokenByte(i)) i++;
+            if (i == length) return slot;
+        }
+        if (interfaceSlots == MAX_INTERFACES || length > nameBytes[0].length) return -1;
+
+        int slot = interfaceSlots++;
+        nameLengths[slot] = cursor.copyToken(nameBytes[slot]);
+        String name = new String(nameBytes[slot], 0, nameLengths[slot]);
+        synchronized (this) {
+            names[slot] = name;
+            nameCount = interfaceSlots;
+        }
+        return slot;
+    }
+
+    private boolean readTrafficStats() {
+        long rxBytes = TrafficStats.getTotalRxBytes();
+        if (rxBytes == TrafficStats.UNSUPPORTED) return false;
+
+        int base = TOTAL * COUNTERS;
+        counters[base + RX_BYTES] = rxBytes;
+        counters[base + RX_PACKETS] = TrafficStats.getTotalRxPackets();
+        counters[base + TX_BYTES] = TrafficStats.getTotalTxBytes();
+        counters[base + TX_PACKETS] = TrafficStats.getTotalTxPackets();
+        present[TOTAL] = true;
+        return true;
+    }
+}
@@ -0,0 +1,321 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Nanosecond spans around startup and refresh phases. Recording writes into
+// preallocated arrays and never allocates:
+//
+//     long t = PhaseTracer.begin();
+//     ...
+//     PhaseTracer.end(PhaseTracer.STYLE_TABS, t);
+//
+// end() returns its own timestamp, so back-to-back phases can be chained
+// with t = PhaseTracer.end(PHASE, t).
+//
+// Each phase keeps its last SAMPLES_PER_PHASE durations, persisted across
+// launches so p50/p95 cover many cold starts, plus a short ring of recent
+// spans in order for the timeline. Main thread only; the history file is
+// read and written on a background thread, so tracing never adds disk I/O
+// to the frames it measures.
+public final class PhaseTracer {
+
+    private static final String TAG = "PhaseTracer";
+
+    public static final int ON_CREATE = 0;
+    public static final int SETUP_TABS = 1;
+    public static final int CREATE_TABS = 2;
+    public static final int STYLE_TABS = 3;
+    public static final int LOAD_FRAGMENT = 4;
+    public static final int DEVICE_INFLATE = 5;
+    public static final int DEVICE_SECTIONS = 6;
+    public static final int DEVICE_POPULATE = 7;
+    public static final int UPDATE_STORAGE = 8;
+    public static final int UPDATE_RAM = 9;
+    public static final int UPDATE_NETWORK = 10;
+    public static final int UPDATE_RATING = 11;
+    public static final int UPDATE_LAST_UPDATED = 12;
+    public static final int TAB_SWITCH = 13;
+    public static final int PHASE_COUNT = 14;
+
+    private static final String[] NAMES = {
+        "onCreate", "setupTabs", "createTabs", "styleTabs", "loadFragment",
+        "device.inflate", "device.sections", "device.populate",
+        "updateStorageInfo", "updateRamInfo", "updateNetworkInfo",
+        "updateDeviceRating", "updateLastUpdatedTime", "tabSwitch"
+    };
+
+    private static final int SAMPLES_PER_PHASE = 64;
+    private static final int SPAN_CAPACITY = 256;
+    private static final int TIMELINE_ROWS = 40;
+
+    private static final int FILE_MAGIC = 0x50545243; // "PTRC"
+    private static final int FILE_VERSION = 1;
+
+    // Per-phase duration rings; sampleTotals counts every sample ever added
+    private static final long[] samples = new long[PHASE_COUNT * SAMPLES_PER_PHASE];
+    private static final int[] sampleTotals = new int[PHASE_COUNT];
+
+    // Recent spans in recording order
+    private static final byte[] spanPhases = new byte[SPAN_CAPACITY];
+    private static final long[] spanStarts = new long[SPAN_CAPACITY];
+    private static final long[] spanDurations = new long[SPAN_CAPACITY];
+    private static int spanTotal = 0;
+
+    private static File historyFile;
+    private static ExecutorService io;
+    private static Handler mainHandler;
+
+    // Main thread: earlier runs' samples have been put in front of this run's
+    private static boolean historyMerged = false;
+
+    // io thread only: what the file held at launch, per phase oldest first
+    private static long[][] diskHistory;
+
+    private PhaseTracer() {
+    }
+
+    // Starts reading earlier runs' history in the background; reports only
+    // include it once it has been merged back on the main thread
+    public static void init(Context context) {
+        if (historyFile != null) return;
+
+        historyFile = new File(context.getFilesDir(), "phase_trace.bin");
+        mainHandler = new Handler(Looper.getMainLooper());
+        io = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "PhaseTracer");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            }
+        });
+        final File file = historyFile;
+        io.execute(new Runnable() {
+            @Override
+            public void run() {
+                diskHistory = readHistory(file);
+                final long[][] loaded = diskHistory;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mergeHistory(loaded);
+                    }
+                });
+            }
+        });
+    }
+
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static long end(int phase, long beginNanos) {
+        long now = System.nanoTime();
+        long duration = now - beginNanos;
+
+        int slot = spanTotal % SPAN_CAPACITY;
+        spanPhases[slot] = (byte) phase;
+        spanStarts[slot] = beginNanos;
+        spanDurations[slot] = duration;
+        spanTotal++;
+
+        addSample(phase, duration);
+        return now;
+    }
+
+    private static void addSample(int phase, long duration) {
+        samples[phase * SAMPLES_PER_PHASE + sampleTotals[phase] % SAMPLES_PER_PHASE] = duration;
+        sampleTotals[phase]++;
+    }
+
+    // Oldest first
+    private static long[] phaseSamples(int phase) {
+        int count = Math.min(sampleTotals[phase], SAMPLES_PER_PHASE);
+        int first = sampleTotals[phase] - count;
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = samples[phase * SAMPLES_PER_PHASE + (first + i) % SAMPLES_PER_PHASE];
+        }
+        return result;
+    }
+
+    public static void logSummary() {
+        for (String line : formatSummary().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+
+    // Per-phase table followed by the most recent spans
+    public static String formatReport() {
+        StringBuilder sb = new StringBuilder(formatSummary());
+
+        int count = Math.min(spanTotal, TIMELINE_ROWS);
+        if (count > 0) {
+            sb.append("\nRecent spans (ms from first shown):\n");
+            int first = spanTotal - count;
+            long origin = spanStarts[first % SPAN_CAPACITY];
+            for (int i = first; i < spanTotal; i++) {
+                int slot = i % SPAN_CAPACITY;
+                sb.append(String.format(Locale.US, "%8.1f  %-22s %8.2f\n",
+                                        (spanStarts[slot] - origin) / 1e6,
+                                        NAMES[spanPhases[slot]], spanDurations[slot] / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String formatSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-22s %4s %8s %8s %8s\n", "phase (ms)", "n", "p50", "p95", "last"));
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            long[] values = phaseSamples(phase);
+            if (values.length == 0) continue;
+
+            long last = values[values.length - 1];
+            Arrays.sort(values);
+            sb.append(String.format(Locale.US, "%-22s %4d %8.2f %8.2f %8.2f\n", NAMES[phase], values.length,
+                                    percentile(values, 50) / 1e6, percentile(values, 95) / 1e6, last / 1e6));
+        }
+        return sb.toString();
+    }
+
+    // Nearest rank on sorted values
+    private static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    // Writes every phase's samples, including those loaded from earlier
+    // runs, on the io thread. Only copying the samples runs here.
+    public static void save() {
+        if (historyFile == null) return;
+
+        final long[][] current = new long[PHASE_COUNT][];
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            current[phase] = phaseSamples(phase);
+        }
+        final boolean merged = historyMerged;
+        final File file = historyFile;
+        io.execute(new Runnable() {
+            @Override
+            public void run() {
+                // The load ran first on this thread; if its result has not
+                // reached the main thread yet, put it in front here
+                writeHistory(file, merged ? current : concat(diskHistory, current));
+            }
+        });
+    }
+
+    // Puts earlier runs' samples in front of this run's, once per process
+    private static void mergeHistory(long[][] loaded) {
+        if (historyMerged) return;
+        historyMerged = true;
+
+        long[][] current = new long[PHASE_COUNT][];
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            current[phase] = phaseSamples(phase);
+        }
+        Arrays.fill(sampleTotals, 0);
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            for (long value : loaded[phase]) {
+                addSample(phase, value);
+            }
+            for (long value : current[phase]) {
+                addSample(phase, value);
+            }
+        }
+    }
+
+    // Per phase, the last SAMPLES_PER_PHASE of first followed by second
+    private static long[][] concat(long[][] first, long[][] second) {
+        long[][] result = new long[PHASE_COUNT][];
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            int total = first[phase].length + second[phase].length;
+            long[] values = new long[Math.min(total, SAMPLES_PER_PHASE)];
+            int skip = total - values.length;
+            for (int i = 0; i < values.length; i++) {
+                int index = skip + i;
+                values[i] = index < first[phase].length
+                    ? first[phase][index]
+                    : second[phase][index - first[phase].length];
+            }
+            result[phase] = values;
+        }
+        return result;
+    }
+
+    private static void writeHistory(File file, long[][] values) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(PHASE_COUNT);
+                for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                    out.writeInt(values[phase].length);
+                    for (long value : values[phase]) {
+                        out.writeLong(value);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot save phase history", e);
+        }
+    }
+
+    // Empty arrays when there is no usable file
+    private static long[][] readHistory(File file) {
+        long[][] history = new long[PHASE_COUNT][];
+        Arrays.fill(history, new long[0]);
+        if (!file.isFile()) return history;
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return history;
+                // Phases added since the file was written simply have no history
+                int phases = Math.min(in.readInt(), PHASE_COUNT);
+                for (int phase = 0; phase < phases; phase++) {
+                    int count = in.readInt();
+                    if (count < 0 || count > SAMPLES_PER_PHASE) {
+                        throw new IOException("Bad sample count " + count);
+                    }
+                    long[] values = new long[count];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = in.readLong();
+                    }
+                    history[phase] = values;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable phase history", e);
+            Arrays.fill(history, new long[0]);
+        }
+        return history;
+    }
+}
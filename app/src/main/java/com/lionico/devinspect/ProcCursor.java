@@ -0,0 +1,222 @@
+package com.lionico.devinspect;
+
+import java.nio.charset.Charset;
+
+// Line and token cursor over the bytes of a /proc or /sys text file. Reads
+// numbers straight from the bytes and compares tokens against byte[] keys
+// made once with ascii(), so walking a file allocates nothing:
+//
+//     ProcCursor cursor = meminfo.read();
+//     while (cursor.nextLine()) {
+//         if (cursor.nextToken() && cursor.tokenEquals(MEM_TOTAL)) {
+//             total = cursor.nextLong();
+//         }
+//     }
+//
+// Tokens are separated by spaces, tabs and ':', which covers the
+// "key: value" and "iface: counters" layouts as well as plain columns.
+// Not thread-safe; one per reader.
+public final class ProcCursor {
+
+    // Returned by the number parsers when there is no number at the cursor
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private byte[] data;
+    private int limit;
+    private int pos;
+    private int lineEnd;
+    private int nextLineStart;
+    private int tokenStart;
+    private int tokenEnd;
+
+    public static byte[] ascii(String key) {
+        return key.getBytes(ASCII);
+    }
+
+    public ProcCursor reset(byte[] data, int length) {
+        this.data = data;
+        this.limit = length;
+        pos = 0;
+        lineEnd = 0;
+        nextLineStart = 0;
+        tokenStart = 0;
+        tokenEnd = 0;
+        return this;
+    }
+
+    // Moves to the start of the next line; false once the data is used up
+    public boolean nextLine() {
+        if (nextLineStart >= limit) {
+            pos = lineEnd = limit;
+            return false;
+        }
+        pos = nextLineStart;
+        int end = pos;
+        while (end < limit && data[end] != '\n') end++;
+        lineEnd = end;
+        nextLineStart = end + 1;
+        return true;
+    }
+
+    // Whether the rest of the current line starts with prefix; does not move
+    public boolean startsWith(byte[] prefix) {
+        if (lineEnd - pos < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[pos + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // Consumes prefix if the line continues with it
+    public boolean skip(byte[] prefix) {
+        if (!startsWith(prefix)) return false;
+        pos += prefix.length;
+        return true;
+    }
+
+    // Skips separators, then consumes c if it is next
+    public boolean skip(char c) {
+        skipSpaces();
+        if (pos < lineEnd && data[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    public void skipSpaces() {
+        while (pos < lineEnd && (data[pos] == ' ' || data[pos] == '\t')) pos++;
+    }
+
+    // Marks the next token; read it with tokenEquals(), tokenLength() or
+    // tokenByte(). False at the end of the line.
+    public boolean nextToken() {
+        while (pos < lineEnd && isSeparator(data[pos])) pos++;
+        if (pos >= lineEnd) return false;
+
+        tokenStart = pos;
+        while (pos < lineEnd && !isSeparator(data[pos])) pos++;
+        tokenEnd = pos;
+        return true;
+    }
+
+    public boolean skipTokens(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!nextToken()) return false;
+        }
+        return true;
+    }
+
+    public boolean tokenEquals(byte[] expected) {
+        if (tokenEnd - tokenStart != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (data[tokenStart + i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    public boolean tokenStartsWith(byte[] prefix) {
+        if (tokenEnd - tokenStart < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[tokenStart + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    // Digits of the token from offset on, e.g. the 3 of "cpu3", or MISSING
+    public long tokenLong(int offset) {
+        int i = tokenStart + offset;
+        if (i >= tokenEnd || !isDigit(data[i])) return MISSING;
+
+        long value = 0;
+        while (i < tokenEnd && isDigit(data[i])) {
+            value = value * 10 + (data[i++] - '0');
+        }
+        return value;
+    }
+
+    public int tokenLength() {
+        return tokenEnd - tokenStart;
+    }
+
+    public byte tokenByte(int index) {
+        return data[tokenStart + index];
+    }
+
+    // Copies the token into dst for callers that must keep it, such as an
+    // interface name seen for the first time; returns the length copied
+    public int copyToken(byte[] dst) {
+        int length = Math.min(tokenEnd - tokenStart, dst.length);
+        System.arraycopy(data, tokenStart, dst, 0, length);
+        return length;
+    }
+
+    // Next decimal integer on the line, optionally negative, or MISSING.
+    // Stops at the first non-digit, so "3809024 kB" reads as 3809024.
+    public long nextLong() {
+        boolean negative = skipSign();
+        if (pos >= lineEnd || !isDigit(data[pos])) return MISSING;
+
+        long value = 0;
+        while (pos < lineEnd && isDigit(data[pos])) {
+            value = value * 10 + (data[pos++] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Decimal number scaled to a fixed number of decimals, e.g. the
+    // loadavg "0.52" read with decimals 2 gives 52. Extra digits are
+    // dropped, missing ones count as zero.
+    public long nextFixed(int decimals) {
+        boolean negative = skipSign();
+        if (pos >= lineEnd || !isDigit(data[pos])) return MISSING;
+
+        long value = 0;
+        while (pos < lineEnd && isDigit(data[pos])) {
+            value = value * 10 + (data[pos++] - '0');
+        }
+        int digits = 0;
+        if (pos < lineEnd && data[pos] == '.') {
+            pos++;
+            while (pos < lineEnd && isDigit(data[pos])) {
+                if (digits < decimals) {
+                    value = value * 10 + (data[pos] - '0');
+                    digits++;
+                }
+                pos++;
+            }
+        }
+        for (; digits < decimals; digits++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    // Skips separators and a leading minus; true if there was one
+    private boolean skipSign() {
+        while (pos < lineEnd && isSeparator(data[pos])) pos++;
+        if (pos < lineEnd && data[pos] == '-') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    // Number at the very start of the data, the usual shape of a sysfs
+    // value such as scaling_cur_freq; MISSING if the data starts otherwise
+    public long firstLong() {
+        nextLineStart = 0;
+        if (!nextLine()) return MISSING;
+        return nextLong();
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ':';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,88 @@
+package com.lionico.devinspect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+// A /proc or /sys file read again and again into the same buffer. The file
+// stays open between reads and is rewound instead of reopened; procfs and
+// sysfs regenerate the text on every read from offset 0. A failed read
+// closes the file so the next one starts fresh.
+//
+// Size the buffer for the part you need: files like /proc/stat are read
+// only up to capacity, so put the lines you parse first or pass enough.
+// Not thread-safe; one per reader.
+public final class ProcFile implements Closeable {
+
+    private final String path;
+    private final byte[] buffer;
+    private final ProcCursor cursor = new ProcCursor();
+    private RandomAccessFile file;
+    private int length;
+
+    public ProcFile(String path, int capacity) {
+        this.path = path;
+        this.buffer = new byte[capacity];
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    // Reads the file from the start and returns a cursor over what was read
+    public ProcCursor read() throws IOException {
+        try {
+            if (file == null) {
+                file = new RandomAccessFile(path, "r");
+            } else {
+                file.seek(0);
+            }
+            length = 0;
+            while (length < buffer.length) {
+                int read = file.read(buffer, length, buffer.length - length);
+                if (read <= 0) break;
+                length += read;
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        return cursor.reset(buffer, length);
+    }
+
+    // read() for callers that treat an unreadable file as absent: null on
+    // any failure, including SELinux denials surfacing as SecurityException
+    public ProcCursor readOrNull() {
+        try {
+            return read();
+        } catch (IOException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    // First number in the file, or ProcCursor.MISSING if it cannot be read
+    public long readLong() {
+        ProcCursor current = readOrNull();
+        return current != null ? current.firstLong() : ProcCursor.MISSING;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void close() {
+        if (file == null) return;
+        try {
+            file.close();
+        } catch (IOException ignored) {
+        }
+        file = null;
+    }
+}
@@ -5,12 +5,15 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.app.AlertDialog;
+import android.graphics.Typeface;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 import android.content.ClipboardManager;
 import android.content.ClipData;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
 import android.provider.Settings;
@@ -18,13 +21,27 @@ import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CameraAccessException;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.util.DisplayMetrics;
+import java.io.File;
+import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Date;
 
 public class QuickToolsFragment extends Fragment {
 
     private Button btnClipboardCopy, btnClipboardPaste, btnOpenSettings;
-    private Button btnShareText, btnOpenBrowser, btnFlashlight;
-    private TextView tvClipboardContent, tvFlashlightStatus, tvFlashlightInfo;
+    private Button btnShareText, btnOpenBrowser, btnFlashlight, btnTimingReport, btnBackgroundSampling;
+    private TextView tvClipboardContent, tvFlashlightStatus, tvFlashlightInfo, tvSamplingStatus;
     private ClipboardManager clipboard;
+    private DeviceReport deviceReport;
+
+    private static final long[] SAMPLING_INTERVALS_MS = {
+        0, SamplingJobService.MIN_INTERVAL_MS, 30 * 60 * 1000L, 60 * 60 * 1000L,
+        3 * 60 * 60 * 1000L, 6 * 60 * 60 * 1000L
+    };
+    private static final String[] SAMPLING_LABELS = {
+        "Off", "Every 15 minutes", "Every 30 minutes", "Every hour", "Every 3 hours", "Every 6 hours"
+    };
 
     // Flashlight variables
     private CameraManager cameraManager;
@@ -56,9 +73,12 @@ public class QuickToolsFragment extends Fragment {
         btnShareText = view.findViewById(R.id.btnShareText);
         btnOpenBrowser = view.findViewById(R.id.btnOpenBrowser);
         btnFlashlight = view.findViewById(R.id.btnFlashlight);
+        btnTimingReport = view.findViewById(R.id.btnTimingReport);
+        btnBackgroundSampling = view.findViewById(R.id.btnBackgroundSampling);
         tvClipboardContent = view.findViewById(R.id.tvClipboardContent);
         tvFlashlightStatus = view.findViewById(R.id.tvFlashlightStatus);
         tvFlashlightInfo = view.findViewById(R.id.tvFlashlightInfo);
+        tvSamplingStatus = view.findViewById(R.id.tvSamplingStatus);
 
         clipboard = (ClipboardManager) getActivity().getSystemService(Context.CLIPBOARD_SERVICE);
     }
@@ -150,26 +170,32 @@ public class QuickToolsFragment extends Fragment {
                 }
             });
 
-        // Share Text
+        // Startup and refresh phase timings
+        btnTimingReport.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    showTimingReport();
+                }
+            });
+
+        // Sampling while the app is closed
+        btnBackgroundSampling.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    chooseSamplingInterval();
+                }
+            });
+
+        // Export the full device report
         btnShareText.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    try {
-                        String shareText = "Device Information:\n";
-                        shareText += "Device: " + Build.MANUFACTURER + " " + Build.MODEL + "\n";
-                        shareText += "Android: " + Build.VERSION.RELEASE + "\n";
-                        shareText += "App: Device Inspector\n";
-                        shareText += "Time: " + 
-                            new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date());
-
-                        Intent shareIntent = new Intent(Intent.ACTION_SEND);
-                        shareIntent.setType("text/plain");
-                        shareIntent.putExtra(Intent.EXTRA_TEXT, shareText);
-                        shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Device Information");
-
-                        startActivity(Intent.createChooser(shareIntent, "Share via"));
-                    } catch (Exception e) {
-                        showToast("No app available to share");
+                    if (deviceReport != null && deviceReport.isRunning()) {
+                        deviceReport.cancel();
+                        btnShareText.setText("Export Device Report");
+                        showToast("Export cancelled");
+                    } else {
+                        chooseReportExport();
                     }
                 }
             });
@@ -198,6 +224,146 @@ public class QuickToolsFragment extends Fragment {
             });
     }
 
+    private void chooseSamplingInterval() {
+        if (getActivity() == null) return;
+
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Background Sampling")
+            .setItems(SAMPLING_LABELS, new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    if (getActivity() == null) return;
+                    if (!SamplingJobService.schedule(getActivity(), SAMPLING_INTERVALS_MS[which])) {
+                        showToast("Could not schedule sampling");
+                    }
+                    updateSamplingStatus();
+                }
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    // Schedule plus what the job has cost so far, from its own log
+    private void updateSamplingStatus() {
+        if (getActivity() == null) return;
+
+        StringBuilder sb = new StringBuilder(128);
+        long interval = SamplingJobService.getIntervalMs(getActivity());
+        String label = null;
+        for (int i = 0; i < SAMPLING_INTERVALS_MS.length; i++) {
+            if (SAMPLING_INTERVALS_MS[i] == interval) label = SAMPLING_LABELS[i];
+        }
+        if (label != null) {
+            sb.append(label);
+        } else {
+            DisplayFormat.appendDuration(sb.append("Every "), interval);
+        }
+        char separator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+        BackgroundSampleLog log = BackgroundSampleLog.getInstance(getActivity());
+        if (log != null && log.getWakeupCount() > 0) {
+            long runs = log.getRunCount();
+            long cpuMicros = log.getCpuMicros();
+            sb.append("\n").append(log.getWakeupCount()).append(" wakeups, ")
+                .append(runs).append(" samples, ").append(log.getStopCount()).append(" stopped");
+            DisplayFormat.appendFixed(sb.append("\nCPU "), cpuMicros / 1000.0, 1, separator).append(" ms total");
+            if (runs > 0) {
+                DisplayFormat.appendFixed(sb.append(", "), cpuMicros / 1000.0 / runs, 2, separator).append(" ms per sample");
+                sb.append("\nLast sample ").append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT)
+                                                   .format(new Date(log.getLastRunTime())));
+            }
+        }
+        tvSamplingStatus.setText(sb.toString());
+    }
+
+    private void chooseReportExport() {
+        if (getActivity() == null) return;
+
+        String[] labels = {"Share as JSON", "Share as CBOR", "Save JSON to app folder", "Save CBOR to app folder"};
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Export Device Report")
+            .setItems(labels, new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    boolean share = which < 2;
+                    int format = which % 2 == 0 ? DeviceReport.FORMAT_JSON : DeviceReport.FORMAT_CBOR;
+                    exportReport(share, format);
+                }
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    private void exportReport(final boolean share, int format) {
+        if (getActivity() == null) return;
+
+        // The app folder on shared storage is reachable over USB; shared
+        // reports stay private and are handed out through ReportProvider
+        File dir = share ? DeviceReport.shareDir(getActivity()) : getActivity().getExternalFilesDir(null);
+        if (dir == null) {
+            showToast("Shared storage not available");
+            return;
+        }
+        if (deviceReport == null) {
+            deviceReport = new DeviceReport(getActivity());
+        }
+
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        btnShareText.setText("Cancel Export");
+        deviceReport.start(dir, format, metrics.widthPixels, metrics.heightPixels, metrics.density,
+            new DeviceReport.Listener() {
+                @Override
+                public void onComplete(DeviceReport.Result result) {
+                    btnShareText.setText("Export Device Report");
+                    if (result.error != null) {
+                        showToast("Export failed: " + result.error);
+                    } else if (share) {
+                        shareReport(result);
+                    } else {
+                        showToast("Saved " + FileExplorerFragment.formatSize(result.bytes) + " in "
+                                  + result.elapsedMs + " ms to " + result.file.getPath());
+                    }
+                }
+            });
+    }
+
+    private void shareReport(DeviceReport.Result result) {
+        try {
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType(result.mimeType);
+            shareIntent.putExtra(Intent.EXTRA_STREAM, ReportProvider.uriFor(result.file));
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, "Device Report: " + Build.MANUFACTURER + " " + Build.MODEL);
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+
+            startActivity(Intent.createChooser(shareIntent, "Share via"));
+        } catch (Exception e) {
+            showToast("No app available to share");
+        }
+    }
+
+    private void showTimingReport() {
+        if (getActivity() == null) return;
+
+        PhaseTracer.logSummary();
+
+        TextView report = new TextView(getActivity());
+        report.setText(PhaseTracer.formatReport());
+        report.setTypeface(Typeface.MONOSPACE);
+        report.setTextSize(10);
+        report.setTextIsSelectable(true);
+        int padding = (int) (12 * getResources().getDisplayMetrics().density);
+        report.setPadding(padding, padding, padding, padding);
+
+        android.widget.ScrollView scroll = new android.widget.ScrollView(getActivity());
+        scroll.addView(report);
+
+        new AlertDialog.Builder(getActivity())
+            .setTitle("Timing Report")
+            .setView(scroll)
+            .setPositiveButton("Close", null)
+            .show();
+    }
+
     private void toggleFlashlight() {
         if (!isFlashlightAvailable) {
             showToast("Flashlight is not available");
@@ -273,6 +439,7 @@ public class QuickToolsFragment extends Fragment {
     public void onResume() {
         super.onResume();
         updateClipboardDisplay();
+        updateSamplingStatus();
 
         // When returning to fragment, ensure flashlight state is reset
         // We track it manually since we can't query it
@@ -304,6 +471,10 @@ public class QuickToolsFragment extends Fragment {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (deviceReport != null) {
+            deviceReport.shutdown();
+            deviceReport = null;
+        }
         // Ensure flashlight is off
         if (isFlashlightOn && isFlashlightAvailable) {
             try {
@@ -0,0 +1,111 @@
+package com.lionico.devinspect;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import java.io.File;
+import java.io.FileNotFoundException;
+
+// Read-only access to exported reports for the app picked in the share
+// sheet. Not exported: a receiver can only open the one URI it was granted
+// with FLAG_GRANT_READ_URI_PERMISSION, and only files directly inside
+// DeviceReport.shareDir() resolve. file:// URIs cannot be shared since
+// Android 7.
+public class ReportProvider extends ContentProvider {
+
+    public static final String AUTHORITY = "com.lionico.devinspect.reports";
+
+    public static Uri uriFor(File report) {
+        return new Uri.Builder().scheme("content").authority(AUTHORITY).appendPath(report.getName()).build();
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    // Only plain names under the share directory; no separators, so
+    // nothing like ".." can escape it
+    private File fileFor(Uri uri) throws FileNotFoundException {
+        String name = uri.getLastPathSegment();
+        if (name == null || name.indexOf('/') >= 0 || name.startsWith(".")) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        File file = new File(DeviceReport.shareDir(getContext()), name);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        return file;
+    }
+
+    @Override
+    public ParcelFileDescriptor openFile(Uri uri, String mode) throws FileNotFoundException {
+        if (!"r".equals(mode)) {
+            throw new SecurityException("Reports are read-only");
+        }
+        return ParcelFileDescriptor.open(fileFor(uri), ParcelFileDescriptor.MODE_READ_ONLY);
+    }
+
+    // Name and size are what share targets ask for before reading
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs,
+                        String sortOrder) {
+        File file;
+        try {
+            file = fileFor(uri);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        if (projection == null) {
+            projection = new String[] {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE};
+        }
+
+        String[] columns = new String[projection.length];
+        Object[] values = new Object[projection.length];
+        int count = 0;
+        for (String column : projection) {
+            if (OpenableColumns.DISPLAY_NAME.equals(column)) {
+                columns[count] = column;
+                values[count++] = file.getName();
+            } else if (OpenableColumns.SIZE.equals(column)) {
+                columns[count] = column;
+                values[count++] = file.length();
+            }
+        }
+        String[] resultColumns = new String[count];
+        Object[] row = new Object[count];
+        System.arraycopy(columns, 0, resultColumns, 0, count);
+        System.arraycopy(values, 0, row, 0, count);
+
+        MatrixCursor cursor = new MatrixCursor(resultColumns, 1);
+        cursor.addRow(row);
+        return cursor;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        String name = uri.getLastPathSegment();
+        if (name != null && name.endsWith(".cbor")) return "application/cbor";
+        if (name != null && name.endsWith(".json")) return "application/json";
+        return "application/octet-stream";
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException("Reports are read-only");
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Reports are read-only");
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Reports are read-only");
+    }
+}
@@ -0,0 +1,453 @@
+package com.lionico.devinspect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Streaming encoder for machine-readable reports, in JSON or CBOR (RFC
+// 8949). Names and values are encoded straight into one byte buffer that
+// is flushed to the stream as it fills: no DOM, no maps and no per-value
+// Strings, so a report's cost is its size on the wire.
+//
+// The two formats take the same calls. CBOR objects and arrays use the
+// indefinite-length encoding, which needs no element count up front.
+// Misnested calls are not detected; the caller's code shape is the schema.
+public abstract class ReportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DEPTH = 32;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long written;
+
+    ReportWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public static ReportWriter json(OutputStream out) {
+        return new Json(out);
+    }
+
+    public static ReportWriter cbor(OutputStream out) {
+        return new Cbor(out);
+    }
+
+    public abstract ReportWriter beginObject() throws IOException;
+
+    public abstract ReportWriter endObject() throws IOException;
+
+    public abstract ReportWriter beginArray() throws IOException;
+
+    public abstract ReportWriter endArray() throws IOException;
+
+    // Key of the next value inside an object
+    public abstract ReportWriter name(String name) throws IOException;
+
+    public abstract ReportWriter value(long value) throws IOException;
+
+    // Rounded to decimals places (at most 6); NaN and infinities are written as null
+    public abstract ReportWriter value(double value, int decimals) throws IOException;
+
+    public abstract ReportWriter value(boolean value) throws IOException;
+
+    // null writes null
+    public abstract ReportWriter value(String value) throws IOException;
+
+    public abstract ReportWriter nullValue() throws IOException;
+
+    public abstract String getMimeType();
+
+    // Bytes encoded so far, flushed or not
+    public long getBytesWritten() {
+        return written + position;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            written += position;
+            position = 0;
+        }
+    }
+
+    final void ensure(int bytes) throws IOException {
+        if (BUFFER_SIZE - position < bytes) {
+            flushBuffer();
+        }
+    }
+
+    final void writeByte(int b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    final void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    // Decimal digits of a non-negative value, zero-padded to minDigits
+    final void writeDigits(long value, int minDigits) throws IOException {
+        ensure(20);
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    // JSON escapes quotes, backslashes and control characters; CBOR passes
+    // everything through
+    final void writeUtf8(String s, boolean escape) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (escape && (c < 0x20 || c == '"' || c == '\\')) {
+                    writeEscape(c);
+                } else {
+                    writeByte(c);
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xF0 | cp >> 18);
+                buffer[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | cp & 0x3F);
+            } else {
+                // Unpaired surrogates become U+FFFD, as String.getBytes() does
+                if (Character.isSurrogate(c)) c = '\uFFFD';
+                ensure(3);
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    // Length of s once encoded by writeUtf8() without escaping
+    static int utf8Length(String s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 2;
+                i++;
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    private void writeEscape(char c) throws IOException {
+        writeByte('\\');
+        switch (c) {
+            case '"': writeByte('"'); break;
+            case '\\': writeByte('\\'); break;
+            case '\n': writeByte('n'); break;
+            case '\r': writeByte('r'); break;
+            case '\t': writeByte('t'); break;
+            default:
+                writeAscii("u00");
+                writeByte(Character.forDigit(c >> 4, 16));
+                writeByte(Character.forDigit(c & 0xF, 16));
+                break;
+        }
+    }
+
+    static final class Json extends ReportWriter {
+        // Whether the container at each depth already holds a value
+        private final boolean[] hasValue = new boolean[MAX_DEPTH];
+        private int depth;
+        private boolean afterName;
+
+        Json(OutputStream out) {
+            super(out);
+        }
+
+        private void beforeValue() throws IOException {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            if (depth > 0) {
+                if (hasValue[depth - 1]) writeByte(',');
+                hasValue[depth - 1] = true;
+            }
+        }
+
+        private ReportWriter open(char bracket) throws IOException {
+            beforeValue();
+            writeByte(bracket);
+            hasValue[depth++] = false;
+            return this;
+        }
+
+        private ReportWriter close(char bracket) throws IOException {
+            depth--;
+            writeByte(bracket);
+            return this;
+        }
+
+        @Override
+        public ReportWriter beginObject() throws IOException {
+            return open('{');
+        }
+
+        @Override
+        public ReportWriter endObject() throws IOException {
+            return close('}');
+        }
+
+        @Override
+        public ReportWriter beginArray() throws IOException {
+            return open('[');
+        }
+
+        @Override
+        public ReportWriter endArray() throws IOException {
+            return close(']');
+        }
+
+        @Override
+        public ReportWriter name(String name) throws IOException {
+            beforeValue();
+            writeByte('"');
+            writeUtf8(name, true);
+            writeByte('"');
+            writeByte(':');
+            afterName = true;
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(long value) throws IOException {
+            beforeValue();
+            if (value < 0) {
+                writeByte('-');
+                if (value == Long.MIN_VALUE) {
+                    // No positive counterpart; 9223372036854775808
+                    writeDigits(-(value / 10), 1);
+                    writeByte('8');
+                    return this;
+                }
+                value = -value;
+            }
+            writeDigits(value, 1);
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(double value, int decimals) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) return nullValue();
+
+            beforeValue();
+            long scale = POWERS_OF_TEN[decimals];
+            long scaled = Math.round(Math.abs(value) * scale);
+            if (value < 0 && scaled != 0) writeByte('-');
+            writeDigits(scaled / scale, 1);
+            if (decimals > 0) {
+                writeByte('.');
+                writeDigits(scaled % scale, decimals);
+            }
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(boolean value) throws IOException {
+            beforeValue();
+            writeAscii(value ? "true" : "false");
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(String value) throws IOException {
+            if (value == null) return nullValue();
+
+            beforeValue();
+            writeByte('"');
+            writeUtf8(value, true);
+            writeByte('"');
+            return this;
+        }
+
+        @Override
+        public ReportWriter nullValue() throws IOException {
+            beforeValue();
+            writeAscii("null");
+            return this;
+        }
+
+        @Override
+        public String getMimeType() {
+            return "application/json";
+        }
+    }
+
+    static final class Cbor extends ReportWriter {
+        private static final int MAJOR_UNSIGNED = 0;
+        private static final int MAJOR_NEGATIVE = 1;
+        private static final int MAJOR_TEXT = 3;
+
+        private static final int INDEFINITE_ARRAY = 0x9F;
+        private static final int INDEFINITE_MAP = 0xBF;
+        private static final int BREAK = 0xFF;
+        private static final int FALSE = 0xF4;
+        private static final int TRUE = 0xF5;
+        private static final int NULL = 0xF6;
+        private static final int FLOAT64 = 0xFB;
+
+        Cbor(OutputStream out) {
+            super(out);
+        }
+
+        // Initial byte and the shortest argument encoding for value
+        private void writeHead(int major, long value) throws IOException {
+            ensure(9);
+            int type = major << 5;
+            if (value < 24) {
+                writeByte(type | (int) value);
+            } else if (value <= 0xFF) {
+                writeByte(type | 24);
+                writeByte((int) value);
+            } else if (value <= 0xFFFF) {
+                writeByte(type | 25);
+                writeBigEndian(value, 2);
+            } else if (value <= 0xFFFFFFFFL) {
+                writeByte(type | 26);
+                writeBigEndian(value, 4);
+            } else {
+                writeByte(type | 27);
+                writeBigEndian(value, 8);
+            }
+        }
+
+        private void writeBigEndian(long value, int bytes) throws IOException {
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private void writeText(String s) throws IOException {
+            writeHead(MAJOR_TEXT, utf8Length(s));
+            writeUtf8(s, false);
+        }
+
+        @Override
+        public ReportWriter beginObject() throws IOException {
+            writeByte(INDEFINITE_MAP);
+            return this;
+        }
+
+        @Override
+        public ReportWriter endObject() throws IOException {
+            writeByte(BREAK);
+            return this;
+        }
+
+        @Override
+        public ReportWriter beginArray() throws IOException {
+            writeByte(INDEFINITE_ARRAY);
+            return this;
+        }
+
+        @Override
+        public ReportWriter endArray() throws IOException {
+            writeByte(BREAK);
+            return this;
+        }
+
+        @Override
+        public ReportWriter name(String name) throws IOException {
+            writeText(name);
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(long value) throws IOException {
+            if (value >= 0) {
+                writeHead(MAJOR_UNSIGNED, value);
+            } else {
+                // -1 - value, which cannot overflow for negative longs
+                writeHead(MAJOR_NEGATIVE, ~value);
+            }
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(double value, int decimals) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) return nullValue();
+
+            long scale = POWERS_OF_TEN[decimals];
+            double rounded = Math.round(value * scale) / (double) scale;
+            if (rounded == (long) rounded) {
+                // Whole values take the shorter integer encoding
+                return value((long) rounded);
+            }
+            ensure(9);
+            writeByte(FLOAT64);
+            writeBigEndian(Double.doubleToLongBits(rounded), 8);
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(boolean value) throws IOException {
+            writeByte(value ? TRUE : FALSE);
+            return this;
+        }
+
+        @Override
+        public ReportWriter value(String value) throws IOException {
+            if (value == null) return nullValue();
+            writeText(value);
+            return this;
+        }
+
+        @Override
+        public ReportWriter nullValue() throws IOException {
+            writeByte(NULL);
+            return this;
+        }
+
+        @Override
+        public String getMimeType() {
+            return "application/cbor";
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.lionico.devinspect;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.TrafficStats;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Samples battery, RAM, storage and network while the app is closed, so
+// devices in the field report between sessions. Each run is one pass: a
+// battery state from BatteryEventHub, two SystemProbe queries and the traffic
+// counters, then a single BackgroundSampleLog.append() and a battery
+// sample for the Battery tab's history. No receiver, no wake lock and no
+// network request of our own; JobScheduler holds the wake lock for the
+// run and, in Doze, defers it to the next maintenance window with
+// everyone else's jobs.
+//
+// The schedule is a preference, so it survives reboots together with the
+// persisted job.
+public class SamplingJobService extends JobService {
+
+    private static final String TAG = "SamplingJob";
+    private static final String PREF_NAME = "background_sampling";
+    private static final String KEY_INTERVAL = "intervalMs";
+
+    private static final int JOB_ID = 0x53414D50; // "SAMP"
+
+    // JobScheduler runs periodic jobs at most every 15 minutes
+    public static final long MIN_INTERVAL_MS = 15 * 60 * 1000L;
+
+    private ExecutorService worker;
+    private volatile boolean stopped;
+
+    // Off when 0
+    public static long getIntervalMs(Context context) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).getLong(KEY_INTERVAL, 0);
+    }
+
+    // Replaces any earlier schedule; intervalMs <= 0 turns sampling off
+    public static boolean schedule(Context context, long intervalMs) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) return false;
+
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        if (intervalMs <= 0) {
+            scheduler.cancel(JOB_ID);
+            prefs.edit().putLong(KEY_INTERVAL, 0).apply();
+            return true;
+        }
+
+        intervalMs = Math.max(MIN_INTERVAL_MS, intervalMs);
+        JobInfo.Builder job = new JobInfo.Builder(JOB_ID, new ComponentName(context, SamplingJobService.class))
+            .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            // A flex window lets the system run us alongside other jobs'
+            // wakeups instead of waking the device on our own
+            job.setPeriodic(intervalMs, intervalMs / 2);
+        } else {
+            job.setPeriodic(intervalMs);
+        }
+
+        boolean scheduled = scheduler.schedule(job.build()) == JobScheduler.RESULT_SUCCESS;
+        if (scheduled) {
+            prefs.edit().putLong(KEY_INTERVAL, intervalMs).apply();
+        } else {
+            Log.w(TAG, "Job rejected by the scheduler");
+        }
+        return scheduled;
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final BackgroundSampleLog log = BackgroundSampleLog.getInstance(this);
+        if (log == null) return false;
+        log.recordWakeup();
+
+        stopped = false;
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SamplingJob");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+        }
+
+        final Context appContext = getApplicationContext();
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long cpuStart = Debug.threadCpuTimeNanos();
+                    long wallStart = SystemClock.elapsedRealtimeNanos();
+
+                    BackgroundSampleLog.Sample sample = new BackgroundSampleLog.Sample();
+                    sample(appContext, sample);
+                    if (stopped) return;
+
+                    sample.cpuMicros = (int) ((Debug.threadCpuTimeNanos() - cpuStart) / 1000);
+                    sample.wallMicros = (int) ((SystemClock.elapsedRealtimeNanos() - wallStart) / 1000);
+                    log.append(sample);
+
+                    BatteryHistoryStore history = BatteryHistoryStore.getInstance(appContext);
+                    if (history != null && sample.status > 0) {
+                        history.append(sample.timestamp, sample.batteryLevel, sample.temperature,
+                                       sample.voltage, sample.status, sample.plugged);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Sampling pass failed", e);
+                } finally {
+                    // Release the job's wake lock even when the pass failed;
+                    // after onStopJob() the system has already let it go
+                    if (!stopped) {
+                        jobFinished(params, false);
+                    }
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        BackgroundSampleLog log = BackgroundSampleLog.getInstance(this);
+        if (log != null) {
+            log.recordStop();
+        }
+        // Periodic jobs come back on their next interval either way
+        return false;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (worker != null) {
+            worker.shutdown();
+        }
+    }
+
+    // One pass over every source; off the main thread
+    static void sample(Context context, BackgroundSampleLog.Sample out) {
+        out.timestamp = System.currentTimeMillis();
+
+        BatteryState battery = BatteryEventHub.getInstance(context).getLatestState();
+        out.temperature = BatteryState.TEMPERATURE_UNKNOWN;
+        if (battery != null && battery.isValid()) {
+            out.batteryLevel = battery.getLevelPercent();
+            out.temperature = battery.temperature;
+            out.voltage = Math.max(0, battery.voltage);
+            out.status = Math.max(0, battery.status);
+            out.plugged = Math.max(0, battery.plugged);
+        }
+
+        // The process may have been started for this job alone; either way
+        // the readings have to be from now
+        SystemProbe probe = SystemProbe.getInstance(context);
+        probe.invalidate();
+        SystemProbe.MemoryReading memory = probe.readMemory();
+        SystemProbe.StorageReading storage = probe.readStorage();
+        out.ramTotalBytes = memory.isValid() ? memory.totalBytes : -1;
+        out.ramAvailableBytes = memory.isValid() ? memory.availableBytes : -1;
+        out.lowMemory = memory.lowMemory;
+        out.storageTotalBytes = storage.isValid() ? storage.totalBytes : -1;
+        out.storageAvailableBytes = storage.isValid() ? storage.availableBytes : -1;
+
+        out.networkType = -1;
+        out.connected = false;
+        try {
+            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            NetworkInfo active = cm != null ? cm.getActiveNetworkInfo() : null;
+            if (active != null) {
+                out.networkType = active.getType();
+                out.connected = active.isConnected();
+            }
+        } catch (Exception e) {
+            // Network fields stay unknown
+        }
+        long rx = TrafficStats.getTotalRxBytes();
+        out.rxBytes = rx == TrafficStats.UNSUPPORTED ? -1 : rx;
+        long tx = TrafficStats.getTotalTxBytes();
+        out.txBytes = tx == TrafficStats.UNSUPPORTED ? -1 : tx;
+    }
+}
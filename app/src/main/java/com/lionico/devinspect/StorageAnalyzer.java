@@ -0,0 +1,447 @@
+package com.lionico.devinspect;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Walks a directory tree on a ForkJoinPool sized to the core count, one task
+// per directory, and sums sizes bottom-up. A driver thread waits on the root
+// task and publishes partial results to the main thread while it runs. Only
+// one scan runs at a time; starting another or cancel() stops the current one.
+public class StorageAnalyzer {
+
+    private static final String TAG = "StorageAnalyzer";
+
+    public static final int TOP_COUNT = 10;
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    public interface Listener {
+        void onProgress(Result partial);
+        void onComplete(Result result);
+    }
+
+    public static final class Entry {
+        public final String path;
+        public final long bytes;
+
+        Entry(String path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    // Totals so far; largestDirs only holds directories whose subtree is done
+    public static final class Result {
+        public final String rootPath;
+        public final long totalBytes;
+        public final long fileCount;
+        public final long dirCount;
+        public final long unreadableCount;
+        public final long elapsedMs;
+        public final boolean complete;
+
+        // Incremental scans: directories taken from the index, and the size
+        // of the index written afterwards (-1 until then, or without one)
+        public final boolean usedIndex;
+        public final long reusedDirCount;
+        public final long indexBytes;
+
+        public final Entry[] largestDirs;
+        public final Entry[] largestFiles;
+
+        Result(Scan scan, boolean complete) {
+            rootPath = scan.rootPath;
+            totalBytes = scan.bytes.get();
+            fileCount = scan.files.get();
+            dirCount = scan.dirs.get();
+            unreadableCount = scan.unreadable.get();
+            elapsedMs = SystemClock.elapsedRealtime() - scan.startTime;
+            this.complete = complete;
+            usedIndex = scan.usedIndex;
+            reusedDirCount = scan.reusedDirs.get();
+            indexBytes = scan.indexBytes;
+            largestDirs = scan.largestDirs.snapshot();
+            largestFiles = scan.largestFiles.snapshot();
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService driver;
+    private final ForkJoinPool pool;
+    private final File indexDir;
+
+    // Only touched on the main thread
+    private Scan current;
+    private Future<?> pending;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    // indexDir holds one StorageIndex per scanned root; null disables it
+    public StorageAnalyzer(File indexDir) {
+        this.indexDir = indexDir;
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        driver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "StorageAnalyzer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    public void start(File root, final Listener listener) {
+        if (shutdown) return;
+
+        cancel();
+        final int scanGeneration = generation;
+        final Scan scan = new Scan(root);
+        current = scan;
+
+        pending = driver.submit(new Runnable() {
+            @Override
+            public void run() {
+                String canonicalRoot;
+                try {
+                    canonicalRoot = scan.root.getCanonicalPath();
+                } catch (IOException e) {
+                    canonicalRoot = scan.root.getAbsolutePath();
+                }
+
+                // Loaded only now, and only the visited records are paged in
+                File indexFile = indexDir != null ? StorageIndex.fileFor(indexDir, canonicalRoot) : null;
+                StorageIndex index = indexFile != null ? StorageIndex.open(indexFile, canonicalRoot) : null;
+                scan.usedIndex = index != null;
+                long scanStartTime = System.currentTimeMillis();
+
+                DirTask rootTask = new DirTask(scan, scan.root, canonicalRoot,
+                                               index != null ? index.root() : null);
+                pool.execute(rootTask);
+
+                StorageIndex.DirNode rootNode = null;
+                while (true) {
+                    try {
+                        rootNode = rootTask.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        deliver(scanGeneration, listener, new Result(scan, false));
+                    } catch (InterruptedException e) {
+                        scan.cancelled = true;
+                        rootTask.cancel(false);
+                        return;
+                    } catch (CancellationException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        Log.w(TAG, "Scan of " + scan.rootPath + " failed", e.getCause());
+                        break;
+                    }
+                }
+
+                if (scan.cancelled) return;
+
+                long scanMs = SystemClock.elapsedRealtime() - scan.startTime;
+                if (rootNode != null && indexFile != null) {
+                    try {
+                        scan.indexBytes = StorageIndex.write(indexFile, canonicalRoot, rootNode, scanStartTime);
+                    } catch (IOException e) {
+                        Log.w(TAG, "Could not save index for " + scan.rootPath, e);
+                    }
+                }
+                Log.i(TAG, "Scanned " + scan.rootPath + " in " + scanMs + " ms: "
+                      + scan.dirs.get() + " dirs, " + scan.reusedDirs.get() + " from index, "
+                      + "index " + scan.indexBytes + " bytes");
+
+                deliver(scanGeneration, listener, new Result(scan, true));
+            }
+        });
+    }
+
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        driver.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private void deliver(final int scanGeneration, final Listener listener, final Result result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || scanGeneration != generation) return;
+                if (result.complete) {
+                    current = null;
+                    pending = null;
+                    listener.onComplete(result);
+                } else {
+                    listener.onProgress(result);
+                }
+            }
+        });
+    }
+
+    // Shared state of one scan. Tasks add their per-directory totals once,
+    // so the counters see one update per directory rather than per file.
+    static final class Scan {
+        final File root;
+        final String rootPath;
+        final long startTime = SystemClock.elapsedRealtime();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong dirs = new AtomicLong();
+        final AtomicLong unreadable = new AtomicLong();
+        final AtomicLong reusedDirs = new AtomicLong();
+        final TopList largestDirs = new TopList(TOP_COUNT);
+        final TopList largestFiles = new TopList(TOP_COUNT);
+        volatile boolean cancelled;
+        volatile boolean usedIndex;
+        volatile long indexBytes = -1;
+
+        Scan(File root) {
+            this.root = root;
+            this.rootPath = root.getAbsolutePath();
+        }
+    }
+
+    // Scans one directory's subtree into a StorageIndex.DirNode. A directory
+    // whose mtime matches its index record keeps its own files from the index
+    // and only its subdirectories are visited; anything else is listed and
+    // statted. Subdirectories are forked so idle workers can steal them, and
+    // symlinked directories are skipped to avoid cycles and double counting.
+    static final class DirTask extends RecursiveTask<StorageIndex.DirNode> {
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final File dir;
+        private final String canonicalPath;
+        private final StorageIndex.Node indexed;
+
+        DirTask(Scan scan, File dir, String canonicalPath, StorageIndex.Node indexed) {
+            this.scan = scan;
+            this.dir = dir;
+            this.canonicalPath = canonicalPath;
+            this.indexed = indexed;
+        }
+
+        @Override
+        protected StorageIndex.DirNode compute() {
+            long mtime = dir.lastModified();
+            List<DirTask> subtasks = null;
+            StorageIndex.DirNode node;
+
+            if (indexed != null && indexed.isUnchanged(mtime)) {
+                node = new StorageIndex.DirNode(dir.getName(), mtime, TOP_COUNT);
+                node.copyFiles(indexed);
+                scan.reusedDirs.incrementAndGet();
+
+                // Entries are unchanged, so the children are known directories
+                int childCount = indexed.getChildCount();
+                for (int i = 0; i < childCount && !scan.cancelled; i++) {
+                    StorageIndex.Node child = indexed.child(i);
+                    DirTask task = new DirTask(scan, new File(dir, child.name),
+                                               canonicalPath + File.separator + child.name, child);
+                    task.fork();
+                    if (subtasks == null) subtasks = new ArrayList<DirTask>(childCount);
+                    subtasks.add(task);
+                }
+            } else {
+                File[] children = scan.cancelled ? null : dir.listFiles();
+                if (children == null) {
+                    if (!scan.cancelled) scan.unreadable.incrementAndGet();
+                    // mtime 0 is never trusted, so this is retried next scan
+                    return new StorageIndex.DirNode(dir.getName(), 0, 0);
+                }
+
+                node = new StorageIndex.DirNode(dir.getName(), mtime, TOP_COUNT);
+                Map<String, Integer> known = indexed != null ? indexed.childOffsets() : null;
+
+                for (File child : children) {
+                    if (scan.cancelled) break;
+
+                    if (child.isDirectory()) {
+                        String childCanonical = canonicalChild(child);
+                        if (childCanonical == null) continue;
+
+                        Integer offset = known != null ? known.get(child.getName()) : null;
+                        StorageIndex.Node childIndexed = offset != null ? indexed.childAt(offset) : null;
+                        DirTask task = new DirTask(scan, child, childCanonical, childIndexed);
+                        task.fork();
+                        if (subtasks == null) subtasks = new ArrayList<DirTask>();
+                        subtasks.add(task);
+                    } else {
+                        node.addFile(child.getName(), child.length());
+                    }
+                }
+            }
+
+            scan.bytes.addAndGet(node.ownBytes);
+            scan.files.addAndGet(node.ownFiles);
+            scan.dirs.incrementAndGet();
+            for (int i = 0; i < node.topCount; i++) {
+                scan.largestFiles.offer(node.topSizes[i], dir, node.topNames[i]);
+            }
+
+            node.totalBytes = node.ownBytes;
+            node.totalFiles = node.ownFiles;
+            node.totalDirs = 1;
+
+            // Join newest first, the order they sit on this worker's deque
+            if (subtasks != null) {
+                int count = subtasks.size();
+                node.children = new StorageIndex.DirNode[count];
+                for (int i = count - 1; i >= 0; i--) {
+                    StorageIndex.DirNode child = subtasks.get(i).join();
+                    node.children[i] = child;
+                    node.totalBytes += child.totalBytes;
+                    node.totalFiles += child.totalFiles;
+                    node.totalDirs += child.totalDirs;
+                }
+            }
+
+            if (!scan.cancelled) {
+                scan.largestDirs.offer(node.totalBytes, dir, null);
+            }
+            return node;
+        }
+
+        // Canonical path of child, or null if it is a symlink or unresolvable
+        private String canonicalChild(File child) {
+            try {
+                String canonical = child.getCanonicalPath();
+                String expected = canonicalPath + File.separator + child.getName();
+                return canonical.equals(expected) ? canonical : null;
+            } catch (IOException e) {
+                scan.unreadable.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    // Keeps the N largest entries in a min-heap. The volatile threshold lets
+    // most offers return without taking the lock once the heap is full, and
+    // paths are only built for the entries that end up in a snapshot.
+    static final class TopList {
+        private final long[] sizes;
+        private final File[] parents;
+        private final String[] names;
+        private int count;
+        private volatile long threshold = Long.MIN_VALUE;
+
+        TopList(int capacity) {
+            sizes = new long[capacity];
+            parents = new File[capacity];
+            names = new String[capacity];
+        }
+
+        // name is null when parent itself is the entry
+        void offer(long size, File parent, String name) {
+            if (size <= threshold) return;
+
+            synchronized (this) {
+                if (count < sizes.length) {
+                    int i = count++;
+                    sizes[i] = size;
+                    parents[i] = parent;
+                    names[i] = name;
+                    siftUp(i);
+                } else if (size > sizes[0]) {
+                    sizes[0] = size;
+                    parents[0] = parent;
+                    names[0] = name;
+                    siftDown(0);
+                }
+                if (count == sizes.length) {
+                    threshold = sizes[0];
+                }
+            }
+        }
+
+        // Largest first
+        synchronized Entry[] snapshot() {
+            Entry[] entries = new Entry[count];
+            for (int i = 0; i < count; i++) {
+                String path = names[i] == null
+                    ? parents[i].getPath()
+                    : parents[i].getPath() + File.separator + names[i];
+                entries[i] = new Entry(path, sizes[i]);
+            }
+            // Insertion sort, N is small
+            for (int i = 1; i < entries.length; i++) {
+                Entry e = entries[i];
+                int j = i - 1;
+                while (j >= 0 && entries[j].bytes < e.bytes) {
+                    entries[j + 1] = entries[j];
+                    j--;
+                }
+                entries[j + 1] = e;
+            }
+            return entries;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (sizes[parent] <= sizes[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int smallest = i;
+                if (left < count && sizes[left] < sizes[smallest]) smallest = left;
+                if (right < count && sizes[right] < sizes[smallest]) smallest = right;
+                if (smallest == i) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long s = sizes[a];
+            sizes[a] = sizes[b];
+            sizes[b] = s;
+            File p = parents[a];
+            parents[a] = parents[b];
+            parents[b] = p;
+            String n = names[a];
+            names[a] = names[b];
+            names[b] = n;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.lionico.devinspect;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Measures the storage behind a directory: sequential write and read in 1 MB
+// chunks, a memory-mapped read, then random 4K writes and reads. Every worker
+// thread has a direct buffer and positional FileChannel I/O on one shared
+// test file, and owns a slice of it for the sequential phases. Writes can
+// be fsynced one by one, which is what databases do and where slow eMMC
+// shows worst; otherwise each write phase ends with one fsync inside the
+// timed span.
+//
+// Reads follow the writes, so they can be served partly from the page
+// cache; apps cannot drop it. Test with a file larger than free RAM for
+// uncached numbers.
+//
+// One run at a time, like StorageAnalyzer. cancel() only raises a flag the
+// workers check between operations: interrupting a thread in FileChannel
+// I/O closes the channel under the other workers. The test file is deleted
+// when the run ends, however it ends.
+public class StorageBenchmark {
+
+    private static final String TAG = "StorageBenchmark";
+
+    public static final int BLOCK_SIZE = 4096;
+    public static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int MAP_WINDOW = 64 * CHUNK_SIZE;
+    private static final long RANDOM_PHASE_MS = 3000;
+    private static final int LATENCY_SAMPLES = 16 * 1024; // per thread and phase
+    private static final long FREE_SPACE_MARGIN = 64L * 1024 * 1024;
+    private static final String FILE_NAME = "storage_benchmark.tmp";
+
+    public static final int SEQUENTIAL_WRITE = 0;
+    public static final int SEQUENTIAL_READ = 1;
+    public static final int MAPPED_READ = 2;
+    public static final int RANDOM_WRITE = 3;
+    public static final int RANDOM_READ = 4;
+    public static final int PHASE_COUNT = 5;
+
+    private static final String[] PHASE_NAMES = {
+        "Seq write", "Seq read", "Mmap read", "4K write", "4K read"
+    };
+
+    public interface Listener {
+        void onProgress(Result partial);
+        void onComplete(Result result);
+    }
+
+    public static final class Config {
+        public final File dir;
+        public final long fileSize;
+        public final int threads;
+        public final boolean syncEachWrite;
+
+        public Config(File dir, long fileSize, int threads, boolean syncEachWrite) {
+            this.dir = dir;
+            this.threads = Math.max(1, threads);
+            // Whole chunks per thread, so the sequential slices line up
+            long perThread = Math.max(1, fileSize / this.threads / CHUNK_SIZE) * CHUNK_SIZE;
+            this.fileSize = perThread * this.threads;
+            this.syncEachWrite = syncEachWrite;
+        }
+    }
+
+    // One finished phase. Latencies are per operation: a 1 MB chunk for the
+    // sequential phases, a 4K block for the random ones.
+    public static final class Phase {
+        public final String name;
+        public final boolean random;
+        public final long bytes;
+        public final long ops;
+        public final long elapsedNs;
+        public final int p50Us;
+        public final int p90Us;
+        public final int p99Us;
+        public final int maxUs;
+
+        Phase(int phase, long bytes, long ops, long elapsedNs, int[] latencies, int count) {
+            this.name = PHASE_NAMES[phase];
+            this.random = phase == RANDOM_WRITE || phase == RANDOM_READ;
+            this.bytes = bytes;
+            this.ops = ops;
+            this.elapsedNs = elapsedNs;
+            Arrays.sort(latencies, 0, count);
+            p50Us = percentile(latencies, count, 50);
+            p90Us = percentile(latencies, count, 90);
+            p99Us = percentile(latencies, count, 99);
+            maxUs = count > 0 ? latencies[count - 1] : 0;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNs > 0 ? bytes / (1024.0 * 1024.0) / (elapsedNs / 1e9) : 0;
+        }
+
+        public double iops() {
+            return elapsedNs > 0 ? ops / (elapsedNs / 1e9) : 0;
+        }
+
+        private static int percentile(int[] sorted, int count, int percent) {
+            if (count == 0) return 0;
+            return sorted[Math.min(count - 1, (int) ((long) count * percent / 100))];
+        }
+    }
+
+    // Phases finished so far; error is set when the run stopped on a failure
+    public static final class Result {
+        public final Config config;
+        public final Phase[] phases;
+        public final boolean complete;
+        public final String error;
+
+        Result(Config config, List<Phase> phases, boolean complete, String error) {
+            this.config = config;
+            this.phases = phases.toArray(new Phase[phases.size()]);
+            this.complete = complete;
+            this.error = error;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService driver;
+
+    // Only touched on the main thread
+    private Run current;
+    private int generation = 0;
+    private boolean shutdown = false;
+
+    public StorageBenchmark() {
+        driver = Executors.newSingleThreadExecutor(new NamedThreadFactory("StorageBenchmark"));
+    }
+
+    public static String phaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    public void start(final Config config, final Listener listener) {
+        if (shutdown) return;
+
+        cancel();
+        final int runGeneration = generation;
+        final Run run = new Run(config);
+        current = run;
+
+        driver.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<Phase> phases = new ArrayList<Phase>();
+                String error = null;
+                try {
+                    execute(run, runGeneration, listener, phases);
+                } catch (IOException e) {
+                    Log.w(TAG, "Benchmark in " + config.dir + " failed", e);
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                }
+                if (!run.cancelled) {
+                    deliver(runGeneration, listener, new Result(config, phases, true, error));
+                }
+            }
+        });
+    }
+
+    // The run stops after the operation in flight and removes its file
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    // Lets a cancelled run finish its cleanup on the driver thread
+    public void shutdown() {
+        cancel();
+        shutdown = true;
+        driver.shutdown();
+    }
+
+    private void deliver(final int runGeneration, final Listener listener, final Result result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (shutdown || runGeneration != generation) return;
+                if (result.complete) {
+                    current = null;
+                    listener.onComplete(result);
+                } else {
+                    listener.onProgress(result);
+                }
+            }
+        });
+    }
+
+    // Driver thread
+    private void execute(Run run, int runGeneration, Listener listener, List<Phase> phases) throws IOException {
+        Config config = run.config;
+        if (!config.dir.isDirectory() && !config.dir.mkdirs()) {
+            throw new IOException("Cannot create " + config.dir);
+        }
+        if (config.dir.getUsableSpace() < config.fileSize + FREE_SPACE_MARGIN) {
+            throw new IOException("Not enough free space for a "
+                                  + FileExplorerFragment.formatSize(config.fileSize) + " test file");
+        }
+
+        File file = new File(config.dir, FILE_NAME);
+        RandomAccessFile raf = null;
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads,
+                                                               new NamedThreadFactory("StorageBenchmark-worker"));
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+
+            long slice = config.fileSize / config.threads;
+            List<Worker> team = new ArrayList<Worker>(config.threads);
+            for (int i = 0; i < config.threads; i++) {
+                team.add(new Worker(run, channel, i * slice, slice, i));
+            }
+
+            int[] merged = new int[config.threads * LATENCY_SAMPLES];
+            for (int phase = 0; phase < PHASE_COUNT && !run.cancelled; phase++) {
+                phases.add(runPhase(phase, run, channel, team, workers, merged));
+                Log.i(TAG, PHASE_NAMES[phase] + " in " + config.dir + " done");
+                deliver(runGeneration, listener, new Result(config, phases, false, null));
+            }
+        } finally {
+            workers.shutdownNow();
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ignored) {
+                }
+            }
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete " + file);
+            }
+        }
+    }
+
+    private Phase runPhase(int phase, Run run, FileChannel channel, List<Worker> team,
+                           ExecutorService workers, int[] merged) throws IOException {
+        run.deadline = SystemClock.uptimeMillis() + RANDOM_PHASE_MS;
+        for (Worker worker : team) {
+            worker.prepare(phase);
+        }
+
+        long started = System.nanoTime();
+        try {
+            List<Future<Void>> results = workers.invokeAll(team);
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            run.cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+        // Without per-write fsync the data is only in the page cache; getting
+        // it to storage is part of the write's cost
+        if ((phase == SEQUENTIAL_WRITE || phase == RANDOM_WRITE) && !run.config.syncEachWrite && !run.cancelled) {
+            channel.force(false);
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long bytes = 0;
+        long ops = 0;
+        int count = 0;
+        for (Worker worker : team) {
+            bytes += worker.bytes;
+            ops += worker.ops;
+            System.arraycopy(worker.latencies, 0, merged, count, worker.sampleCount());
+            count += worker.sampleCount();
+        }
+        return new Phase(phase, bytes, ops, elapsed, merged, count);
+    }
+
+    static final class Run {
+        final Config config;
+        volatile boolean cancelled;
+        volatile long deadline;
+
+        Run(Config config) {
+            this.config = config;
+        }
+    }
+
+    // One thread's share of a phase. Buffers are allocated once per run and
+    // filled with random bytes, so compressing or deduplicating storage
+    // cannot flatter the write numbers.
+    static final class Worker implements Callable<Void> {
+        private final Run run;
+        private final FileChannel channel;
+        private final long sliceStart;
+        private final long sliceLength;
+        private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        private final ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        private final Random random;
+        final int[] latencies = new int[LATENCY_SAMPLES];
+
+        private int phase;
+        private int seen;
+        long bytes;
+        long ops;
+        long checksum; // keeps the mapped reads from being optimized away
+
+        Worker(Run run, FileChannel channel, long sliceStart, long sliceLength, int index) {
+            this.run = run;
+            this.channel = channel;
+            this.sliceStart = sliceStart;
+            this.sliceLength = sliceLength;
+            this.random = new Random(index * 7919L + 17);
+
+            byte[] noise = new byte[CHUNK_SIZE];
+            random.nextBytes(noise);
+            chunk.put(noise);
+            block.put(noise, 0, BLOCK_SIZE);
+        }
+
+        void prepare(int phase) {
+            this.phase = phase;
+            seen = 0;
+            bytes = 0;
+            ops = 0;
+        }
+
+        int sampleCount() {
+            return Math.min(seen, LATENCY_SAMPLES);
+        }
+
+        @Override
+        public Void call() throws IOException {
+            switch (phase) {
+                case SEQUENTIAL_WRITE:
+                case SEQUENTIAL_READ:
+                    sequential(phase == SEQUENTIAL_WRITE);
+                    break;
+                case MAPPED_READ:
+                    mapped();
+                    break;
+                default:
+                    random(phase == RANDOM_WRITE);
+                    break;
+            }
+            return null;
+        }
+
+        private void sequential(boolean write) throws IOException {
+            long end = sliceStart + sliceLength;
+            for (long position = sliceStart; position < end && !run.cancelled; position += CHUNK_SIZE) {
+                long started = System.nanoTime();
+                chunk.clear();
+                transfer(chunk, position, write);
+                record(System.nanoTime() - started, CHUNK_SIZE);
+            }
+        }
+
+        // Touches one byte per page; each chunk's worth of pages is an op
+        private void mapped() throws IOException {
+            long end = sliceStart + sliceLength;
+            for (long window = sliceStart; window < end && !run.cancelled; window += MAP_WINDOW) {
+                int length = (int) Math.min(MAP_WINDOW, end - window);
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, window, length);
+                for (int offset = 0; offset < length && !run.cancelled; offset += CHUNK_SIZE) {
+                    long started = System.nanoTime();
+                    int chunkEnd = Math.min(length, offset + CHUNK_SIZE);
+                    for (int page = offset; page < chunkEnd; page += BLOCK_SIZE) {
+                        checksum += map.get(page);
+                    }
+                    record(System.nanoTime() - started, chunkEnd - offset);
+                }
+            }
+        }
+
+        // Aligned blocks anywhere in the file, until the phase's time is up
+        private void random(boolean write) throws IOException {
+            int blocks = (int) (run.config.fileSize / BLOCK_SIZE);
+            while (!run.cancelled && SystemClock.uptimeMillis() < run.deadline) {
+                long position = (long) random.nextInt(blocks) * BLOCK_SIZE;
+                long started = System.nanoTime();
+                block.clear();
+                transfer(block, position, write);
+                record(System.nanoTime() - started, BLOCK_SIZE);
+            }
+        }
+
+        private void transfer(ByteBuffer buffer, long position, boolean write) throws IOException {
+            while (buffer.hasRemaining()) {
+                int moved = write
+                    ? channel.write(buffer, position + buffer.position())
+                    : channel.read(buffer, position + buffer.position());
+                if (moved < 0) throw new IOException("Unexpected end of test file");
+            }
+            if (write && run.config.syncEachWrite) {
+                channel.force(false);
+            }
+        }
+
+        // Reservoir sampling keeps LATENCY_SAMPLES representative latencies
+        // however many operations a phase runs
+        private void record(long nanos, int size) {
+            bytes += size;
+            ops++;
+            int micros = (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+            if (seen < LATENCY_SAMPLES) {
+                latencies[seen] = micros;
+            } else {
+                int slot = random.nextInt(seen + 1);
+                if (slot < LATENCY_SAMPLES) latencies[slot] = micros;
+            }
+            seen++;
+        }
+    }
+
+    static final class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
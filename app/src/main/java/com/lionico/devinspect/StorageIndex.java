@@ -0,0 +1,361 @@
+package com.lionico.devinspect;
+
+import android.util.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+// Persistent per-root index of a storage scan: for every directory its mtime,
+// the bytes and count of its own files, its largest files and its
+// subdirectories. A rescan reuses a directory's entry when its mtime is
+// unchanged, which skips listing and statting its files.
+//
+// The file is written children-first so a parent can store its children's
+// offsets, and is memory-mapped on open: only the records a rescan actually
+// visits are paged in and decoded.
+//
+// Layout (big-endian):
+//   header  magic, version, created time, root record offset, dir count,
+//           root path (varint length + UTF-8)
+//   record  mtime (8 bytes), own bytes (varint), own file count (varint),
+//           name (varint length + UTF-8), top file count (varint) followed by
+//           (size varint, name) pairs, child count (varint) followed by one
+//           4-byte offset per child
+public final class StorageIndex {
+
+    private static final String TAG = "StorageIndex";
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+
+    // A directory modified this close to the previous scan may have changed
+    // again within the same mtime tick, so it is not trusted
+    private static final long RACY_WINDOW_MS = 2000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final long createdTime;
+    private final int rootOffset;
+    private final int dirCount;
+    private final long sizeBytes;
+
+    private StorageIndex(ByteBuffer buffer, long createdTime, int rootOffset, int dirCount, long sizeBytes) {
+        this.buffer = buffer;
+        this.createdTime = createdTime;
+        this.rootOffset = rootOffset;
+        this.dirCount = dirCount;
+        this.sizeBytes = sizeBytes;
+    }
+
+    // Index file for a scan root inside indexDir
+    public static File fileFor(File indexDir, String canonicalRoot) {
+        return new File(indexDir, "storage-" + Integer.toHexString(canonicalRoot.hashCode()) + ".idx");
+    }
+
+    // Returns null when there is no usable index for this root
+    public static StorageIndex open(File file, String canonicalRoot) {
+        if (!file.isFile()) return null;
+
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            MappedByteBuffer mapped;
+            long length;
+            try {
+                length = raf.length();
+                mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } finally {
+                raf.close();
+            }
+
+            if (length < 24 || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                return null;
+            }
+            int[] cursor = {24};
+            String rootPath = readString(mapped, cursor);
+            if (!canonicalRoot.equals(rootPath)) return null;
+
+            int rootOffset = mapped.getInt(16);
+            if (rootOffset < cursor[0] || rootOffset >= length) return null;
+
+            return new StorageIndex(mapped, mapped.getLong(8), rootOffset, mapped.getInt(20), length);
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable index " + file, e);
+            return null;
+        } catch (RuntimeException e) {
+            // Truncated or corrupt file; a full scan rewrites it
+            Log.w(TAG, "Ignoring corrupt index " + file, e);
+            return null;
+        }
+    }
+
+    public Node root() {
+        return new Node(rootOffset);
+    }
+
+    public int getDirCount() {
+        return dirCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    // One directory record, decoded on demand from the mapped file
+    public final class Node {
+        public final String name;
+        public final long mtime;
+        public final long ownBytes;
+        public final int ownFiles;
+        public final long[] topSizes;
+        public final String[] topNames;
+        private final int childCount;
+        private final int childTable;
+
+        Node(int offset) {
+            int[] cursor = {offset};
+            mtime = buffer.getLong(cursor[0]);
+            cursor[0] += 8;
+            ownBytes = readVarLong(buffer, cursor);
+            ownFiles = (int) readVarLong(buffer, cursor);
+            name = readString(buffer, cursor);
+
+            int topCount = (int) readVarLong(buffer, cursor);
+            topSizes = new long[topCount];
+            topNames = new String[topCount];
+            for (int i = 0; i < topCount; i++) {
+                topSizes[i] = readVarLong(buffer, cursor);
+                topNames[i] = readString(buffer, cursor);
+            }
+
+            childCount = (int) readVarLong(buffer, cursor);
+            childTable = cursor[0];
+        }
+
+        // True when the directory's entries can be taken from the index
+        public boolean isUnchanged(long currentMtime) {
+            return currentMtime != 0 && currentMtime == mtime
+                && currentMtime < createdTime - RACY_WINDOW_MS;
+        }
+
+        public int getChildCount() {
+            return childCount;
+        }
+
+        public Node child(int i) {
+            return new Node(buffer.getInt(childTable + 4 * i));
+        }
+
+        // Child record offsets by name, decoding only the names
+        public Map<String, Integer> childOffsets() {
+            Map<String, Integer> offsets = new HashMap<String, Integer>(childCount * 2);
+            for (int i = 0; i < childCount; i++) {
+                int offset = buffer.getInt(childTable + 4 * i);
+                int[] cursor = {offset + 8};
+                readVarLong(buffer, cursor);
+                readVarLong(buffer, cursor);
+                offsets.put(readString(buffer, cursor), offset);
+            }
+            return offsets;
+        }
+
+        public Node childAt(int offset) {
+            return new Node(offset);
+        }
+    }
+
+    // In-memory result of scanning one directory, written by write()
+    public static final class DirNode {
+        public final String name;
+        public final long mtime;
+        public long ownBytes;
+        public int ownFiles;
+        public long[] topSizes;
+        public String[] topNames;
+        public int topCount;
+        public DirNode[] children;
+
+        // Subtree totals, including this directory
+        public long totalBytes;
+        public long totalFiles;
+        public int totalDirs;
+
+        public DirNode(String name, long mtime, int maxTop) {
+            this.name = name;
+            this.mtime = mtime;
+            this.topSizes = new long[maxTop];
+            this.topNames = new String[maxTop];
+        }
+
+        // Keeps the largest maxTop files as a min-heap on topSizes
+        public void addFile(String fileName, long size) {
+            ownBytes += size;
+            ownFiles++;
+
+            int capacity = topSizes.length;
+            if (topCount < capacity) {
+                int i = topCount++;
+                topSizes[i] = size;
+                topNames[i] = fileName;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (topSizes[parent] <= topSizes[i]) break;
+                    swapTop(i, parent);
+                    i = parent;
+                }
+            } else if (capacity > 0 && size > topSizes[0]) {
+                topSizes[0] = size;
+                topNames[0] = fileName;
+                int i = 0;
+                while (true) {
+                    int left = 2 * i + 1;
+                    int right = left + 1;
+                    int smallest = i;
+                    if (left < topCount && topSizes[left] < topSizes[smallest]) smallest = left;
+                    if (right < topCount && topSizes[right] < topSizes[smallest]) smallest = right;
+                    if (smallest == i) break;
+                    swapTop(i, smallest);
+                    i = smallest;
+                }
+            }
+        }
+
+        // Copies the directory's own files from an unchanged index record
+        public void copyFiles(Node indexed) {
+            ownBytes = indexed.ownBytes;
+            ownFiles = indexed.ownFiles;
+            topCount = Math.min(indexed.topSizes.length, topSizes.length);
+            System.arraycopy(indexed.topSizes, 0, topSizes, 0, topCount);
+            System.arraycopy(indexed.topNames, 0, topNames, 0, topCount);
+        }
+
+        private void swapTop(int a, int b) {
+            long s = topSizes[a];
+            topSizes[a] = topSizes[b];
+            topSizes[b] = s;
+            String n = topNames[a];
+            topNames[a] = topNames[b];
+            topNames[b] = n;
+        }
+    }
+
+    // Writes the tree to a temporary file and renames it over file, so a
+    // crash mid-write leaves the previous index intact. Returns the size.
+    public static long write(File file, String canonicalRoot, DirNode root, long createdTime)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        byte[] header = new byte[24];
+        out.write(header);
+        writeString(out, canonicalRoot);
+
+        int rootOffset = writeNode(out, root);
+
+        byte[] bytes = out.toByteArray();
+        ByteBuffer headerView = ByteBuffer.wrap(bytes);
+        headerView.putInt(0, MAGIC);
+        headerView.putInt(4, VERSION);
+        headerView.putLong(8, createdTime);
+        headerView.putInt(16, rootOffset);
+        headerView.putInt(20, root.totalDirs);
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            fos.write(bytes);
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        return bytes.length;
+    }
+
+    // Post-order, so child offsets are known when the parent is written.
+    // Recursion depth follows directory depth, which stays small in practice.
+    private static int writeNode(ByteArrayOutputStream out, DirNode node) throws IOException {
+        int childCount = node.children != null ? node.children.length : 0;
+        int[] childOffsets = new int[childCount];
+        for (int i = 0; i < childCount; i++) {
+            childOffsets[i] = writeNode(out, node.children[i]);
+        }
+
+        int offset = out.size();
+        writeLong(out, node.mtime);
+        writeVarLong(out, node.ownBytes);
+        writeVarLong(out, node.ownFiles);
+        writeString(out, node.name);
+        writeVarLong(out, node.topCount);
+        for (int i = 0; i < node.topCount; i++) {
+            writeVarLong(out, node.topSizes[i]);
+            writeString(out, node.topNames[i]);
+        }
+        writeVarLong(out, childCount);
+        for (int i = 0; i < childCount; i++) {
+            writeInt(out, childOffsets[i]);
+        }
+        return offset;
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long v) {
+        writeInt(out, (int) (v >>> 32));
+        writeInt(out, (int) v);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    // Unsigned LEB128; sizes and counts are never negative
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static long readVarLong(ByteBuffer buffer, int[] cursor) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor[0]++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+            shift += 7;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int[] cursor) {
+        int length = (int) readVarLong(buffer, cursor);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(cursor[0] + i);
+        }
+        cursor[0] += length;
+        return new String(bytes, UTF_8);
+    }
+}
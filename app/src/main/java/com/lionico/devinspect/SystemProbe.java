@@ -0,0 +1,192 @@
+package com.lionico.devinspect;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Environment;
+import android.os.StatFs;
+import android.os.SystemClock;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Process-wide source for memory and data-partition readings. Each metric is
+// cached for its own time-to-live and concurrent callers of a stale metric
+// share one system call instead of issuing their own.
+public final class SystemProbe {
+
+    public static final long MEMORY_TTL_MS = 1000;
+    public static final long STORAGE_TTL_MS = 5000;
+
+    public static final class MemoryReading {
+        public final long totalBytes;
+        public final long availableBytes;
+        public final boolean lowMemory;
+
+        MemoryReading(long totalBytes, long availableBytes, boolean lowMemory) {
+            this.totalBytes = totalBytes;
+            this.availableBytes = availableBytes;
+            this.lowMemory = lowMemory;
+        }
+
+        public boolean isValid() {
+            return totalBytes > 0 && availableBytes >= 0;
+        }
+    }
+
+    public static final class StorageReading {
+        public final long totalBytes;
+        public final long availableBytes;
+        public final long totalBlocks;
+        public final long availableBlocks;
+
+        StorageReading(long totalBlocks, long availableBlocks, long blockSize) {
+            this.totalBlocks = totalBlocks;
+            this.availableBlocks = availableBlocks;
+            this.totalBytes = totalBlocks * blockSize;
+            this.availableBytes = availableBlocks * blockSize;
+        }
+
+        public boolean isValid() {
+            return totalBytes > 0 && availableBytes >= 0;
+        }
+    }
+
+    private static final MemoryReading UNKNOWN_MEMORY = new MemoryReading(-1, -1, false);
+    private static final StorageReading UNKNOWN_STORAGE = new StorageReading(-1, -1, 1);
+
+    private static SystemProbe instance;
+
+    private volatile Context appContext;
+
+    private final CachedMetric<MemoryReading> memory = new CachedMetric<MemoryReading>(MEMORY_TTL_MS) {
+        @Override
+        MemoryReading query() {
+            Context context = appContext;
+            if (context == null) return UNKNOWN_MEMORY;
+
+            try {
+                ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+                if (am == null) return UNKNOWN_MEMORY;
+
+                ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
+                am.getMemoryInfo(mi);
+                return new MemoryReading(mi.totalMem, mi.availMem, mi.lowMemory);
+            } catch (Exception e) {
+                return UNKNOWN_MEMORY;
+            }
+        }
+    };
+
+    private final CachedMetric<StorageReading> storage = new CachedMetric<StorageReading>(STORAGE_TTL_MS) {
+        @Override
+        StorageReading query() {
+            try {
+                StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
+                return new StorageReading(stat.getBlockCountLong(), stat.getAvailableBlocksLong(),
+                                          stat.getBlockSizeLong());
+            } catch (Exception e) {
+                return UNKNOWN_STORAGE;
+            }
+        }
+    };
+
+    private SystemProbe() {
+    }
+
+    public static synchronized SystemProbe getInstance(Context context) {
+        if (instance == null) {
+            instance = new SystemProbe();
+        }
+        if (context != null && instance.appContext == null) {
+            instance.appContext = context.getApplicationContext();
+            // A reading taken without a context is not worth keeping
+            instance.memory.invalidate();
+        }
+        return instance;
+    }
+
+    // For callers without a Context; memory readings stay unknown until
+    // some component has called getInstance(Context)
+    public static SystemProbe getInstance() {
+        return getInstance(null);
+    }
+
+    public MemoryReading readMemory() {
+        return memory.get();
+    }
+
+    public StorageReading readStorage() {
+        return storage.get();
+    }
+
+    // Forces the next read of every metric to hit the system
+    public void invalidate() {
+        memory.invalidate();
+        storage.invalidate();
+    }
+
+    public int getMemoryQueryCount() {
+        return memory.systemCalls.get();
+    }
+
+    public int getStorageQueryCount() {
+        return storage.systemCalls.get();
+    }
+
+    public int getMemoryCacheHits() {
+        return memory.cacheHits.get();
+    }
+
+    public int getStorageCacheHits() {
+        return storage.cacheHits.get();
+    }
+
+    public String getCallStats() {
+        return "memory: " + memory.systemCalls.get() + " calls / " + memory.cacheHits.get() + " hits, "
+            + "storage: " + storage.systemCalls.get() + " calls / " + storage.cacheHits.get() + " hits";
+    }
+
+    private abstract static class CachedMetric<T> {
+        final long ttlMs;
+        final AtomicInteger systemCalls = new AtomicInteger();
+        final AtomicInteger cacheHits = new AtomicInteger();
+
+        private volatile T value;
+        private volatile long fetchedAt;
+
+        CachedMetric(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+
+        abstract T query();
+
+        T get() {
+            T current = value;
+            if (current != null && isFresh()) {
+                cacheHits.incrementAndGet();
+                return current;
+            }
+
+            // Single flight: late arrivals wait here and reuse the winner's result
+            synchronized (this) {
+                current = value;
+                if (current != null && isFresh()) {
+                    cacheHits.incrementAndGet();
+                    return current;
+                }
+
+                current = query();
+                systemCalls.incrementAndGet();
+                fetchedAt = SystemClock.elapsedRealtime();
+                value = current;
+                return current;
+            }
+        }
+
+        void invalidate() {
+            value = null;
+        }
+
+        private boolean isFresh() {
+            return SystemClock.elapsedRealtime() - fetchedAt < ttlMs;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.lionico.devinspect;
+
+import android.content.Context;
+import android.view.View;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+import android.view.animation.ScaleAnimation;
+import android.widget.FrameLayout;
+import android.widget.TabHost;
+import android.widget.TabWidget;
+import android.widget.TextView;
+
+// Styling and transitions for MainActivity's tab strip. Tab views, content
+// frames, colors and animations are resolved once; a selection change only
+// touches the tab losing selection and the tab gaining it, and every
+// transition runs on a hardware layer that is dropped again when it ends.
+public class TabController {
+
+    private static final long SELECT_DURATION_MS = 200;
+    private static final long DESELECT_DURATION_MS = 100;
+    private static final float SELECTED_SCALE = 1.1f;
+
+    private final TextView[] tabViews;
+    private final FrameLayout[] contentFrames;
+    private final String[] titles;
+    private final int[] badgeCounts;
+
+    private final Animation[] selectAnimations;
+    private final Animation[] deselectAnimations;
+    private final Animation[] flashAnimations;
+    private final Animation[] fadeInAnimations;
+
+    private final int selectedColor;
+    private final int unselectedColor;
+    private final StringBuilder textBuffer = new StringBuilder(24);
+
+    private int selectedIndex = -1;
+
+    public TabController(Context context, TabHost tabHost, String[] titles, int[] contentIds) {
+        int count = titles.length;
+        this.titles = titles;
+        tabViews = new TextView[count];
+        contentFrames = new FrameLayout[count];
+        badgeCounts = new int[count];
+        selectAnimations = new Animation[count];
+        deselectAnimations = new Animation[count];
+        flashAnimations = new Animation[count];
+        fadeInAnimations = new Animation[count];
+
+        selectedColor = context.getResources().getColor(R.color.tab_text_selected);
+        unselectedColor = context.getResources().getColor(R.color.tab_text_unselected);
+
+        TabWidget tabWidget = tabHost.getTabWidget();
+        for (int i = 0; i < count; i++) {
+            tabViews[i] = findTabTextView(tabWidget, i);
+            contentFrames[i] = (FrameLayout) tabHost.findViewById(contentIds[i]);
+            // Every animation belongs to one view and keeps its listener, so
+            // a late end callback can only ever reach that view's releaser
+            if (tabViews[i] != null) {
+                tabViews[i].setTextColor(unselectedColor);
+                LayerReleaser releaser = new LayerReleaser(tabViews[i]);
+                selectAnimations[i] = createScale(1.0f, SELECTED_SCALE, SELECT_DURATION_MS, releaser);
+                deselectAnimations[i] = createScale(SELECTED_SCALE, 1.0f, DESELECT_DURATION_MS, releaser);
+                flashAnimations[i] = AnimationUtils.loadAnimation(context, android.R.anim.fade_in);
+                flashAnimations[i].setAnimationListener(releaser);
+            }
+            if (contentFrames[i] != null) {
+                fadeInAnimations[i] = AnimationUtils.loadAnimation(context, android.R.anim.fade_in);
+                fadeInAnimations[i].setAnimationListener(new LayerReleaser(contentFrames[i]));
+            }
+        }
+
+        if (tabWidget != null) {
+            tabWidget.setBackgroundColor(context.getResources().getColor(R.color.primaryGreenDark));
+            tabWidget.setDividerDrawable(null);
+        }
+    }
+
+    private static TextView findTabTextView(TabWidget tabWidget, int index) {
+        if (tabWidget == null || index >= tabWidget.getChildCount()) {
+            return null;
+        }
+
+        View tabView = tabWidget.getChildAt(index);
+        if (tabView instanceof TextView) {
+            return (TextView) tabView;
+        } else if (tabView != null) {
+            View textView = tabView.findViewById(android.R.id.title);
+            if (textView instanceof TextView) {
+                return (TextView) textView;
+            }
+        }
+        return null;
+    }
+
+    private static Animation createScale(float from, float to, long durationMs, LayerReleaser releaser) {
+        Animation animation = new ScaleAnimation(
+            from, to,
+            from, to,
+            Animation.RELATIVE_TO_SELF, 0.5f,
+            Animation.RELATIVE_TO_SELF, 0.5f
+        );
+        animation.setDuration(durationMs);
+        animation.setFillAfter(true); // Keep the scaled state
+        animation.setAnimationListener(releaser);
+        return animation;
+    }
+
+    // Moves the selection highlight and shows the matching content frame.
+    // Reselecting the current tab does nothing.
+    public void select(int index) {
+        if (index == selectedIndex || index < 0 || index >= tabViews.length) return;
+
+        long traceStart = PhaseTracer.begin();
+        int previous = selectedIndex;
+        selectedIndex = index;
+
+        if (previous >= 0) {
+            TextView oldTab = tabViews[previous];
+            if (oldTab != null) {
+                oldTab.setTextColor(unselectedColor);
+                startOnLayer(oldTab, deselectAnimations[previous]);
+            }
+            if (contentFrames[previous] != null) {
+                contentFrames[previous].clearAnimation();
+                contentFrames[previous].setVisibility(View.GONE);
+            }
+        }
+
+        TextView newTab = tabViews[index];
+        if (newTab != null) {
+            newTab.setTextColor(selectedColor);
+            startOnLayer(newTab, selectAnimations[index]);
+        }
+
+        FrameLayout frame = contentFrames[index];
+        if (frame != null) {
+            frame.setVisibility(View.VISIBLE);
+            startOnLayer(frame, fadeInAnimations[index]);
+        }
+
+        // Frames were all visible in the layout before the first selection
+        if (previous < 0) {
+            for (int i = 0; i < contentFrames.length; i++) {
+                if (i != index && contentFrames[i] != null) {
+                    contentFrames[i].setVisibility(View.GONE);
+                }
+            }
+        }
+
+        PhaseTracer.end(PhaseTracer.STYLE_TABS, traceStart);
+    }
+
+    // Brief fade on one tab, e.g. for a refresh or a swipe past the last tab
+    public void flash(int index, long durationMs) {
+        if (index < 0 || index >= tabViews.length || tabViews[index] == null) return;
+
+        flashAnimations[index].setDuration(durationMs);
+        startOnLayer(tabViews[index], flashAnimations[index]);
+    }
+
+    public TextView getTabView(int index) {
+        return index >= 0 && index < tabViews.length ? tabViews[index] : null;
+    }
+
+    // Only rewrites the one label; color and scale are left alone
+    public void setBadge(int index, int count) {
+        if (index < 0 || index >= tabViews.length || badgeCounts[index] == count) return;
+
+        badgeCounts[index] = count;
+        if (tabViews[index] == null) return;
+
+        if (count > 0) {
+            textBuffer.setLength(0);
+            tabViews[index].setText(textBuffer.append(titles[index]).append(" (").append(count).append(')').toString());
+        } else {
+            tabViews[index].setText(titles[index]);
+        }
+    }
+
+    private static void startOnLayer(View view, Animation animation) {
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        view.startAnimation(animation);
+    }
+
+    // Drops the hardware layer once the view's animation is done. A
+    // transition that replaced another one mid-flight can see the old one's
+    // end arrive after it started; the layer stays while the view is still
+    // running something else.
+    private static class LayerReleaser implements Animation.AnimationListener {
+        private final View view;
+
+        LayerReleaser(View view) {
+            this.view = view;
+        }
+
+        @Override
+        public void onAnimationStart(Animation animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animation animation) {
+            Animation current = view.getAnimation();
+            // hasEnded() also rules out an end from before the same
+            // animation was restarted
+            if (current == null || (current == animation && animation.hasEnded())) {
+                view.setLayerType(View.LAYER_TYPE_NONE, null);
+            }
+        }
+
+        @Override
+        public void onAnimationRepeat(Animation animation) {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.lionico.devinspect;
+
+import android.app.Activity;
+import android.app.Fragment;
+import android.os.BatteryManager;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertTrue;
+
+// Bytes the main thread allocates for one refresh of each always-on
+// monitor screen, averaged over MEASURED_CYCLES after WARMUP_CYCLES. Each
+// cycle gets new values, so every row is rebuilt. Inputs are built before
+// counting starts; only the fragment's own work and the framework calls it
+// makes are counted. Background collection runs on other threads and is
+// not part of the budget.
+//
+// The budgets are the measured steady state, a little under 4 KB for
+// either screen, plus headroom. One refresh going back to String.format,
+// DecimalFormat or a new SimpleDateFormat costs more than the headroom and
+// fails `check`.
+@RunWith(RobolectricTestRunner.class)
+public class RefreshAllocationTest {
+
+    private static final int DEVICE_REFRESH_BUDGET = 5 * 1024;
+    private static final int BATTERY_REFRESH_BUDGET = 5 * 1024;
+
+    private static final int WARMUP_CYCLES = 200;
+    private static final int MEASURED_CYCLES = 200;
+
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    @Test
+    public void deviceRefreshStaysWithinBudget() {
+        DeviceInfoFragment fragment = new DeviceInfoFragment();
+        start(fragment);
+
+        int cycles = WARMUP_CYCLES + MEASURED_CYCLES;
+        DeviceSnapshot[] snapshots = new DeviceSnapshot[cycles];
+        long timestamp = 1700000000000L;
+        for (int i = 0; i < cycles; i++) {
+            snapshots[i] = deviceSnapshot(i, timestamp + i * 1000L);
+        }
+
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            fragment.showSnapshot(snapshots[i]);
+        }
+        long start = allocatedBytes();
+        for (int i = WARMUP_CYCLES; i < cycles; i++) {
+            fragment.showSnapshot(snapshots[i]);
+        }
+        assertWithinBudget("Device refresh", allocatedBytes() - start, DEVICE_REFRESH_BUDGET);
+    }
+
+    @Test
+    public void batteryRefreshStaysWithinBudget() {
+        BatteryFragment fragment = new BatteryFragment();
+        start(fragment);
+
+        // Discharging by 0.1 % a minute, with temperature and voltage
+        // moving too, so every row but health and technology changes
+        int cycles = WARMUP_CYCLES + MEASURED_CYCLES;
+        BatteryState[] states = new BatteryState[cycles];
+        long timestamp = 1700000000000L;
+        for (int i = 0; i < cycles; i++) {
+            states[i] = new BatteryState(1000 - i, 1000,
+                                         BatteryManager.BATTERY_STATUS_DISCHARGING, 0,
+                                         BatteryManager.BATTERY_HEALTH_GOOD,
+                                         285 + i % 20, 4200 - i, "Li-ion",
+                                         timestamp + i * 60000L);
+        }
+
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            fragment.onBatteryState(states[i]);
+            fragment.renderLatestState();
+        }
+        long start = allocatedBytes();
+        for (int i = WARMUP_CYCLES; i < cycles; i++) {
+            fragment.onBatteryState(states[i]);
+            fragment.renderLatestState();
+        }
+        assertWithinBudget("Battery refresh", allocatedBytes() - start, BATTERY_REFRESH_BUDGET);
+    }
+
+    private static DeviceSnapshot deviceSnapshot(int i, long timestamp) {
+        DeviceSnapshot.Builder b = new DeviceSnapshot.Builder()
+            .device("Pixel 5", "Google", "11", 30, "4.19.113", "RQ3A.211001.001")
+            .primaryAbi("arm64-v8a")
+            .display(1080, 2340, 2.75f)
+            .storage(128 * GB, 40 * GB + i * 4096L * 1024)
+            .ram(8 * GB, 3 * GB - i * 1024L * 1024)
+            .network(true, 1, "WIFI", 0, "")
+            .wifi("\"lab\"", 0x0101A8C0, 433)
+            .cpuBenchmark(1200, 5400, 8)
+            .memoryBenchmark(9000, 11000, 95, new int[] {32 * 1024, 1024 * 1024})
+            .tips("Storage is fine.", "RAM is fine.")
+            .timestamp(timestamp);
+        b.score(DeviceScorer.calculateDeviceScore(30, "arm64-v8a", 1200, 5400, 8 * GB, 11000, 95,
+                                                  128 * GB, 1080, 2340, 2.75f,
+                                                  new DeviceScorer.ScoreResult()));
+        return b.build();
+    }
+
+    private static void start(Fragment fragment) {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.getFragmentManager().beginTransaction()
+            .add(android.R.id.content, fragment)
+            .commitNow();
+    }
+
+    private static void assertWithinBudget(String what, long bytes, int budget) {
+        long perCycle = bytes / MEASURED_CYCLES;
+        assertTrue(what + " allocated " + perCycle + " B per cycle, budget " + budget + " B",
+                   perCycle <= budget);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
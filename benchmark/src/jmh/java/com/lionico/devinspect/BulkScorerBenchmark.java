@@ -0,0 +1,111 @@
+package com.lionico.devinspect;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Scores a synthetic fleet of RECORDS devices; one operation is one
+// record, so the score reads as records per second. The fleet is grouped
+// by model the way an export sorted by device would be, with a fraction
+// of records carrying CPU and memory benchmark results. setUp() checks
+// every bulk result against the live path first.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BulkScorerBenchmark {
+
+    static final int RECORDS = 10000;
+    private static final int MODELS = 400;
+
+    private static final int[] SDK = {21, 23, 26, 28, 29, 30, 31, 33, 34};
+    private static final String[] ABI = {"armeabi-v7a", "arm64-v8a", "arm64-v8a", "x86_64"};
+    private static final int[] RAM_GB = {1, 2, 3, 4, 6, 8, 12, 16};
+    private static final int[] STORAGE_GB = {8, 16, 32, 64, 128, 256, 512};
+    private static final int[][] SCREEN = {{720, 1280}, {1080, 1920}, {1080, 2340}, {1440, 3120}};
+    private static final float[] DENSITY = {1.5f, 2.0f, 2.75f, 3.0f, 3.5f};
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BulkScorer scorer;
+    private BulkScorer.Record[] fleet;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        fleet = fleet(RECORDS);
+        scorer = new BulkScorer(threads);
+
+        final DeviceScorer.ScoreResult[] expected = new DeviceScorer.ScoreResult[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            BulkScorer.Record r = fleet[i];
+            expected[i] = DeviceScorer.calculateDeviceScore(r.sdkInt, r.primaryAbi, r.cpuSingleScore, r.cpuMultiScore,
+                                                            r.totalRamBytes, r.memoryBandwidthMBps, r.memoryLatencyNs,
+                                                            r.totalStorageBytes, r.screenWidth, r.screenHeight,
+                                                            r.density, new DeviceScorer.ScoreResult());
+        }
+        scorer.score(fleet, new BulkScorer.Sink() {
+            @Override
+            public void onScored(int index, BulkScorer.Record record, DeviceScorer.ScoreResult result) {
+                DeviceScorer.ScoreResult live = expected[index];
+                boolean same = live.totalScore == result.totalScore && live.color == result.color
+                    && live.ratingText.equals(result.ratingText)
+                    && live.performanceLevel.equals(result.performanceLevel);
+                for (int c = 0; c < DeviceScorer.CATEGORY_COUNT; c++) {
+                    same &= live.categoryScores[c] == result.categoryScores[c]
+                        && live.categoryDetails[c].equals(result.categoryDetails[c]);
+                }
+                if (!same) {
+                    throw new IllegalStateException("Record " + index + " scores differently from the live path");
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        scorer.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int[] scoreFleet() throws InterruptedException {
+        return scorer.totalScores(fleet);
+    }
+
+    static BulkScorer.Record[] fleet(int count) {
+        Random random = new Random(42);
+        BulkScorer.Record[] models = new BulkScorer.Record[MODELS];
+        for (int m = 0; m < MODELS; m++) {
+            int[] screen = SCREEN[random.nextInt(SCREEN.length)];
+            boolean measured = random.nextInt(3) == 0;
+            models[m] = new BulkScorer.Record(
+                SDK[random.nextInt(SDK.length)], ABI[random.nextInt(ABI.length)],
+                measured ? 100 + random.nextInt(900) : 0, measured ? 400 + random.nextInt(5000) : 0,
+                RAM_GB[random.nextInt(RAM_GB.length)] * DeviceProfiles.GB,
+                measured ? 1500 + random.nextInt(15000) : 0, measured ? 90 + random.nextInt(300) : 0,
+                STORAGE_GB[random.nextInt(STORAGE_GB.length)] * DeviceProfiles.GB,
+                screen[0], screen[1], DENSITY[random.nextInt(DENSITY.length)]);
+        }
+
+        // Runs of one model, as in an export sorted by device
+        BulkScorer.Record[] records = new BulkScorer.Record[count];
+        int i = 0;
+        while (i < count) {
+            BulkScorer.Record model = models[random.nextInt(MODELS)];
+            int run = Math.min(count - i, 1 + random.nextInt(50));
+            for (int k = 0; k < run; k++) {
+                records[i++] = model;
+            }
+        }
+        return records;
+    }
+}
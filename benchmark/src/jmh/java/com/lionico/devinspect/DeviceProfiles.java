@@ -0,0 +1,31 @@
+package com.lionico.devinspect;
+
+// Fake device readings for the benchmarks: a low-end, a mid-range and a
+// flagship phone
+final class DeviceProfiles {
+
+    static final long GB = 1024L * 1024L * 1024L;
+
+    static final int COUNT = 3;
+
+    static final int[] SDK = {23, 29, 34};
+    static final String[] ABI = {"armeabi-v7a", "arm64-v8a", "arm64-v8a"};
+    static final long[] RAM_TOTAL = {2 * GB, 6 * GB, 12 * GB};
+    static final long[] RAM_AVAILABLE = {GB / 4, 2 * GB, 7 * GB};
+    static final long[] STORAGE_TOTAL = {16 * GB, 128 * GB, 512 * GB};
+    static final long[] STORAGE_AVAILABLE = {GB, 40 * GB, 300 * GB};
+    static final int[] WIDTH = {720, 1080, 1440};
+    static final int[] HEIGHT = {1280, 2340, 3120};
+    static final float[] DENSITY = {2.0f, 2.75f, 3.5f};
+    static final int[] NETWORK = {
+        DeviceTipGenerator.NETWORK_MOBILE, DeviceTipGenerator.NETWORK_WIFI, DeviceTipGenerator.NETWORK_NONE
+    };
+
+    private DeviceProfiles() {
+    }
+
+    static DeviceScorer.ScoreResult score(int i, DeviceScorer.ScoreResult out) {
+        return DeviceScorer.calculateDeviceScore(SDK[i], ABI[i], RAM_TOTAL[i], STORAGE_TOTAL[i],
+                                                 WIDTH[i], HEIGHT[i], DENSITY[i], out);
+    }
+}
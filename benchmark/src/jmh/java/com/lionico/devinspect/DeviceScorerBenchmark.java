@@ -0,0 +1,48 @@
+package com.lionico.devinspect;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceScorerBenchmark {
+
+    @Param({"0", "1", "2"})
+    public int profile;
+
+    private final DeviceScorer.ScoreResult reused = new DeviceScorer.ScoreResult();
+    private DeviceScorer.ScoreResult scored;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        scored = DeviceProfiles.score(profile, new DeviceScorer.ScoreResult());
+    }
+
+    // Same device every call, as on a live monitor: the memo stays warm and
+    // the caller's result is refilled, so this should not allocate
+    @Benchmark
+    public DeviceScorer.ScoreResult scoreSameDevice() {
+        return DeviceProfiles.score(profile, reused);
+    }
+
+    // A new device on every call, which rebuilds the memoized scores
+    @Benchmark
+    public DeviceScorer.ScoreResult scoreChangingDevice() {
+        next = (next + 1) % DeviceProfiles.COUNT;
+        return DeviceProfiles.score(next, new DeviceScorer.ScoreResult());
+    }
+
+    @Benchmark
+    public String performanceTips() {
+        return DeviceScorer.generatePerformanceTips(scored);
+    }
+}
@@ -0,0 +1,27 @@
+package com.lionico.devinspect;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceTipGeneratorBenchmark {
+
+    @Param({"0", "1", "2"})
+    public int profile;
+
+    @Benchmark
+    public String allTips() {
+        int i = profile;
+        return DeviceTipGenerator.generateAllTips(DeviceProfiles.STORAGE_TOTAL[i], DeviceProfiles.STORAGE_AVAILABLE[i],
+                                                  DeviceProfiles.RAM_TOTAL[i], DeviceProfiles.RAM_AVAILABLE[i],
+                                                  DeviceProfiles.SDK[i], DeviceProfiles.NETWORK[i]);
+    }
+}
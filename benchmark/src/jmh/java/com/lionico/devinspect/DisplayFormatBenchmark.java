@@ -0,0 +1,36 @@
+package com.lionico.devinspect;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DisplayFormatBenchmark {
+
+    // 192.168.1.42 as WifiInfo reports it, and a spread of remaining times
+    // from minutes to a day so both output shapes are measured
+    private static final int IP = 0x2A01A8C0;
+    private static final long[] DURATIONS = {
+        TimeUnit.MINUTES.toMillis(7), TimeUnit.MINUTES.toMillis(95),
+        TimeUnit.HOURS.toMillis(9) + TimeUnit.MINUTES.toMillis(3), TimeUnit.HOURS.toMillis(26)
+    };
+
+    private int next;
+
+    @Benchmark
+    public String intToIp() {
+        return DisplayFormat.intToIp(IP);
+    }
+
+    @Benchmark
+    public String formatDuration() {
+        next = (next + 1) & 3;
+        return DisplayFormat.formatDuration(DURATIONS[next]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.lionico.devinspect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// ProcCursor over kernel files recorded from an 8-core phone (resources
+// under proc/). Only the parse is measured; ProcFile's read is a syscall
+// the JVM cannot tell us much about. setUp() checks every parser against
+// the values in the recordings, so a parsing regression fails the run
+// instead of producing a fast wrong number.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProcParseBenchmark {
+
+    private static final byte[] CPU = ProcCursor.ascii("cpu");
+    private static final byte[] MEM_TOTAL = ProcCursor.ascii("MemTotal");
+    private static final byte[] MEM_AVAILABLE = ProcCursor.ascii("MemAvailable");
+    private static final byte[] LOOPBACK = ProcCursor.ascii("lo");
+
+    private final ProcCursor cursor = new ProcCursor();
+    private byte[] stat;
+    private byte[] meminfo;
+    private byte[] netDev;
+    private byte[] loadavg;
+
+    @Setup
+    public void setUp() throws IOException {
+        stat = fixture("stat");
+        meminfo = fixture("meminfo");
+        netDev = fixture("net_dev");
+        loadavg = fixture("loadavg");
+
+        expect("stat total jiffies", 23099780L, parseStat());
+        expect("meminfo MemTotal + MemAvailable", 5773084L + 2310416L, parseMeminfo());
+        expect("net_dev rx + tx without lo", 3722965075L + 250452593L, parseNetDev());
+        expect("loadavg 1/5/15 min", 241L * 1000000 + 287L * 1000 + 302L, parseLoadavg());
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        InputStream in = ProcParseBenchmark.class.getResourceAsStream("/proc/" + name);
+        if (in == null) throw new IOException("Missing fixture proc/" + name);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void expect(String what, long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalStateException(what + ": expected " + expected + ", parsed " + actual);
+        }
+    }
+
+    // Sum of the total line's first eight fields, plus a check that all
+    // eight per-core lines parse, as CpuLoadSampler reads them
+    @Benchmark
+    public long parseStat() {
+        cursor.reset(stat, stat.length);
+        long total = 0;
+        int cores = 0;
+        while (cursor.nextLine() && cursor.nextToken() && cursor.tokenStartsWith(CPU)) {
+            if (cursor.tokenLength() > CPU.length) {
+                if (cursor.tokenLong(CPU.length) != ProcCursor.MISSING) cores++;
+                continue;
+            }
+            for (int i = 0; i < 8; i++) {
+                total += cursor.nextLong();
+            }
+        }
+        return cores == 8 ? total : -1;
+    }
+
+    @Benchmark
+    public long parseMeminfo() {
+        cursor.reset(meminfo, meminfo.length);
+        long total = ProcCursor.MISSING;
+        long available = ProcCursor.MISSING;
+        while (cursor.nextLine() && (total == ProcCursor.MISSING || available == ProcCursor.MISSING)) {
+            if (!cursor.nextToken()) continue;
+            if (cursor.tokenEquals(MEM_TOTAL)) {
+                total = cursor.nextLong();
+            } else if (cursor.tokenEquals(MEM_AVAILABLE)) {
+                available = cursor.nextLong();
+            }
+        }
+        return total + available;
+    }
+
+    // Receive bytes are the first counter and transmit bytes the ninth
+    @Benchmark
+    public long parseNetDev() {
+        cursor.reset(netDev, netDev.length);
+        cursor.nextLine();
+        cursor.nextLine();
+        long sum = 0;
+        while (cursor.nextLine()) {
+            if (!cursor.nextToken() || cursor.tokenEquals(LOOPBACK)) continue;
+            sum += cursor.nextLong();
+            cursor.skipTokens(7);
+            sum += cursor.nextLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parseLoadavg() {
+        cursor.reset(loadavg, loadavg.length);
+        cursor.nextLine();
+        return cursor.nextFixed(2) * 1000000 + cursor.nextFixed(2) * 1000 + cursor.nextFixed(2);
+    }
+}
@@ -0,0 +1,145 @@
+package com.lionico.devinspect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Encodes the battery section of DeviceReport with a full history ring,
+// BatteryHistoryStore.CAPACITY samples in six columns, which is most of an
+// exported report. Output goes to a stream that only counts bytes, so the
+// file system is not measured. setUp() checks the JSON against a copy
+// built with plain String concatenation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportWriterBenchmark {
+
+    private static final int SAMPLES = 16384;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private final long[] timestamps = new long[SAMPLES];
+    private final float[] levels = new float[SAMPLES];
+    private final float[] temperatures = new float[SAMPLES];
+    private final int[] voltages = new int[SAMPLES];
+    private final int[] statuses = new int[SAMPLES];
+    private final int[] plugged = new int[SAMPLES];
+
+    private final CountingStream sink = new CountingStream();
+
+    static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        // One sample a minute, discharging by 1 % every 80 minutes
+        long start = 1700000000000L;
+        for (int i = 0; i < SAMPLES; i++) {
+            timestamps[i] = start + i * 60000L;
+            levels[i] = 100 - (i % 8000) / 80f;
+            temperatures[i] = 28.5f + (i % 97) / 10f;
+            voltages[i] = 4350 - (i % 8000) / 10;
+            statuses[i] = i % 8000 < 7900 ? 3 : 2;
+            plugged[i] = i % 8000 < 7900 ? 0 : 2;
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        encode(ReportWriter.json(json));
+        String expected = expectedJson();
+        if (!expected.equals(json.toString("UTF-8"))) {
+            throw new IllegalStateException("JSON output differs from the reference encoding");
+        }
+    }
+
+    @Benchmark
+    public long writeHistory() throws IOException {
+        sink.count = 0;
+        encode("cbor".equals(format) ? ReportWriter.cbor(sink) : ReportWriter.json(sink));
+        return sink.count;
+    }
+
+    private void encode(ReportWriter w) throws IOException {
+        int n = SAMPLES;
+        w.beginObject();
+        w.name("count").value(n);
+        w.name("timestamps").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(timestamps[i]);
+        }
+        w.endArray();
+        w.name("levelPercent").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(levels[i], 1);
+        }
+        w.endArray();
+        w.name("temperatureC").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(temperatures[i], 1);
+        }
+        w.endArray();
+        w.name("voltageMv").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(voltages[i]);
+        }
+        w.endArray();
+        w.name("status").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(statuses[i]);
+        }
+        w.endArray();
+        w.name("plugged").beginArray();
+        for (int i = 0; i < n; i++) {
+            w.value(plugged[i]);
+        }
+        w.endArray();
+        w.endObject();
+        w.close();
+    }
+
+    private String expectedJson() {
+        StringBuilder sb = new StringBuilder("{\"count\":").append(SAMPLES);
+        sb.append(",\"timestamps\":[");
+        for (int i = 0; i < SAMPLES; i++) {
+            sb.append(i > 0 ? "," : "").append(timestamps[i]);
+        }
+        sb.append("],\"levelPercent\":[");
+        for (int i = 0; i < SAMPLES; i++) {
+            sb.append(i > 0 ? "," : "").append(String.format(java.util.Locale.US, "%.1f", levels[i]));
+        }
+        sb.append("],\"temperatureC\":[");
+        for (int i = 0; i < SAMPLES; i++) {
+            sb.append(i > 0 ? "," : "").append(String.format(java.util.Locale.US, "%.1f", temperatures[i]));
+        }
+        appendInts(sb.append("],\"voltageMv\":["), voltages);
+        appendInts(sb.append("],\"status\":["), statuses);
+        appendInts(sb.append("],\"plugged\":["), plugged);
+        return sb.append("]}").toString();
+    }
+
+    private static void appendInts(StringBuilder sb, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            sb.append(i > 0 ? "," : "").append(values[i]);
+        }
+    }
+}
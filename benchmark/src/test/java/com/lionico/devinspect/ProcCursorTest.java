@@ -0,0 +1,282 @@
+package com.lionico.devinspect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// ProcCursor against the kernel files recorded for ProcParseBenchmark
+// (resources under proc/) and against the shapes a real device can hand
+// back instead: older kernels with fewer columns, fields that are absent,
+// and text cut off mid-line by a short read or a full buffer.
+public class ProcCursorTest {
+
+    private static final byte[] CPU = ProcCursor.ascii("cpu");
+    private static final byte[] MEM_TOTAL = ProcCursor.ascii("MemTotal");
+    private static final byte[] MEM_AVAILABLE = ProcCursor.ascii("MemAvailable");
+    private static final byte[] WLAN0 = ProcCursor.ascii("wlan0");
+
+    private final ProcCursor cursor = new ProcCursor();
+
+    @Test
+    public void statTotalLineHasTenFields() throws IOException {
+        byte[] stat = fixture("stat");
+        cursor.reset(stat, stat.length);
+
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertTrue(cursor.tokenEquals(CPU));
+        long[] expected = {1843921, 41229, 1120473, 19839214, 24511, 172330, 58102, 0, 0, 0};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("field " + i, expected[i], cursor.nextLong());
+        }
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+    }
+
+    @Test
+    public void statCoreLinesCarryTheirIndex() throws IOException {
+        byte[] stat = fixture("stat");
+        cursor.reset(stat, stat.length);
+        cursor.nextLine();
+
+        for (int core = 0; core < 8; core++) {
+            assertTrue(cursor.nextLine());
+            assertTrue(cursor.nextToken());
+            assertTrue(cursor.tokenStartsWith(CPU));
+            assertEquals(core, cursor.tokenLong(CPU.length));
+        }
+    }
+
+    // Kernels before 2.6.11 have no steal column and stop after softirq
+    @Test
+    public void preStealStatEndsAfterSevenFields() {
+        reset("cpu  4705 356 584 3699 23 23 0\n"
+              + "cpu0 1393 280 290 3012 17 21 0\n"
+              + "intr 114930548 113199788 3 0 5 263 0 4 [... lots more numbers ...]\n");
+
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertTrue(cursor.tokenEquals(CPU));
+        long[] expected = {4705, 356, 584, 3699, 23, 23, 0};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("field " + i, expected[i], cursor.nextLong());
+        }
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+        // Running out of fields leaves the cursor on its own line
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertEquals(0, cursor.tokenLong(CPU.length));
+        assertEquals(1393, cursor.nextLong());
+    }
+
+    @Test
+    public void meminfoKeysAndKilobytes() throws IOException {
+        byte[] meminfo = fixture("meminfo");
+        cursor.reset(meminfo, meminfo.length);
+
+        assertEquals(5773084, find(MEM_TOTAL));
+        assertEquals(2310416, find(MEM_AVAILABLE));
+    }
+
+    // MemAvailable only exists since 3.14
+    @Test
+    public void missingKeyReadsAsMissing() {
+        reset("MemTotal:         512000 kB\n"
+              + "MemFree:           12000 kB\n"
+              + "Buffers:            3000 kB\n");
+
+        assertEquals(ProcCursor.MISSING, find(MEM_AVAILABLE));
+    }
+
+    @Test
+    public void keyWithoutValueReadsAsMissing() {
+        reset("MemTotal:\nMemFree: 12000 kB\n");
+
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertTrue(cursor.tokenEquals(MEM_TOTAL));
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+        assertFalse(cursor.nextToken());
+
+        // The number on the next line is not picked up
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertEquals(12000, cursor.nextLong());
+    }
+
+    @Test
+    public void nonNumericFieldReadsAsMissing() {
+        reset("MemTotal: unknown kB\n");
+
+        cursor.nextLine();
+        cursor.nextToken();
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+    }
+
+    // Receive bytes are the first counter and transmit bytes the ninth
+    @Test
+    public void netDevCountersAfterInterfaceName() throws IOException {
+        byte[] netDev = fixture("net_dev");
+        cursor.reset(netDev, netDev.length);
+        cursor.nextLine();
+        cursor.nextLine();
+
+        long rx = ProcCursor.MISSING;
+        long tx = ProcCursor.MISSING;
+        while (cursor.nextLine()) {
+            if (cursor.nextToken() && cursor.tokenEquals(WLAN0)) {
+                rx = cursor.nextLong();
+                cursor.skipTokens(7);
+                tx = cursor.nextLong();
+            }
+        }
+        assertEquals(2810933842L, rx);
+        assertEquals(190233310L, tx);
+    }
+
+    // Older kernels print no space between the colon and a wide counter
+    @Test
+    public void netDevWithoutSpaceAfterColon() {
+        reset("  eth0:1234567890 12 0 0 0 0 0 0 987 6 0 0 0 0 0 0\n");
+
+        cursor.nextLine();
+        assertTrue(cursor.nextToken());
+        assertEquals(4, cursor.tokenLength());
+        assertEquals(1234567890L, cursor.nextLong());
+    }
+
+    @Test
+    public void loadavgAsFixedPoint() throws IOException {
+        byte[] loadavg = fixture("loadavg");
+        cursor.reset(loadavg, loadavg.length);
+        cursor.nextLine();
+
+        assertEquals(241, cursor.nextFixed(2));
+        assertEquals(2870, cursor.nextFixed(3));
+        assertEquals(30, cursor.nextFixed(1));
+        assertEquals(4, cursor.nextLong());
+        assertTrue(cursor.skip('/'));
+        assertEquals(2816, cursor.nextLong());
+        assertEquals(21744, cursor.nextLong());
+        assertEquals(ProcCursor.MISSING, cursor.nextFixed(2));
+    }
+
+    @Test
+    public void negativeNumbers() {
+        reset("-12 -0.5\n");
+
+        cursor.nextLine();
+        assertEquals(-12, cursor.nextLong());
+        assertEquals(-50, cursor.nextFixed(2));
+    }
+
+    // A short read, or a file longer than the buffer, ends mid-line
+    @Test
+    public void lastLineWithoutNewline() {
+        reset("MemTotal:  5773084 kB\nMemFree:  2019");
+
+        assertEquals(5773084, find(MEM_TOTAL));
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertEquals(2019, cursor.nextLong());
+        assertFalse(cursor.nextLine());
+    }
+
+    @Test
+    public void lineCutInsideKey() {
+        reset("MemTotal:  5773084 kB\nMemAvai");
+
+        assertEquals(ProcCursor.MISSING, find(MEM_AVAILABLE));
+    }
+
+    // Only the first length bytes count, whatever follows in the array
+    @Test
+    public void lengthBoundsTheData() {
+        byte[] data = bytes("1234567\n");
+        cursor.reset(data, 4);
+
+        assertEquals(1234, cursor.firstLong());
+        assertFalse(cursor.nextLine());
+    }
+
+    // Every fixture cut at every length parses without reading past the
+    // cut or throwing, as it would after a read that filled the buffer
+    @Test
+    public void everyTruncationOfTheFixturesIsSafe() throws IOException {
+        String[] names = {"stat", "meminfo", "net_dev", "loadavg"};
+        for (String name : names) {
+            byte[] full = fixture(name);
+            for (int length = 0; length <= full.length; length++) {
+                byte[] cut = new byte[length];
+                System.arraycopy(full, 0, cut, 0, length);
+                cursor.reset(cut, length);
+                while (cursor.nextLine()) {
+                    while (cursor.nextToken()) {
+                        cursor.nextLong();
+                        cursor.nextFixed(2);
+                    }
+                }
+                assertFalse(name + " cut at " + length, cursor.nextLine());
+            }
+        }
+    }
+
+    @Test
+    public void emptyData() {
+        reset("");
+
+        assertFalse(cursor.nextLine());
+        assertFalse(cursor.nextToken());
+        assertEquals(ProcCursor.MISSING, cursor.nextLong());
+        assertEquals(ProcCursor.MISSING, cursor.firstLong());
+    }
+
+    @Test
+    public void firstLongOfSysfsValue() {
+        reset("1804800\n");
+        assertEquals(1804800, cursor.firstLong());
+
+        reset("N/A\n");
+        assertEquals(ProcCursor.MISSING, cursor.firstLong());
+    }
+
+    private long find(byte[] key) {
+        while (cursor.nextLine()) {
+            if (cursor.nextToken() && cursor.tokenEquals(key)) {
+                return cursor.nextLong();
+            }
+        }
+        return ProcCursor.MISSING;
+    }
+
+    private void reset(String text) {
+        byte[] data = bytes(text);
+        cursor.reset(data, data.length);
+    }
+
+    private static byte[] bytes(String text) {
+        return ProcCursor.ascii(text);
+    }
+
+    static byte[] fixture(String name) throws IOException {
+        InputStream in = ProcCursorTest.class.getResourceAsStream("/proc/" + name);
+        if (in == null) throw new IOException("Missing fixture proc/" + name);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lionico.devinspect;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// ProcFile over regular files standing in for procfs: the recorded
+// fixtures, files that outgrow the buffer, change between reads or go
+// away. The 8 KB buffer is the one CpuLoadSampler gives /proc/stat.
+public class ProcFileTest {
+
+    private static final int STAT_CAPACITY = 8 * 1024;
+    private static final byte[] CPU = ProcCursor.ascii("cpu");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProcFile procFile;
+
+    @After
+    public void tearDown() {
+        if (procFile != null) procFile.close();
+    }
+
+    @Test
+    public void readsWholeFixture() throws IOException {
+        byte[] stat = ProcCursorTest.fixture("stat");
+        procFile = new ProcFile(write("stat", stat).getPath(), STAT_CAPACITY);
+
+        ProcCursor cursor = procFile.read();
+        assertEquals(stat.length, procFile.length());
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertTrue(cursor.tokenEquals(CPU));
+        assertEquals(1843921, cursor.nextLong());
+    }
+
+    // Many-core devices with long interrupt lines can exceed the buffer;
+    // the read stops at capacity and the cut line ends the data
+    @Test
+    public void fileLargerThanBufferIsCutAtCapacity() throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append("cpu  1843921 41229 1120473 19839214 24511 172330 58102 0 0 0\n");
+        int line = 0;
+        while (text.length() <= STAT_CAPACITY) {
+            text.append("cpu").append(line++).append(" 368211 9120 276304 2167118 6140 71203 24511 0 0 0\n");
+        }
+        procFile = new ProcFile(write("stat", ProcCursor.ascii(text.toString())).getPath(), STAT_CAPACITY);
+
+        ProcCursor cursor = procFile.read();
+        assertEquals(STAT_CAPACITY, procFile.length());
+
+        assertTrue(cursor.nextLine());
+        assertTrue(cursor.nextToken());
+        assertEquals(1843921, cursor.nextLong());
+
+        int lines = 1;
+        while (cursor.nextLine()) {
+            lines++;
+            while (cursor.nextToken()) {
+                cursor.nextLong();
+            }
+        }
+        String read = text.substring(0, STAT_CAPACITY);
+        int expected = read.split("\n", -1).length - (read.endsWith("\n") ? 1 : 0);
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void fileExactlyFillingBuffer() throws IOException {
+        byte[] data = new byte[STAT_CAPACITY];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 64 == 63 ? '\n' : '7');
+        }
+        procFile = new ProcFile(write("exact", data).getPath(), STAT_CAPACITY);
+
+        ProcCursor cursor = procFile.read();
+        assertEquals(STAT_CAPACITY, procFile.length());
+        int lines = 0;
+        while (cursor.nextLine()) {
+            lines++;
+        }
+        assertEquals(STAT_CAPACITY / 64, lines);
+    }
+
+    // procfs regenerates the text on every read from offset 0
+    @Test
+    public void rereadSeesNewContents() throws IOException {
+        File file = write("scaling_cur_freq", ProcCursor.ascii("1804800\n"));
+        procFile = new ProcFile(file.getPath(), 32);
+        assertEquals(1804800, procFile.readLong());
+
+        write("scaling_cur_freq", ProcCursor.ascii("300000\n"));
+        assertEquals(300000, procFile.readLong());
+        assertEquals(7, procFile.length());
+    }
+
+    @Test
+    public void missingFile() throws IOException {
+        procFile = new ProcFile(new File(folder.getRoot(), "absent").getPath(), 32);
+
+        assertNull(procFile.readOrNull());
+        assertEquals(ProcCursor.MISSING, procFile.readLong());
+        try {
+            procFile.read();
+            fail("read() of a missing file");
+        } catch (IOException expected) {
+        }
+    }
+
+    // A failed read closes the file, so a file that comes back is reopened
+    @Test
+    public void reopensAfterFailedRead() throws IOException {
+        File file = new File(folder.getRoot(), "online");
+        procFile = new ProcFile(file.getPath(), 32);
+        assertEquals(ProcCursor.MISSING, procFile.readLong());
+
+        write("online", ProcCursor.ascii("0-7\n"));
+        assertEquals(0, procFile.readLong());
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        procFile = new ProcFile(write("empty", new byte[0]).getPath(), 32);
+
+        ProcCursor cursor = procFile.read();
+        assertEquals(0, procFile.length());
+        assertFalse(cursor.nextLine());
+        assertEquals(ProcCursor.MISSING, procFile.readLong());
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}